@@ -0,0 +1,205 @@
+package benchmark;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Runs the benchmarks and writes the results to a CSV baseline.
+ * For every data size it generates the data files once, then starts one JVM per benchmark
+ * on a fresh copy of them. The baseline has one row per benchmark and size, sorted, so two
+ * baselines can be compared with diff or with the --baseline option.
+ * <p>
+ * Usage: java -cp out benchmark.BenchmarkRunner [--rows 1000,100000,1000000] [--only prefix]
+ * [--out console_app/bench/baseline.csv] [--baseline previous.csv]
+ */
+public class BenchmarkRunner {
+    private static final String HEADER = "benchmark,rows,unit,score,error,iterations";
+
+    public static void main(String[] args) throws Exception {
+        List<Integer> sizes = List.of(1_000, 100_000, 1_000_000);
+        String only = "";
+        String outPath = "console_app/bench/baseline.csv";
+        String baselinePath = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--rows":
+                    sizes = new ArrayList<>();
+                    for (String size : args[i + 1].split(",")) {
+                        sizes.add(Integer.parseInt(size.trim()));
+                    }
+                    break;
+                case "--only":
+                    only = args[i + 1];
+                    break;
+                case "--out":
+                    outPath = args[i + 1];
+                    break;
+                case "--baseline":
+                    baselinePath = args[i + 1];
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    return;
+            }
+        }
+
+        Map<String, String> results = new TreeMap<>();
+        Path workRoot = Files.createTempDirectory("elms-bench");
+        try {
+            // Benchmarks that do not read data run once
+            for (String name : Benchmarks.NAMES) {
+                if (name.startsWith(only) && !Benchmarks.usesData(name)) {
+                    Path runDir = Files.createDirectories(workRoot.resolve("run"));
+                    record(results, name, 0, fork(name, 0, runDir));
+                }
+            }
+
+            for (int rows : sizes) {
+                Path fixture = workRoot.resolve("fixture-" + rows);
+                System.out.println("Generating " + rows + " rows...");
+                DatasetGenerator.generate(fixture, rows);
+                for (String name : Benchmarks.NAMES) {
+                    if (name.startsWith(only) && Benchmarks.usesData(name)) {
+                        Path runDir = workRoot.resolve("run-" + rows);
+                        deleteTree(runDir);
+                        copyTree(fixture, runDir);
+                        record(results, name, rows, fork(name, rows, runDir));
+                    }
+                }
+                deleteTree(fixture);
+            }
+        } finally {
+            deleteTree(workRoot);
+        }
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(outPath))) {
+            writer.println(HEADER);
+            for (String row : results.values()) {
+                writer.println(row);
+            }
+        }
+        System.out.println("Baseline written to " + outPath);
+
+        if (baselinePath != null) {
+            compare(baselinePath, results);
+        }
+    }
+
+    private static void record(Map<String, String> results, String name, int rows, String fields) {
+        String row = name + "," + rows + "," + fields;
+        System.out.println(row);
+        results.put(String.format("%s,%010d", name, rows), row); // Sort sizes numerically
+    }
+
+    /**
+     * Runs one benchmark in a new JVM with the given working directory.
+     *
+     * @return The result fields, or FAILED fields if the benchmark did not finish.
+     */
+    private static String fork(String name, int rows, Path workDir) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments()); // Same heap and flags as this JVM
+        command.add("-cp");
+        command.add(absoluteClassPath());
+        command.add(Benchmarks.class.getName());
+        command.add(name);
+        command.add(String.valueOf(rows));
+
+        Process process = new ProcessBuilder(command)
+                .directory(workDir.toFile())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        String result = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(Benchmarks.RESULT_PREFIX)) {
+                    result = line.substring(Benchmarks.RESULT_PREFIX.length());
+                }
+            }
+        }
+        if (process.waitFor() != 0 || result == null) {
+            return "FAILED,,,";
+        }
+        return result;
+    }
+
+    // The class path of this JVM, made absolute because the benchmark runs in another directory
+    static String absoluteClassPath() {
+        StringJoiner joiner = new StringJoiner(File.pathSeparator);
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            joiner.add(Paths.get(entry).toAbsolutePath().toString());
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * Prints the change of each score against an earlier baseline.
+     */
+    private static void compare(String baselinePath, Map<String, String> results) throws IOException {
+        Map<String, String[]> previous = new HashMap<>();
+        for (String line : Files.readAllLines(Paths.get(baselinePath))) {
+            String[] fields = line.split(",");
+            if (fields.length == 6 && !line.equals(HEADER)) {
+                previous.put(fields[0] + "," + fields[1], fields);
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-34s %10s %16s %16s %9s%n", "benchmark", "rows", "before", "after", "change");
+        for (String row : results.values()) {
+            String[] fields = row.split(",", -1);
+            String[] before = previous.get(fields[0] + "," + fields[1]);
+            if (before == null || fields[3].isEmpty() || !before[2].equals(fields[2])) {
+                continue; // New, failed or measured in another unit
+            }
+            double oldScore = Double.parseDouble(before[3]);
+            double newScore = Double.parseDouble(fields[3]);
+            double change = (newScore - oldScore) / oldScore * 100;
+            System.out.printf("%-34s %10s %16.3f %16.3f %+8.1f%% %s%n",
+                    fields[0], fields[1], oldScore, newScore, change, fields[2]);
+        }
+    }
+
+    private static void copyTree(Path source, Path target) throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.copy(file, target.resolve(source.relativize(file)));
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    static void deleteTree(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
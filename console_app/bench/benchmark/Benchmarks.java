@@ -0,0 +1,325 @@
+package benchmark;
+
+import controller.InventoryService;
+import controller.LendingOutcome;
+import controller.LendingService;
+import helper.*;
+import model.*;
+import utils.DateUtils;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * The benchmarks of the data layer and the lending service.
+ * Each benchmark runs in its own JVM started by BenchmarkRunner, with a generated copy of
+ * the data files as its working directory, so static state and file changes never leak
+ * from one benchmark into the next. The result is printed as a single line starting with RESULT.
+ */
+public class Benchmarks {
+    public static final String RESULT_PREFIX = "RESULT,";
+
+    // Every benchmark, in the order they are run
+    public static final List<String> NAMES = List.of(
+            "load.students",
+            "load.staff",
+            "load.equipment",
+            "load.lendingRecords",
+            "load.reload",
+            "update.equipmentStatus",
+            "update.lendingRecord",
+            "lookup.equipmentByID",
+            "lookup.lendingRecordsByBorrower",
+            "lookup.availableEquipment",
+            "checkout.concurrent",
+            "checkout.batch",
+            "dates.parse",
+            "dates.format");
+
+    private static final int WRITES_PER_ITERATION = 200; // Each write is made durable, so keep this small
+    private static final int CHECKOUT_THREADS = 8;
+    private static final Random random = new Random(42);
+
+    /**
+     * Checks whether a benchmark reads the generated data files.
+     *
+     * @param name The benchmark name.
+     * @return True if the benchmark must be run against each data size.
+     */
+    public static boolean usesData(String name) {
+        return !name.startsWith("dates.");
+    }
+
+    /**
+     * Runs one benchmark and prints its result.
+     *
+     * @param args The benchmark name and the number of rows in the data files.
+     */
+    public static void main(String[] args) {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // Hide the messages of the services
+
+        String name = args[0];
+        int rows = Integer.parseInt(args[1]);
+        try {
+            Measurement measurement = run(name, rows);
+            out.println(RESULT_PREFIX + measurement.toCsv());
+            out.flush();
+            System.exit(0); // Stop the background threads of the services
+        } catch (Exception e) {
+            System.err.println("Error running benchmark " + name + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static Measurement run(String name, int rows) throws Exception {
+        switch (name) {
+            case "load.students":
+                return Measurement.measure(Measurement.OPS_PER_SECOND, 3, 5, () -> {
+                    StudentDataLoader.loadStudents();
+                    return StudentDataProcessor.getStudents().size();
+                });
+            case "load.staff":
+                return Measurement.measure(Measurement.OPS_PER_SECOND, 3, 5, () -> {
+                    StaffDataLoader.loadStaff();
+                    return StaffDataProcessor.getAcademics().size() + StaffDataProcessor.getProfessionals().size();
+                });
+            case "load.equipment":
+                return Measurement.measure(Measurement.OPS_PER_SECOND, 3, 5, () -> {
+                    EquipmentDataLoader.loadEquipment();
+                    return EquipmentDataProcessor.getEquipments().size();
+                });
+            case "load.lendingRecords":
+                return loadLendingRecords();
+            case "load.reload":
+                return reload();
+            case "update.equipmentStatus":
+                return updateEquipmentStatus();
+            case "update.lendingRecord":
+                return updateLendingRecord();
+            case "lookup.equipmentByID":
+                return lookupEquipmentByID(rows);
+            case "lookup.lendingRecordsByBorrower":
+                return lookupLendingRecordsByBorrower(rows);
+            case "lookup.availableEquipment":
+                return lookupAvailableEquipment(rows);
+            case "checkout.concurrent":
+                return concurrentCheckout();
+            case "checkout.batch":
+                return batchCheckout();
+            case "dates.parse":
+                return Measurement.measure(Measurement.NANOS_PER_OP, 5, 10, () -> {
+                    long total = 0;
+                    for (int i = 0; i < 1_000_000; i++) {
+                        total += DateUtils.parseDate("2024-05-17").getDayOfMonth();
+                    }
+                    Measurement.consume(total);
+                    return 1_000_000;
+                });
+            case "dates.format":
+                LocalDate date = LocalDate.of(2024, 5, 17);
+                return Measurement.measure(Measurement.NANOS_PER_OP, 5, 10, () -> {
+                    long total = 0;
+                    for (int i = 0; i < 1_000_000; i++) {
+                        total += DateUtils.formatDateForFile(date).length();
+                    }
+                    Measurement.consume(total);
+                    return 1_000_000;
+                });
+            default:
+                throw new IllegalArgumentException("unknown benchmark " + name);
+        }
+    }
+
+    // Parse the lending file against a borrower registry and equipment map built once, as DataLoader does
+    private static Measurement loadLendingRecords() throws Exception {
+        StudentDataLoader.loadStudents();
+        StaffDataLoader.loadStaff();
+        EquipmentDataLoader.loadEquipment();
+        BorrowerRegistry borrowers = new BorrowerRegistry(StudentDataProcessor.getStudents(),
+                StaffDataProcessor.getAcademics(), StaffDataProcessor.getProfessionals());
+        Map<String, Equipment> equipment = new HashMap<>();
+        EquipmentDataProcessor.getEquipments().forEach(item -> equipment.put(item.getId(), item));
+
+        return Measurement.measure(Measurement.OPS_PER_SECOND, 3, 5, () -> {
+            LendingRecordDataLoader.loadLendingRecords(borrowers, equipment);
+            return LendingRecordProcessor.getLendingRecords().size();
+        });
+    }
+
+    // Read every data file again and rebuild the repository and lending service indexes, as the menu does
+    private static Measurement reload() throws Exception {
+        LendingService lendingService = new LendingService();
+        return Measurement.measure(Measurement.OPS_PER_SECOND, 3, 5, () -> {
+            lendingService.reload();
+            return DataRepository.getLendingRecords().size();
+        });
+    }
+
+    // Flip equipment between Available and Unavailable, making each change durable
+    private static Measurement updateEquipmentStatus() throws Exception {
+        List<Equipment> equipment = DataRepository.getEquipments();
+        return Measurement.measure(Measurement.NANOS_PER_OP, 2, 5, () -> {
+            for (int i = 0; i < WRITES_PER_ITERATION; i++) {
+                Equipment item = equipment.get(random.nextInt(equipment.size()));
+                TransactionManager.Transaction transaction = DataRepository.beginTransaction();
+                if (!EquipmentStatus.BORROWED.getLabel().equalsIgnoreCase(item.getStatus())) {
+                    boolean available = EquipmentStatus.AVAILABLE.getLabel().equalsIgnoreCase(item.getStatus());
+                    DataRepository.updateEquipmentStatus(item, available
+                            ? EquipmentStatus.UNAVAILABLE.getLabel()
+                            : EquipmentStatus.AVAILABLE.getLabel(), transaction);
+                }
+                DataRepository.commit(transaction);
+            }
+            return WRITES_PER_ITERATION;
+        });
+    }
+
+    // Move return dates by a day, so each record is rewritten in place
+    private static Measurement updateLendingRecord() throws Exception {
+        List<LendingRecord> records = new ArrayList<>(DataRepository.getLendingRecords()); // Picked by position
+        return Measurement.measure(Measurement.NANOS_PER_OP, 2, 5, () -> {
+            for (int i = 0; i < WRITES_PER_ITERATION; i++) {
+                LendingRecord record = records.get(random.nextInt(records.size()));
+                LocalDate returnDate = record.getReturnDate();
+                record.setReturnDate(i % 2 == 0 ? returnDate.plusDays(1) : returnDate.minusDays(1));
+                DataRepository.updateLendingRecord(record);
+            }
+            return WRITES_PER_ITERATION;
+        });
+    }
+
+    private static Measurement lookupEquipmentByID(int rows) throws Exception {
+        String[] ids = new String[1024];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = DatasetGenerator.equipmentID(random.nextInt(rows));
+        }
+        DataRepository.getEquipment(ids[0]); // Load the data before measuring
+        return Measurement.measure(Measurement.NANOS_PER_OP, 5, 10, () -> {
+            long found = 0;
+            for (int i = 0; i < 1_000_000; i++) {
+                if (DataRepository.getEquipment(ids[i & 1023]) != null) {
+                    found++;
+                }
+            }
+            Measurement.consume(found);
+            return 1_000_000;
+        });
+    }
+
+    private static Measurement lookupLendingRecordsByBorrower(int rows) throws Exception {
+        LendingService lendingService = new LendingService();
+        int students = Math.max(rows / 10, 10);
+        String[] ids = new String[1024];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = DatasetGenerator.studentID(random.nextInt(students));
+        }
+        return Measurement.measure(Measurement.NANOS_PER_OP, 5, 10, () -> {
+            long found = 0;
+            for (int i = 0; i < 100_000; i++) {
+                found += lendingService.getLendingRecordsByBorrower(ids[i & 1023]).size();
+            }
+            Measurement.consume(found);
+            return 100_000;
+        });
+    }
+
+    // Each call copies the available equipment, so do fewer calls on larger data
+    private static Measurement lookupAvailableEquipment(int rows) throws Exception {
+        InventoryService inventoryService = new InventoryService();
+        int calls = Math.max(10, 10_000_000 / rows);
+        return Measurement.measure(Measurement.NANOS_PER_OP, 3, 5, () -> {
+            long found = 0;
+            for (int i = 0; i < calls; i++) {
+                found += inventoryService.getAvailableEquipment().size();
+            }
+            Measurement.consume(found);
+            return calls;
+        });
+    }
+
+    /**
+     * Several threads try to borrow the same small set of equipment at once.
+     * Fails if any item is lent twice or the number of available items does not add up.
+     */
+    private static Measurement concurrentCheckout() throws Exception {
+        LendingService lendingService = new LendingService();
+        Borrower borrower = DataRepository.getProfessionals().get(0);
+        AtomicInteger nextID = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(CHECKOUT_THREADS);
+        try {
+            return Measurement.measure(Measurement.OPS_PER_SECOND, 1, 5, () -> {
+                List<Equipment> available = DataRepository.getEquipmentByStatus(EquipmentStatus.AVAILABLE);
+                Collections.shuffle(available, random);
+                List<Equipment> contested = new ArrayList<>(available.subList(0, Math.min(64, available.size())));
+                int availableBefore = DataRepository.countEquipmentByStatus(EquipmentStatus.AVAILABLE);
+                Map<String, Integer> wins = new ConcurrentHashMap<>();
+                int attemptsPerThread = 50;
+
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < CHECKOUT_THREADS; t++) {
+                    futures.add(executor.submit(() -> {
+                        Random threadRandom = new Random();
+                        for (int i = 0; i < attemptsPerThread; i++) {
+                            List<Equipment> items = new ArrayList<>();
+                            items.add(contested.get(threadRandom.nextInt(contested.size())));
+                            LendingRecord record = new LendingRecord("BENCH" + nextID.incrementAndGet(), borrower, items,
+                                    null, LocalDate.now(), LocalDate.now().plusDays(7), "Borrowed", "Benchmark");
+                            if (lendingService.addLendingRecord(record)) {
+                                wins.merge(items.get(0).getId(), 1, Integer::sum);
+                            }
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+
+                // Every item may be won once, and each win must take one item out of the available count
+                int won = 0;
+                for (Map.Entry<String, Integer> entry : wins.entrySet()) {
+                    if (entry.getValue() > 1) {
+                        throw new IllegalStateException("equipment " + entry.getKey() + " was lent " + entry.getValue() + " times");
+                    }
+                    won++;
+                }
+                int availableAfter = DataRepository.countEquipmentByStatus(EquipmentStatus.AVAILABLE);
+                if (availableBefore - availableAfter != won) {
+                    throw new IllegalStateException("available count dropped by " + (availableBefore - availableAfter)
+                            + " for " + won + " loans");
+                }
+                return (long) CHECKOUT_THREADS * attemptsPerThread;
+            });
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Lend up to a thousand available items as one batch per iteration
+    private static Measurement batchCheckout() throws Exception {
+        LendingService lendingService = new LendingService();
+        Borrower borrower = DataRepository.getProfessionals().get(0);
+        AtomicInteger nextID = new AtomicInteger();
+        return Measurement.measure(Measurement.OPS_PER_SECOND, 1, 5, () -> {
+            List<Equipment> available = DataRepository.getEquipmentByStatus(EquipmentStatus.AVAILABLE);
+            List<LendingRecord> batch = new ArrayList<>();
+            for (Equipment equipment : available.subList(0, Math.min(1000, available.size()))) {
+                batch.add(new LendingRecord("BATCH" + nextID.incrementAndGet(), borrower, new ArrayList<>(List.of(equipment)),
+                        null, LocalDate.now(), LocalDate.now().plusDays(7), "Borrowed", "Benchmark"));
+            }
+            for (LendingOutcome outcome : lendingService.addLendingRecords(batch)) {
+                if (!outcome.isAdded()) {
+                    throw new IllegalStateException(outcome.toString());
+                }
+            }
+            return batch.size();
+        });
+    }
+}
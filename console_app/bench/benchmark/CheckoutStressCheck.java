@@ -0,0 +1,219 @@
+package benchmark;
+
+import controller.LendingService;
+import helper.DataRepository;
+import model.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Checks that concurrent checkouts never lend the same equipment twice.
+ * Many threads check out and give back a small set of equipment through the LendingService
+ * at the same time. Between checkouts they also edit, reopen and delete loans they gave back
+ * earlier, which must neither free equipment another loan holds nor take it. The check fails if two threads hold the same item at once, if giving an
+ * item back does not close exactly one loan, if an item ends up in more than one open loan,
+ * or if its status does not match its loans, both in memory and in the data files read back afterwards.
+ * <p>
+ * Like the benchmarks, it runs in a new JVM on generated data files, so console_app/database
+ * is never changed. The exit code is 0 if the check passed and 1 if it failed.
+ * <p>
+ * Usage: java -cp out benchmark.CheckoutStressCheck
+ */
+public class CheckoutStressCheck {
+    private static final int ROWS = 1_000;       // Rows of the generated data files
+    private static final int THREADS = 16;
+    private static final int HOT_EQUIPMENT = 8;  // Few items, so most attempts collide
+    private static final int ATTEMPTS_PER_THREAD = 200;
+    private static final String RUN_OPTION = "--run";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals(RUN_OPTION)) {
+            runCheck();
+            return;
+        }
+
+        Path workDir = Files.createTempDirectory("elms-stress");
+        int exitCode;
+        try {
+            DatasetGenerator.generate(workDir, ROWS);
+            List<String> command = List.of(
+                    Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", BenchmarkRunner.absoluteClassPath(),
+                    CheckoutStressCheck.class.getName(), RUN_OPTION);
+            exitCode = new ProcessBuilder(command)
+                    .directory(workDir.toFile())
+                    .inheritIO()
+                    .start()
+                    .waitFor();
+        } finally {
+            BenchmarkRunner.deleteTree(workDir);
+        }
+        System.exit(exitCode == 0 ? 0 : 1);
+    }
+
+    // Run the threads in the generated working directory, then check the loans
+    private static void runCheck() {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // Hide the messages of the services
+
+        List<String> failures = new ArrayList<>();
+        int checkouts = 0;
+        try {
+            LendingService lendingService = new LendingService();
+            Borrower borrower = DataRepository.getProfessionals().get(0);
+            List<Equipment> available = DataRepository.getEquipmentByStatus(EquipmentStatus.AVAILABLE);
+            List<Equipment> hot = new ArrayList<>(available.subList(0, Math.min(HOT_EQUIPMENT, available.size())));
+
+            Map<String, AtomicInteger> holders = new ConcurrentHashMap<>(); // Threads holding each item
+            hot.forEach(item -> holders.put(item.getId(), new AtomicInteger()));
+            AtomicInteger nextID = new AtomicInteger();
+            AtomicInteger won = new AtomicInteger();
+            Queue<String> doubleLent = new ConcurrentLinkedQueue<>();
+
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    Random random = new Random();
+                    Equipment held = null; // The item this thread has borrowed, if any
+                    LendingRecord heldRecord = null;
+                    List<LendingRecord> givenBack = new ArrayList<>(); // Returned loans of this thread
+                    start.await();
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        // Give back the item held since the last attempt, so the items are lent again and again
+                        if (held != null) {
+                            holders.get(held.getId()).decrementAndGet();
+                            List<LendingRecord> closed = lendingService.returnEquipment(List.of(held.getId()));
+                            if (closed.size() != 1 || closed.get(0) != heldRecord) {
+                                doubleLent.add(held.getId()); // Another loan of the item was open too, or closed ours
+                            }
+                            givenBack.add(heldRecord);
+                            held = null;
+                        }
+
+                        // Now and then change a returned loan instead, while other threads hold its item
+                        if (!givenBack.isEmpty() && random.nextInt(4) == 0) {
+                            LendingRecord old = givenBack.get(random.nextInt(givenBack.size()));
+                            Equipment item = old.getEquipmentList().get(0);
+                            switch (random.nextInt(3)) {
+                                case 0 -> { // Save it as returned again
+                                    lendingService.saveLendingRecordUpdate(old, old.getBorrower(), old.getSupervisor(),
+                                            old.getBorrowDate(), old.getReturnDate(), old.getEquipmentList(), "Returned");
+                                }
+                                case 1 -> { // Delete it
+                                    lendingService.removeLendingRecord(old);
+                                    givenBack.remove(old);
+                                }
+                                default -> { // Reopen it, which is a checkout of its item
+                                    if (lendingService.saveLendingRecordUpdate(old, old.getBorrower(), old.getSupervisor(),
+                                            old.getBorrowDate(), old.getReturnDate(), old.getEquipmentList(), "Borrowed")) {
+                                        won.incrementAndGet();
+                                        if (holders.get(item.getId()).incrementAndGet() > 1) {
+                                            doubleLent.add(item.getId());
+                                        }
+                                        givenBack.remove(old);
+                                        held = item;
+                                        heldRecord = old;
+                                    }
+                                }
+                            }
+                            continue;
+                        }
+
+                        Equipment item = hot.get(random.nextInt(hot.size()));
+                        LendingRecord record = new LendingRecord("STRESS" + nextID.incrementAndGet(), borrower,
+                                new ArrayList<>(List.of(item)), null, LocalDate.now(), LocalDate.now().plusDays(7),
+                                "Borrowed", "Stress check");
+                        if (!lendingService.addLendingRecord(record)) {
+                            continue;
+                        }
+                        won.incrementAndGet();
+                        if (holders.get(item.getId()).incrementAndGet() > 1) {
+                            doubleLent.add(item.getId());
+                        }
+                        held = item;
+                        heldRecord = record;
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+            checkouts = won.get();
+
+            for (String equipmentID : new TreeSet<>(doubleLent)) {
+                failures.add("equipment " + equipmentID + " was lent twice at once");
+            }
+            checkLoans(hot, lendingService.getAllLendingRecords(), "in memory", failures);
+
+            // Read the data files back, so the saved loans and statuses are checked too
+            DataRepository.reload();
+            List<Equipment> saved = new ArrayList<>();
+            for (Equipment item : hot) {
+                saved.add(DataRepository.getEquipment(item.getId()));
+            }
+            checkLoans(saved, DataRepository.getLendingRecords(), "in the data files", failures);
+        } catch (Exception e) {
+            failures.add("the check stopped: " + e);
+        }
+
+        if (failures.isEmpty()) {
+            out.println("Checkout stress check passed: " + checkouts + " checkouts by " + THREADS + " threads.");
+            out.flush();
+            System.exit(0); // Stop the background threads of the services
+        }
+        for (String failure : failures) {
+            System.err.println("Error: " + failure);
+        }
+        System.exit(1);
+    }
+
+    /**
+     * Checks that every equipment is in at most one open loan and is Borrowed exactly when it is.
+     *
+     * @param equipment The equipment to check.
+     * @param records   All lending records.
+     * @param where     Where the records were read from, for the failure messages.
+     * @param failures  The list the failures are added to.
+     */
+    private static void checkLoans(List<Equipment> equipment, List<LendingRecord> records, String where,
+                                   List<String> failures) {
+        Map<String, Integer> openLoans = new HashMap<>();
+        for (LendingRecord record : records) {
+            if (!record.getStatus().equalsIgnoreCase("Returned")) {
+                for (Equipment item : record.getEquipmentList()) {
+                    openLoans.merge(item.getId(), 1, Integer::sum);
+                }
+            }
+        }
+        for (Equipment item : equipment) {
+            if (item == null) {
+                failures.add("an equipment is missing " + where);
+                continue;
+            }
+            int loans = openLoans.getOrDefault(item.getId(), 0);
+            boolean borrowed = item.getStatus().equalsIgnoreCase("Borrowed");
+            if (loans > 1) {
+                failures.add("equipment " + item.getId() + " is in " + loans + " open loans " + where);
+            } else if (borrowed != (loans == 1)) {
+                failures.add("equipment " + item.getId() + " is " + item.getStatus() + " with "
+                        + loans + " open loans " + where);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Writes a set of data files in the same format as console_app/database for benchmarking.
+ * The equipment and lending files have the requested number of rows; there are fewer
+ * students and staff, as in the real data. Every tenth loan is still open and is due
+ * next year, so no loan becomes overdue while a benchmark runs.
+ */
+public class DatasetGenerator {
+    private static final String[] NAMES = {"Arduino Board", "3D Printer", "VR Headset", "Oscilloscope", "Laptop", "Camera"};
+    private static final String[] CONDITIONS = {"Brand New", "Good", "Fair"};
+    private static final String[] PURPOSES = {"Research Project", "Lab Experiment", "AI Development", "Coursework"};
+
+    /**
+     * Writes the four data files into the database folder of a working directory.
+     *
+     * @param workDir The directory the benchmark will run in.
+     * @param rows    The number of equipment items and lending records.
+     * @throws IOException If a file cannot be written.
+     */
+    public static void generate(Path workDir, int rows) throws IOException {
+        Path database = workDir.resolve("console_app/database");
+        Files.createDirectories(database);
+        int students = Math.max(rows / 10, 10);
+        int staff = Math.max(rows / 100, 10);
+        String dueDate = LocalDate.now().plusYears(1).toString();
+
+        try (BufferedWriter writer = Files.newBufferedWriter(database.resolve("students.txt"))) {
+            for (int i = 0; i < students; i++) {
+                writer.write(studentID(i) + ", S" + i + ", Student " + i + ", 2002-05-10, student" + i + "@example.com\n");
+            }
+        }
+
+        // Even staff are academic, odd staff are professional
+        try (BufferedWriter writer = Files.newBufferedWriter(database.resolve("staff.txt"))) {
+            for (int i = 0; i < staff; i++) {
+                String type = i % 2 == 0 ? "Academic, Computer Science" : "Professional, IT Support";
+                writer.write(staffID(i) + ", " + (i % 2 == 0 ? "A" : "P") + i + ", Staff " + i
+                        + ", 1980-02-15, staff" + i + "@example.com, " + type + "\n");
+            }
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(database.resolve("equipment.txt"))) {
+            for (int i = 0; i < rows; i++) {
+                writer.write(equipmentID(i) + ", " + NAMES[i % NAMES.length] + " " + i + ", " + equipmentStatus(i)
+                        + ", 2023-02-10, " + CONDITIONS[i % CONDITIONS.length] + "\n");
+            }
+        }
+
+        // Loan i borrows equipment i; every third loan is made by a staff member
+        try (BufferedWriter writer = Files.newBufferedWriter(database.resolve("lending_records.txt"))) {
+            for (int i = 0; i < rows; i++) {
+                boolean open = i % 10 == 0;
+                boolean byStaff = i % 3 == 0;
+                String borrower = byStaff ? staffID(i % staff) : studentID(i % students);
+                String supervisor = byStaff ? "-" : staffID((i % (staff / 2)) * 2);
+                writer.write(recordID(i) + ", " + borrower + ", " + equipmentID(i) + ", " + supervisor + ", 2024-01-01, "
+                        + (open ? dueDate : "2024-02-10") + ", " + (open ? "Borrowed" : "Returned") + ", "
+                        + PURPOSES[i % PURPOSES.length] + "\n");
+            }
+        }
+    }
+
+    // Status that matches the loans: borrowed if its loan is open, otherwise mostly available
+    private static String equipmentStatus(int index) {
+        if (index % 10 == 0) {
+            return "Borrowed";
+        }
+        return index % 10 == 5 ? "Unavailable" : "Available";
+    }
+
+    public static String studentID(int index) {
+        return "STU" + (1000 + index);
+    }
+
+    public static String staffID(int index) {
+        return "STF" + (2000 + index);
+    }
+
+    public static String equipmentID(int index) {
+        return String.format("EQ%03d", index + 1);
+    }
+
+    public static String recordID(int index) {
+        return String.format("L%03d", index + 1);
+    }
+}
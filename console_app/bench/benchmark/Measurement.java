@@ -0,0 +1,101 @@
+package benchmark;
+
+import java.util.Locale;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Runs a workload for a number of warm-up and measured iterations and summarises the results.
+ * Warm-up iterations let the JIT compile the code before anything is recorded.
+ * The score is the mean of the measured iterations and the error is their standard deviation.
+ */
+public class Measurement {
+    public static final String NANOS_PER_OP = "ns/op";
+    public static final String OPS_PER_SECOND = "ops/s";
+
+    private static volatile long sink; // Keeps results alive so the JIT cannot drop the work
+
+    /**
+     * One iteration of a benchmark.
+     */
+    @FunctionalInterface
+    public interface Workload {
+        /**
+         * Runs the work once.
+         *
+         * @return The number of operations performed, such as rows loaded or lookups made.
+         * @throws Exception If the work fails; the benchmark is then reported as failed.
+         */
+        long run() throws Exception;
+    }
+
+    private final String unit;
+    private final double score;
+    private final double error;
+    private final int iterations;
+
+    private Measurement(String unit, double score, double error, int iterations) {
+        this.unit = unit;
+        this.score = score;
+        this.error = error;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Measures a workload.
+     *
+     * @param unit       NANOS_PER_OP for latency or OPS_PER_SECOND for throughput.
+     * @param warmups    The number of iterations to run before measuring.
+     * @param iterations The number of measured iterations.
+     * @param workload   The work to run in each iteration.
+     * @return The result.
+     * @throws Exception If the workload fails.
+     */
+    public static Measurement measure(String unit, int warmups, int iterations, Workload workload) throws Exception {
+        for (int i = 0; i < warmups; i++) {
+            workload.run();
+        }
+
+        double[] scores = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            long operations = workload.run();
+            long elapsed = Math.max(System.nanoTime() - start, 1);
+            operations = Math.max(operations, 1);
+            scores[i] = NANOS_PER_OP.equals(unit)
+                    ? (double) elapsed / operations
+                    : operations * 1_000_000_000.0 / elapsed;
+        }
+
+        double mean = 0;
+        for (double score : scores) {
+            mean += score;
+        }
+        mean /= iterations;
+        double variance = 0;
+        for (double score : scores) {
+            variance += (score - mean) * (score - mean);
+        }
+        double error = iterations > 1 ? Math.sqrt(variance / (iterations - 1)) : 0;
+        return new Measurement(unit, mean, error, iterations);
+    }
+
+    /**
+     * Keeps a value alive so the work that produced it is not optimised away.
+     *
+     * @param value Any result of the work.
+     */
+    public static void consume(long value) {
+        sink += value;
+    }
+
+    /**
+     * Formats the result as the fields of a baseline row.
+     *
+     * @return unit, score, error and iterations, separated by commas.
+     */
+    public String toCsv() {
+        return unit + "," + String.format(Locale.ROOT, "%.3f,%.3f", score, error) + "," + iterations;
+    }
+}
@@ -0,0 +1,70 @@
+package controller;
+
+import model.Equipment;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Striped locks for equipment.
+ * Each equipment ID maps to one of a fixed number of locks, so checkouts of unrelated
+ * equipment rarely wait for each other while two checkouts of the same item are serialized.
+ * Locks are always taken in ascending stripe order to avoid deadlocks.
+ * Every service that checks and then changes an equipment status uses the {@link #shared()} instance,
+ * so a checkout and an inventory update of the same item can never interleave.
+ */
+public class EquipmentLocks {
+    private static final int STRIPES = 64; // Number of locks, a power of two
+    private static final EquipmentLocks SHARED = new EquipmentLocks();
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public EquipmentLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    // The locks shared by the lending and inventory services
+    public static EquipmentLocks shared() {
+        return SHARED;
+    }
+
+    /**
+     * Locks the stripes of every equipment in the collection.
+     *
+     * @param equipmentList The equipment to lock.
+     * @return The locked stripes, to be passed to {@link #unlock(int[])}.
+     */
+    public int[] lock(Collection<Equipment> equipmentList) {
+        int[] stripes = equipmentList.stream()
+                .mapToInt(equipment -> stripeOf(equipment.getId()))
+                .distinct()
+                .sorted()
+                .toArray();
+        for (int stripe : stripes) {
+            locks[stripe].lock();
+        }
+        return stripes;
+    }
+
+    /**
+     * Unlocks stripes locked by {@link #lock(Collection)}.
+     *
+     * @param stripes The locked stripes.
+     */
+    public void unlock(int[] stripes) {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            locks[stripes[i]].unlock();
+        }
+    }
+
+    private int stripeOf(String equipmentID) {
+        int hash = equipmentID.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+}
@@ -3,63 +3,55 @@ package controller;
 import model.*;
 import helper.*;
 import utils.DateUtils;
+import utils.ReportFormat;
 
+import java.time.LocalDate;
 import java.util.*;
 import java.text.ParseException;
 
 public class InputValidation {
     private static final Scanner scanner = new Scanner(System.in);
-    private List<Student> students;
+    private static final int BORROWER_MATCHES = 10; // Matches shown for a borrower search
+    private static final int EQUIPMENT_MATCHES = 10; // Matches shown for an equipment search
+    private static final List<String> CONDITIONS =
+            Arrays.asList("Brand New", "Good", "Damaged", "Needs Maintenance", "Out of Service");
     private List<Academic> academics;
-    private List<Professional> professionals;
     private List<Equipment> equipmentList;
 
-    // Default constructor to load required data
+    // Default constructor, refers to the data held by the shared repository
     public InputValidation() {
-        StudentDataLoader.loadStudents();
-        StaffDataLoader.loadStaff();
-        EquipmentDataLoader.loadEquipment();
-
-        this.students = StudentDataProcessor.getStudents();
-        this.academics = StaffDataProcessor.getAcademics();
-        this.professionals = StaffDataProcessor.getProfessionals();
-        this.equipmentList = EquipmentDataProcessor.getEquipments();
+        this.academics = DataRepository.getAcademics();
+        this.equipmentList = DataRepository.getEquipments();
     }
 
+    /**
+     * Prompts the user for a borrower.
+     * The user can enter a borrower ID, or the start of an ID or name to list the best matches.
+     *
+     * @return The selected borrower, or null if there are no borrowers.
+     */
     public Borrower getValidBorrower() {
-        if (students.isEmpty() && academics.isEmpty() && professionals.isEmpty()) {
+        if (DataRepository.countBorrowers() == 0) {
             System.out.println("Error: No borrowers available.");
             return null;
         }
-        //Display all people along with their ID and name
-        System.out.println("\nRefer to the list below for entering borrower:");
-        students.forEach(s -> System.out.println(s.getBorrowerID() + ": " + s.getFullName()));
-        academics.forEach(a -> System.out.println(a.getBorrowerID() + ": " + a.getFullName()));
-        professionals.forEach(p -> System.out.println(p.getBorrowerID() + ": " + p.getFullName()));
         while (true) {
-            System.out.print("Enter borrower ID: ");
-            String borrowerID = scanner.nextLine().trim();
+            System.out.print("Enter borrower ID, or the start of an ID or name to search: ");
+            String input = scanner.nextLine().trim();
 
-            for (Student s : students) {
-                if (s.getBorrowerID().equals(borrowerID)) {
-                    System.out.println("Borrower found: " + s.getFullName() + " (Student)");
-                    return s;
-                }
-            }
-            for (Academic a : academics) {
-                if (a.getBorrowerID().equals(borrowerID)) {
-                    System.out.println("Borrower found: " + a.getFullName() + " (Academic)");
-                    return a;
-                }
-            }
-            for (Professional p : professionals) {
-                if (p.getBorrowerID().equals(borrowerID)) {
-                    System.out.println("Borrower found: " + p.getFullName() + " (Professional)");
-                    return p;
-                }
+            Borrower borrower = DataRepository.findBorrower(input);
+            if (borrower != null) {
+                System.out.println("Borrower found: " + borrower.getFullName() + " (" + BorrowerRegistry.typeOf(borrower) + ")");
+                return borrower;
             }
 
-            System.out.println("Error: Borrower ID not found. Try again.");
+            List<Borrower> matches = DataRepository.searchBorrowers(input, BORROWER_MATCHES);
+            if (matches.isEmpty()) {
+                System.out.println("Error: No borrower matches \"" + input + "\". Try again.");
+            } else {
+                System.out.println("Matching borrowers:");
+                matches.forEach(b -> System.out.println(b.getBorrowerID() + ": " + b.getFullName() + " (" + BorrowerRegistry.typeOf(b) + ")"));
+            }
         }
     }
 
@@ -68,26 +60,28 @@ public class InputValidation {
             System.out.println("Error: No equipment available.");
             return Collections.emptyList();
         }
-        System.out.println("\nList of equipment in our system:");
-        equipmentList.forEach(eq -> System.out.println(eq.getId() + ": " + eq.getName()));
-
-        // Create a map for faster lookup
-        Map<String, Equipment> availableEquipmentMap = new HashMap<>();
-        for (Equipment eq : equipmentList) {
-            if (eq.getStatus().trim().equalsIgnoreCase("Available")) {
-                availableEquipmentMap.put(eq.getId(), eq);
-            }
-        }
-
-        if (availableEquipmentMap.isEmpty()) {
+        // Available equipment is maintained by the status index
+        if (DataRepository.countEquipmentByStatus(EquipmentStatus.AVAILABLE) == 0) {
             System.out.println("Error: No available equipment at the moment.");
             return Collections.emptyList();
         }
 
         while (true) {
-            System.out.print("Enter equipment IDs (separated by semicolons): ");
+            System.out.print("Enter equipment IDs (separated by semicolons), or a name to search available equipment: ");
             String input = scanner.nextLine().trim();
 
+            // A single entry that is not an equipment ID is a name search
+            if (!input.contains(";") && !input.contains(",") && DataRepository.getEquipment(input) == null) {
+                List<Equipment> matches = DataRepository.searchEquipment(input, EquipmentStatus.AVAILABLE, null, EQUIPMENT_MATCHES);
+                if (matches.isEmpty()) {
+                    System.out.println("Error: No available equipment matches \"" + input + "\". Try again.");
+                } else {
+                    System.out.println("Matching available equipment:");
+                    matches.forEach(eq -> System.out.println(eq.getId() + ": " + eq.getName() + " (" + eq.getCondition() + ")"));
+                }
+                continue;
+            }
+
             // Check if the input contains a comma, if so, reject it
             if (input.contains(",")) {
                 System.out.println("Error: Comma (',') is not allowed. Please separate IDs with semicolons only.");
@@ -99,8 +93,9 @@ public class InputValidation {
 
             for (String id : equipmentIDs) {
                 id = id.trim();  // Trim spaces around IDs
-                if (availableEquipmentMap.containsKey(id)) {
-                    selectedEquipment.add(availableEquipmentMap.get(id));
+                Equipment eq = DataRepository.getEquipment(id);
+                if (eq != null && EquipmentStatus.fromLabel(eq.getStatus()) == EquipmentStatus.AVAILABLE) {
+                    selectedEquipment.add(eq);
                 }
             }
 
@@ -133,11 +128,11 @@ public class InputValidation {
         }
     }
 
-    public Date getValidDate(String prompt) {
+    public LocalDate getValidDate(String prompt) {
         while (true) {
             System.out.print(prompt);
             String dateStr = scanner.nextLine().trim();
-            Date parsedDate = DateUtils.parseDate(dateStr); // Will return null if invalid
+            LocalDate parsedDate = DateUtils.parseDate(dateStr); // Will return null if invalid
 
             if (parsedDate != null) {
                 return parsedDate;
@@ -226,6 +221,93 @@ public class InputValidation {
         }
     }
 
+    /**
+     * Prompts the user to select the file format of a report.
+     *
+     * @return The selected report format.
+     */
+    public ReportFormat getValidReportFormat() {
+        ReportFormat[] formats = ReportFormat.values();
+        while (true) {
+            System.out.println("\nSelect report format:");
+            for (int i = 0; i < formats.length; i++) {
+                System.out.printf("%d. %s (%s)%n", i + 1, formats[i].getLabel(), formats[i].getExtension());
+            }
+            System.out.print("Enter your choice (1-" + formats.length + "): ");
+            String input = scanner.nextLine().trim();
+            int choice;
+            try {
+                choice = Integer.parseInt(input);
+            } catch (NumberFormatException e) {
+                System.out.println("❌ Invalid input. Please enter a number between 1 and " + formats.length + ".");
+                continue; // Retry
+            }
+            if (choice >= 1 && choice <= formats.length) {
+                return formats[choice - 1];
+            }
+            System.out.println("❌ Invalid input. Please enter a number between 1 and " + formats.length + ".");
+        }
+    }
+
+    /**
+     * Prompts the user for a status to filter equipment by.
+     *
+     * @return The chosen status, or null for any status.
+     */
+    public EquipmentStatus getStatusFilter() {
+        EquipmentStatus[] statuses = EquipmentStatus.values();
+        while (true) {
+            System.out.println("Filter by status:");
+            System.out.println("0. Any status");
+            for (int i = 0; i < statuses.length; i++) {
+                System.out.printf("%d. %s%n", i + 1, statuses[i].getLabel());
+            }
+            System.out.print("Enter your choice (0-" + statuses.length + "): ");
+            String input = scanner.nextLine().trim();
+            try {
+                int choice = Integer.parseInt(input);
+                if (choice == 0) {
+                    return null;
+                }
+                if (choice >= 1 && choice <= statuses.length) {
+                    return statuses[choice - 1];
+                }
+            } catch (NumberFormatException e) {
+                // Fall through to the error message
+            }
+            System.out.println("❌ Invalid input. Please enter a number between 0 and " + statuses.length + ".");
+        }
+    }
+
+    /**
+     * Prompts the user for a condition to filter equipment by.
+     *
+     * @return The chosen condition, or null for any condition.
+     */
+    public String getConditionFilter() {
+        while (true) {
+            System.out.println("Filter by condition:");
+            System.out.println("0. Any condition");
+            for (int i = 0; i < CONDITIONS.size(); i++) {
+                System.out.printf("%d. %s%n", i + 1, CONDITIONS.get(i));
+            }
+            System.out.print("Enter your choice (0-" + CONDITIONS.size() + "): ");
+            String input = scanner.nextLine().trim();
+            try {
+                int choice = Integer.parseInt(input);
+                if (choice == 0) {
+                    return null;
+                }
+                if (choice >= 1 && choice <= CONDITIONS.size()) {
+                    return CONDITIONS.get(choice - 1);
+                }
+            } catch (NumberFormatException e) {
+                // Fall through to the error message
+            }
+            System.out.println("❌ Invalid input. Please enter a number between 0 and " + CONDITIONS.size() + ".");
+        }
+    }
+
     /**
      * Gets a valid equipment condition from the user based on the current status.
      */
@@ -0,0 +1,74 @@
+package controller;
+
+import model.Equipment;
+import model.EquipmentStatus;
+import utils.Metrics;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Wraps an InventoryManager and records the latency, call count, failures and allocated
+ * bytes of every call. The results are shown in the Statistics menu and over JMX.
+ * Updating and removing equipment wait for answers on the console, so they are passed on without
+ * being measured here; {@link InventoryService} measures the part that saves the answers instead.
+ */
+public class InstrumentedInventoryManager implements InventoryManager {
+    private static final Metrics.Operation add = Metrics.operation("inventory.addEquipment");
+    private static final Metrics.Operation getAll = Metrics.operation("inventory.getAllEquipment");
+    private static final Metrics.Operation getAvailable = Metrics.operation("inventory.getAvailableEquipment");
+    private static final Metrics.Operation forEachAvailable = Metrics.operation("inventory.forEachAvailableEquipment");
+    private static final Metrics.Operation search = Metrics.operation("inventory.searchEquipment");
+
+    private final InventoryManager delegate; // The manager that does the work
+
+    /**
+     * Creates a wrapper around an inventory manager.
+     *
+     * @param delegate The manager to measure.
+     */
+    public InstrumentedInventoryManager(InventoryManager delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean addEquipment(Equipment equipment) {
+        return add.measure(() -> delegate.addEquipment(equipment));
+    }
+
+    @Override
+    public boolean updateEquipment(String equipmentID) {
+        return delegate.updateEquipment(equipmentID); // Interactive; measured by the service
+    }
+
+    @Override
+    public boolean removeEquipment(String equipmentID) {
+        return delegate.removeEquipment(equipmentID); // Interactive; measured by the service
+    }
+
+    @Override
+    public List<Equipment> getAllEquipment() {
+        return getAll.measure(delegate::getAllEquipment);
+    }
+
+    @Override
+    public List<Equipment> getAvailableEquipment() {
+        return getAvailable.measure(delegate::getAvailableEquipment);
+    }
+
+    @Override
+    public void forEachAvailableEquipment(Consumer<? super Equipment> action) {
+        forEachAvailable.measure(() -> {
+            delegate.forEachAvailableEquipment(action);
+            return null;
+        });
+    }
+
+    @Override
+    public List<Equipment> searchEquipment(String query, EquipmentStatus status, String condition, int limit) {
+        return search.measure(() -> delegate.searchEquipment(query, status, condition, limit));
+    }
+}
@@ -0,0 +1,99 @@
+package controller;
+
+import model.LendingRecord;
+import utils.Metrics;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Wraps a LendingManager and records the latency, call count, failures and allocated
+ * bytes of every call. The results are shown in the Statistics menu and over JMX.
+ * Adding a record is a checkout; updating a record or a bulk return is how equipment is returned.
+ * Updating and deleting a record wait for answers on the console, so they are passed on without
+ * being measured here; {@link LendingService} measures the part that saves the answers instead.
+ */
+public class InstrumentedLendingManager implements LendingManager {
+    private static final Metrics.Operation add = Metrics.operation("lending.addLendingRecord");
+    private static final Metrics.Operation addBatch = Metrics.operation("lending.addLendingRecords");
+    private static final Metrics.Operation returnAll = Metrics.operation("lending.returnAllForBorrower");
+    private static final Metrics.Operation returnBatch = Metrics.operation("lending.returnEquipment");
+    private static final Metrics.Operation getAll = Metrics.operation("lending.getAllLendingRecords");
+    private static final Metrics.Operation getByBorrower = Metrics.operation("lending.getLendingRecordsByBorrower");
+    private static final Metrics.Operation getByEquipment = Metrics.operation("lending.getLendingRecordsByEquipment");
+    private static final Metrics.Operation getOverdue = Metrics.operation("lending.getOverdueLendingRecords");
+    private static final Metrics.Operation forEachOverdue = Metrics.operation("lending.forEachOverdueLendingRecord");
+
+    private final LendingManager delegate; // The manager that does the work
+
+    /**
+     * Creates a wrapper around a lending manager.
+     *
+     * @param delegate The manager to measure.
+     */
+    public InstrumentedLendingManager(LendingManager delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean addLendingRecord(LendingRecord record) {
+        return add.measure(() -> delegate.addLendingRecord(record));
+    }
+
+    @Override
+    public List<LendingOutcome> addLendingRecords(List<LendingRecord> records) {
+        return addBatch.measure(() -> delegate.addLendingRecords(records));
+    }
+
+    @Override
+    public boolean updateLendingRecord(String recordID) {
+        return delegate.updateLendingRecord(recordID); // Interactive; measured by the service
+    }
+
+    @Override
+    public List<LendingRecord> returnAllForBorrower(String borrowerID) {
+        return returnAll.measure(() -> delegate.returnAllForBorrower(borrowerID));
+    }
+
+    @Override
+    public List<LendingRecord> returnEquipment(Collection<String> equipmentIDs) {
+        return returnBatch.measure(() -> delegate.returnEquipment(equipmentIDs));
+    }
+
+    @Override
+    public boolean deleteLendingRecord(String recordID) {
+        return delegate.deleteLendingRecord(recordID); // Interactive; measured by the service
+    }
+
+    @Override
+    public List<LendingRecord> getAllLendingRecords() {
+        return getAll.measure(delegate::getAllLendingRecords);
+    }
+
+    @Override
+    public List<LendingRecord> getLendingRecordsByBorrower(String borrowerID) {
+        return getByBorrower.measure(() -> delegate.getLendingRecordsByBorrower(borrowerID));
+    }
+
+    @Override
+    public List<LendingRecord> getLendingRecordsByEquipment(String equipmentID) {
+        return getByEquipment.measure(() -> delegate.getLendingRecordsByEquipment(equipmentID));
+    }
+
+    @Override
+    public List<LendingRecord> getOverdueLendingRecords() {
+        return getOverdue.measure(delegate::getOverdueLendingRecords);
+    }
+
+    @Override
+    public void forEachOverdueLendingRecord(Consumer<? super LendingRecord> action) {
+        forEachOverdue.measure(() -> {
+            delegate.forEachOverdueLendingRecord(action);
+            return null;
+        });
+    }
+}
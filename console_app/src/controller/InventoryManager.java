@@ -1,8 +1,10 @@
 package controller;
 
 import model.Equipment;
+import model.EquipmentStatus;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * @author Luong Thi Tra My - s3987023
@@ -51,4 +53,22 @@ public interface InventoryManager {
      * @return A list of available equipment objects.
      */
     public List<Equipment> getAvailableEquipment();
+
+    /**
+     * Passes every available equipment to an action without copying them into a list.
+     *
+     * @param action The action to run for each equipment, in the order of getAvailableEquipment.
+     */
+    public void forEachAvailableEquipment(Consumer<? super Equipment> action);
+
+    /**
+     * Searches the equipment by name, best matches first.
+     *
+     * @param query     Words or the start of words of the equipment name.
+     * @param status    Only equipment with this status, or null for any status.
+     * @param condition Only equipment in this condition, or null for any condition.
+     * @param limit     The maximum number of matches.
+     * @return The matching equipment.
+     */
+    public List<Equipment> searchEquipment(String query, EquipmentStatus status, String condition, int limit);
 }
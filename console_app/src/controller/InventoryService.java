@@ -2,31 +2,32 @@ package controller;
 
 import helper.*;
 import model.*;
+import utils.Metrics;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 /**
  * @Author: Luong Thi Tra My - s3987023
  * @Version: 1.0
  * <p>
  * Controller class for manageing equipment operations
+ * <p>
+ * Updating and removing equipment ask questions on the console, so only the part that saves
+ * the answers is measured here; {@link InstrumentedInventoryManager} measures the other calls.
  */
 public class InventoryService implements InventoryManager {
     private static final Scanner scanner = new Scanner(System.in);
+    private static final Metrics.Operation update = Metrics.operation("inventory.updateEquipment");
+    private static final Metrics.Operation remove = Metrics.operation("inventory.removeEquipment");
     private List<Equipment> equipments; //List of equipment
-    private Map<String, Equipment> equipmentMap; // Map to store equipment by ID
     private InputValidation inputValidation = new InputValidation();
+    private final EquipmentLocks equipmentLocks = EquipmentLocks.shared(); // Same locks as checkouts
 
     //Default constructor
     public InventoryService() {
-        this.equipments = EquipmentDataProcessor.getEquipments();
-        this.equipmentMap = new HashMap<>();
-
-        // Initialize the equipment map with existing equipment
-        for (Equipment equipment : equipments) {
-            equipmentMap.put(equipment.getId(), equipment);
-        }
+        // Equipment is owned by the shared repository
+        this.equipments = DataRepository.getEquipments();
     }
 
     /**
@@ -38,12 +39,8 @@ public class InventoryService implements InventoryManager {
     @Override
     public boolean addEquipment(Equipment equipment) {
         if (equipment != null) {
-            equipments.add(equipment);
-            // Save the new equipment to the file
-            EquipmentDataWriter.saveEquipment(equipment);
-
-            //update the equipment map
-            equipmentMap.put(equipment.getId(), equipment);
+            // Add to the repository and save the new equipment to the file
+            DataRepository.addEquipment(equipment);
             return true;
         }
         return false;
@@ -58,12 +55,12 @@ public class InventoryService implements InventoryManager {
      */
     @Override
     public boolean updateEquipment(String equipmentID) {
-        if (equipmentID == null || equipmentID.isEmpty() || !equipmentMap.containsKey(equipmentID)) {
+        Equipment existingEquipment = equipmentID == null ? null : DataRepository.getEquipment(equipmentID);
+        if (existingEquipment == null) {
             System.out.println("Error: Equipment not found.");
             return false;
         }
 
-        Equipment existingEquipment = equipmentMap.get(equipmentID);
         System.out.println("\nUpdating Equipment: " + equipmentID);
         System.out.println("Equipment Name: " + existingEquipment.getName());
         System.out.println("Current Status: " + existingEquipment.getStatus());
@@ -73,39 +70,63 @@ public class InventoryService implements InventoryManager {
         System.out.println("Do you want to update the status? (yes/no): ");
         String currentStatus = existingEquipment.getStatus();  // Store the current status
         String newStatus = currentStatus;  // Initialize newStatus with current status
+        String newCondition = null;  // Stays null if the condition is not changed
 
+        // Only read the changes here; the equipment is changed below under its lock
         if (scanner.nextLine().trim().equalsIgnoreCase("yes")) {
             if (currentStatus.equalsIgnoreCase("Borrowed")) {
                 System.out.println("Error: Equipment is currently borrowed and its status cannot be changed.");
             } else {
                 // Get new status
                 newStatus = inputValidation.getValidEquipmentStatus();
-                //Debug
-                existingEquipment.setStatus(newStatus);
 
                 // If the status changes from Available to Unavailable or vice versa, force condition update
                 if ((currentStatus.equalsIgnoreCase("Available") && newStatus.equalsIgnoreCase("Unavailable")) ||
                         (currentStatus.equalsIgnoreCase("Unavailable") && newStatus.equalsIgnoreCase("Available"))) {
                     System.out.println("Status changed. You must update the condition.");
                     // Force the user to update condition
-                    String newCondition = inputValidation.getValidCondition(newStatus);
-                    existingEquipment.setCondition(newCondition);
+                    newCondition = inputValidation.getValidCondition(newStatus);
                 }
             }
         } else {
             // If status doesn't change to Available/Unavailable, user can choose to update condition
             System.out.print("Do you want to update the condition? (yes/no): ");
             if (scanner.nextLine().trim().equalsIgnoreCase("yes")) {
-                String newCondition = inputValidation.getValidCondition(currentStatus);  // Get condition based on current status
-                existingEquipment.setCondition(newCondition);
+                newCondition = inputValidation.getValidCondition(currentStatus);  // Get condition based on current status
             }
         }
 
-        // Persist changes
-        EquipmentDataWriter.updateEquipmentInFile(existingEquipment);
+        String status = newStatus;
+        String condition = newCondition;
+        return update.measure(() -> saveEquipmentUpdate(existingEquipment, currentStatus, status, condition));
+    }
 
-        //Update the existing equipment in equipment map
-        equipmentMap.put(equipmentID, existingEquipment);
+    /**
+     * Applies the chosen status and condition to an equipment and saves them.
+     * The status is checked again and the change is saved under the equipment lock,
+     * as a checkout may have happened while the user was answering.
+     *
+     * @param equipment     The equipment to update.
+     * @param currentStatus The status the changes were chosen for.
+     * @param newStatus     The new status.
+     * @param newCondition  The new condition, or null to keep it.
+     * @return true if the update is successful, false otherwise.
+     */
+    private boolean saveEquipmentUpdate(Equipment equipment, String currentStatus, String newStatus, String newCondition) {
+        int[] stripes = equipmentLocks.lock(List.of(equipment));
+        try {
+            if (!equipment.getStatus().equalsIgnoreCase(currentStatus)) {
+                System.out.println("Error: Equipment status was changed by another user. No update performed.");
+                return false;
+            }
+            equipment.setStatus(newStatus);
+            if (newCondition != null) {
+                equipment.setCondition(newCondition);
+            }
+            DataRepository.updateEquipment(equipment);
+        } finally {
+            equipmentLocks.unlock(stripes);
+        }
         return true;
     }
 
@@ -123,75 +144,97 @@ public class InventoryService implements InventoryManager {
             return false; // Invalid equipment ID
         }
 
-        Iterator<Equipment> iterator = equipments.iterator();
-        while (iterator.hasNext()) {
-            Equipment equipment = iterator.next();
-            if (equipment.getId().equals(equipmentID)) {
-                // Display equipment details before deletion
-                System.out.println("\nEquipment Details:");
-                System.out.println("ID: " + equipment.getId());
-                System.out.println("Name: " + equipment.getName());
-                System.out.println("Status: " + equipment.getStatus());
-                System.out.println("Condition: " + equipment.getCondition());
-
-                // Prevent removal if equipment is borrowed
-                if (equipment.getStatus().equalsIgnoreCase("Borrowed")) {
-                    System.out.println("Error: Equipment is currently borrowed and cannot be removed.");
-                    return false;
-                }
+        Equipment equipment = DataRepository.getEquipment(equipmentID);
+        if (equipment == null) {
+            System.out.println("Error: Equipment ID not found.");
+            return false; // Equipment not found
+        }
 
-                // Confirm deletion
-                System.out.print("\nAre you sure you want to remove this equipment? (yes/no): ");
-                String confirmation = scanner.nextLine().trim();
-                if (!confirmation.equalsIgnoreCase("yes")) {
-                    System.out.println("Operation cancelled. Equipment was not removed.");
-                    return false;
-                }
+        // Display equipment details before deletion
+        System.out.println("\nEquipment Details:");
+        System.out.println("ID: " + equipment.getId());
+        System.out.println("Name: " + equipment.getName());
+        System.out.println("Status: " + equipment.getStatus());
+        System.out.println("Condition: " + equipment.getCondition());
 
-                // Remove from list safely using iterator
-                iterator.remove();
+        // Prevent removal if equipment is borrowed
+        if (equipment.getStatus().equalsIgnoreCase("Borrowed")) {
+            System.out.println("Error: Equipment is currently borrowed and cannot be removed.");
+            return false;
+        }
 
-                // Remove from map
-                equipmentMap.remove(equipmentID);
+        // Confirm deletion
+        System.out.print("\nAre you sure you want to remove this equipment? (yes/no): ");
+        String confirmation = scanner.nextLine().trim();
+        if (!confirmation.equalsIgnoreCase("yes")) {
+            System.out.println("Operation cancelled. Equipment was not removed.");
+            return false;
+        }
 
-                // Save updated equipment list (overwrite the file)
-                EquipmentDataWriter.saveAllEquipment(equipments);
+        return remove.measure(() -> removeUnborrowedEquipment(equipment));
+    }
 
-                return true;
+    /**
+     * Removes an equipment once the user has confirmed it.
+     * The status is checked again under the equipment lock, so the item cannot be lent out while it is removed.
+     *
+     * @param equipment The equipment to remove.
+     * @return true if the equipment was removed, false if it was borrowed meanwhile.
+     */
+    private boolean removeUnborrowedEquipment(Equipment equipment) {
+        int[] stripes = equipmentLocks.lock(List.of(equipment));
+        try {
+            if (equipment.getStatus().equalsIgnoreCase("Borrowed")) {
+                System.out.println("Error: Equipment was borrowed by another user and cannot be removed.");
+                return false;
             }
+            // Remove from the repository and save updated equipment list (overwrite the file)
+            DataRepository.removeEquipment(equipment);
+        } finally {
+            equipmentLocks.unlock(stripes);
         }
-
-        System.out.println("Error: Equipment ID not found.");
-        return false; // Equipment not found
+        return true;
     }
 
     //Define the method to view all equipment
     @Override
     public List<Equipment> getAllEquipment() {
-        EquipmentDataLoader.loadEquipment();
-        equipments = EquipmentDataProcessor.getEquipments();
         return equipments;
     }
 
     /**
      * Define method to get available equipment
      * Available equipment are sorted by name and purchase date in ascending order
+     * They are read from the status index, which is already kept in that order
      *
      * @return List of sorted available equipment
      */
     @Override
     public List<Equipment> getAvailableEquipment() {
-        //Update list of equipments before sorting
-        EquipmentDataLoader.loadEquipment();
-        equipments = EquipmentDataProcessor.getEquipments();
-        return equipments.stream()
-                .filter(equipment ->
-                        equipment.getStatus() != null &&
-                                equipment.getStatus().trim().equalsIgnoreCase("Available"))
-                .sorted(Comparator.comparing(Equipment::getName, Comparator.nullsLast(String::compareTo))
-                        .thenComparing(Equipment::getPurchasedDate, Comparator.nullsLast(Comparator.naturalOrder())))
-                .collect(Collectors.toList());
+        return DataRepository.getEquipmentByStatus(EquipmentStatus.AVAILABLE);
     }
 
+    /**
+     * Walks the available equipment in batches, sorted by name and purchase date.
+     *
+     * @param action The action to run for each equipment.
+     */
+    @Override
+    public void forEachAvailableEquipment(Consumer<? super Equipment> action) {
+        DataRepository.forEachEquipmentByStatus(EquipmentStatus.AVAILABLE, action);
+    }
 
-}
\ No newline at end of file
+    /**
+     * Searches the equipment by name through the trigram index of the repository.
+     *
+     * @param query     Words or the start of words of the equipment name.
+     * @param status    Only equipment with this status, or null for any status.
+     * @param condition Only equipment in this condition, or null for any condition.
+     * @param limit     The maximum number of matches.
+     * @return The matching equipment, best matches first.
+     */
+    @Override
+    public List<Equipment> searchEquipment(String query, EquipmentStatus status, String condition, int limit) {
+        return DataRepository.searchEquipment(query, status, condition, limit);
+    }
+}
@@ -2,7 +2,9 @@ package controller;
 
 import model.*;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * @author Luong Thi Tra My
@@ -23,6 +25,14 @@ public interface LendingManager {
      */
     public boolean addLendingRecord(LendingRecord record);
 
+    /**
+     * Adds a batch of lending records, saving them together.
+     *
+     * @param records The lending records to be added.
+     * @return The outcome of each record, in the order of the batch.
+     */
+    public List<LendingOutcome> addLendingRecords(List<LendingRecord> records);
+
     /**
      * Updates an existing lending record.
      *
@@ -31,6 +41,22 @@ public interface LendingManager {
      */
     public boolean updateLendingRecord(String recordID);
 
+    /**
+     * Returns every open loan of a borrower, saving the changes together.
+     *
+     * @param borrowerID The ID of the borrower.
+     * @return The lending records that were returned.
+     */
+    public List<LendingRecord> returnAllForBorrower(String borrowerID);
+
+    /**
+     * Returns the open loans whose equipment has all been given back, saving the changes together.
+     *
+     * @param equipmentIDs The IDs of the equipment given back.
+     * @return The lending records that were returned.
+     */
+    public List<LendingRecord> returnEquipment(Collection<String> equipmentIDs);
+
     /**
      * Deletes a lending record.
      *
@@ -68,4 +94,11 @@ public interface LendingManager {
      * @return A list of lending records that are overdue.
      */
     public List<LendingRecord> getOverdueLendingRecords();
+
+    /**
+     * Passes every overdue lending record to an action without copying them into a list.
+     *
+     * @param action The action to run for each overdue record, in the order of getOverdueLendingRecords.
+     */
+    public void forEachOverdueLendingRecord(Consumer<? super LendingRecord> action);
 }
@@ -0,0 +1,48 @@
+package controller;
+
+import model.LendingRecord;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * The outcome of one record of a batch of lending records: whether it was added and,
+ * if not, why it was rejected.
+ */
+public class LendingOutcome {
+    private final LendingRecord record; // The record of the batch
+    private final String reason;        // Why the record was rejected, or null if it was added
+
+    private LendingOutcome(LendingRecord record, String reason) {
+        this.record = record;
+        this.reason = reason;
+    }
+
+    // Create the outcome of a record that was added
+    public static LendingOutcome added(LendingRecord record) {
+        return new LendingOutcome(record, null);
+    }
+
+    // Create the outcome of a record that was rejected
+    public static LendingOutcome rejected(LendingRecord record, String reason) {
+        return new LendingOutcome(record, reason);
+    }
+
+    public LendingRecord getRecord() {
+        return record;
+    }
+
+    public boolean isAdded() {
+        return reason == null;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        String recordID = record == null ? "-" : record.getRecordID();
+        return isAdded() ? recordID + ": added" : recordID + ": rejected, " + reason;
+    }
+}
@@ -3,8 +3,12 @@ package controller;
 import helper.*;
 import model.*;
 import utils.DateUtils;
+import utils.Metrics;
 
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -13,44 +17,70 @@ import java.util.stream.Collectors;
  * <p>
  * LendingService class that implements the LendingManager interface.
  * Handles lending transactions including lending record addition, modification, removal and retrieval.
+ * <p>
+ * The service is safe to use from several threads (e.g. several front-desk terminals).
+ * Equipment status is checked and changed while holding the equipment's striped lock,
+ * so an item can never be lent twice, and checkouts of unrelated items do not wait for each other.
+ * <p>
+ * Updating and deleting a record ask questions on the console, so only the part that saves
+ * the answers is measured here; {@link InstrumentedLendingManager} measures the other calls.
  */
 public class LendingService implements LendingManager {
     private static final Scanner scanner = new Scanner(System.in);
+    private static final Metrics.Operation update = Metrics.operation("lending.updateLendingRecord");
+    private static final Metrics.Operation delete = Metrics.operation("lending.deleteLendingRecord");
     private List<LendingRecord> lendingRecords; // Stores all lending records
     private Map<String, LendingRecord> lendingRecordsByID; // Fast lookup by record ID
-    private Map<String, List<LendingRecord>> lendingRecordsByBorrower; // Fast lookup by borrowerID
-    private Map<String, List<LendingRecord>> lendingRecordsByEquipment; // Fast lookup by equipmentID
+    private Map<String, Set<LendingRecord>> lendingRecordsByBorrower; // Fast lookup by borrowerID
+    private Map<String, Set<LendingRecord>> lendingRecordsByEquipment; // Fast lookup by equipmentID
+    private EquipmentLocks equipmentLocks = EquipmentLocks.shared(); // Striped locks on equipment status
+    private OverdueMonitor overdueMonitor; // Open and overdue loans by date
     private InputValidation inputValidation = new InputValidation();
 
     /**
      * Default constructor for LendingService.
      */
     public LendingService() {
-        // Load lending record data
-        LendingRecordDataLoader.loadLendingRecords();
-
-        // Retrieve lists of lending records
-        this.lendingRecords = LendingRecordProcessor.getLendingRecords();
+        // Retrieve lists of lending records from the shared repository
+        this.lendingRecords = DataRepository.getLendingRecords();
 
-        // Initialize HashMaps
-        this.lendingRecordsByID = new HashMap<>();
-        this.lendingRecordsByBorrower = new HashMap<>();
-        this.lendingRecordsByEquipment = new HashMap<>();
+        // Initialize concurrent HashMaps
+        this.lendingRecordsByID = new ConcurrentHashMap<>();
+        this.lendingRecordsByBorrower = new ConcurrentHashMap<>();
+        this.lendingRecordsByEquipment = new ConcurrentHashMap<>();
+        this.overdueMonitor = new OverdueMonitor(equipmentLocks,
+                record -> lendingRecordsByID.get(record.getRecordID()) == record);
 
         // Populate HashMap from loaded lending records
         for (LendingRecord record : lendingRecords) {
             lendingRecordsByID.put(record.getRecordID(), record);
+            indexRecord(record);
+            overdueMonitor.track(record);
+        }
 
-            lendingRecordsByBorrower
-                    .computeIfAbsent(record.getBorrower().getBorrowerID(), k -> new ArrayList<>())
-                    .add(record);
+        // Mark loans that are past their return date as overdue, now and every night
+        overdueMonitor.start();
+    }
 
-            for (Equipment eq : record.getEquipmentList()) {
-                lendingRecordsByEquipment
-                        .computeIfAbsent(eq.getId(), k -> new ArrayList<>())
-                        .add(record);
-            }
+    /**
+     * Reads the data files again, then rebuilds the record maps and the overdue loans.
+     * Records that are still in the files keep their objects. Must not run while other
+     * changes are made through this service.
+     */
+    public void reload() {
+        DataRepository.reload();
+        lendingRecordsByID.clear();
+        lendingRecordsByBorrower.clear();
+        lendingRecordsByEquipment.clear();
+        overdueMonitor.clear();
+        for (LendingRecord record : lendingRecords) {
+            lendingRecordsByID.put(record.getRecordID(), record);
+            indexRecord(record);
+            overdueMonitor.track(record);
         }
+
+        // Loans read from the files may already be past their return date
+        overdueMonitor.start();
     }
 
     /**
@@ -76,38 +106,140 @@ public class LendingService implements LendingManager {
             }
         }
 
-        // Update equipment status to "Borrowed"
-        for (Equipment eq : record.getEquipmentList()) {
-            if (!eq.getStatus().equalsIgnoreCase("Available")) {
-                System.out.println("Equipment " + eq.getId() + " is not available for lending.");
-                return false;
+        // Reserve the record ID so two terminals cannot add the same record
+        if (lendingRecordsByID.putIfAbsent(record.getRecordID(), record) != null) {
+            System.out.println("Lending record " + record.getRecordID() + " already exists.");
+            return false;
+        }
+
+        // Check and update equipment status to "Borrowed" while holding the equipment locks
+        TransactionManager.Transaction transaction;
+        int[] stripes = equipmentLocks.lock(record.getEquipmentList());
+        try {
+            for (Equipment eq : record.getEquipmentList()) {
+                if (!eq.getStatus().equalsIgnoreCase("Available")) {
+                    System.out.println("Equipment " + eq.getId() + " is not available for lending.");
+                    lendingRecordsByID.remove(record.getRecordID());
+                    return false;
+                }
             }
-            eq.setStatus("Borrowed");
+
+            //Update equipment status in memory and in the transaction accordingly
+            transaction = DataRepository.beginTransaction();
+            for (Equipment eq : record.getEquipmentList()) {
+                DataRepository.updateEquipmentStatus(eq, "Borrowed", transaction);
+            }
+        } finally {
+            equipmentLocks.unlock(stripes);
         }
 
-        // Add lending record to list
-        lendingRecords.add(record);
+        // Add lending record to the repository, then save it and the equipment status together
+        DataRepository.addLendingRecord(record, transaction);
+        DataRepository.commit(transaction);
 
-        // Update 3 HashMaps
-        lendingRecordsByID.put(record.getRecordID(), record);
-        lendingRecordsByBorrower
-                .computeIfAbsent(record.getBorrower().getBorrowerID(), k -> new ArrayList<>())
-                .add(record);
+        // Update the borrower and equipment maps
+        indexRecord(record);
+        overdueMonitor.track(record);
+        return true;
+    }
 
-        for (Equipment eq : record.getEquipmentList()) {
-            lendingRecordsByEquipment
-                    .computeIfAbsent(eq.getId(), k -> new ArrayList<>())
-                    .add(record);
+    /**
+     * Adds a batch of lending records with the same checks as {@link #addLendingRecord}.
+     * The whole batch is checked and its equipment is marked as borrowed in memory while
+     * holding the equipment locks once. The status changes and the accepted records are then
+     * saved in one transaction, which appends the records with a single write.
+     * A record is rejected, without affecting the others, if it is invalid, reuses a record ID,
+     * or asks for equipment that is not available or was taken by an earlier record of the batch.
+     *
+     * @param records The lending records to add, in order.
+     * @return The outcome of each record, in the same order.
+     */
+    @Override
+    public List<LendingOutcome> addLendingRecords(List<LendingRecord> records) {
+        List<LendingOutcome> outcomes = new ArrayList<>(records.size());
+        List<LendingRecord> candidates = new ArrayList<>(records.size());
+        Set<Equipment> requested = new HashSet<>();
+        for (LendingRecord record : records) {
+            String reason = checkLendingRecord(record);
+            if (reason == null && lendingRecordsByID.putIfAbsent(record.getRecordID(), record) != null) {
+                reason = "record ID already exists";
+            }
+            if (reason != null) {
+                outcomes.add(LendingOutcome.rejected(record, reason));
+                continue;
+            }
+            outcomes.add(null); // Decided below, once the equipment is locked
+            candidates.add(record);
+            requested.addAll(record.getEquipmentList());
         }
 
-        //Save lending record to the existing file in the database
-        LendingRecordDataWriter.saveLendingRecord(record);
+        // Mark the equipment as borrowed record by record, so a later record cannot take it again
+        List<LendingRecord> accepted = new ArrayList<>(candidates.size());
+        Map<LendingRecord, String> rejected = new HashMap<>();
+        TransactionManager.Transaction transaction = DataRepository.beginTransaction();
+        int[] stripes = equipmentLocks.lock(requested);
+        try {
+            for (LendingRecord record : candidates) {
+                Equipment unavailable = null;
+                for (Equipment eq : record.getEquipmentList()) {
+                    if (!eq.getStatus().equalsIgnoreCase("Available")) {
+                        unavailable = eq;
+                        break;
+                    }
+                }
+                if (unavailable != null) {
+                    lendingRecordsByID.remove(record.getRecordID());
+                    rejected.put(record, "equipment " + unavailable.getId() + " is not available");
+                    continue;
+                }
+                for (Equipment eq : record.getEquipmentList()) {
+                    DataRepository.updateEquipmentStatus(eq, "Borrowed", transaction);
+                }
+                accepted.add(record);
+            }
+        } finally {
+            equipmentLocks.unlock(stripes);
+        }
 
-        //Update equipment status in the equipment file accordingly
-        for (Equipment eq : record.getEquipmentList()) {
-            EquipmentDataWriter.updateEquipmentStatus(eq.getId(), eq.getStatus());
+        // Save the accepted records with one append, together with the equipment, then index them
+        DataRepository.addLendingRecords(accepted, transaction);
+        DataRepository.commit(transaction);
+        for (LendingRecord record : accepted) {
+            indexRecord(record);
+            overdueMonitor.track(record);
         }
-        return true;
+
+        int next = 0;
+        for (int i = 0; i < outcomes.size(); i++) {
+            if (outcomes.get(i) == null) {
+                LendingRecord record = candidates.get(next++);
+                String reason = rejected.get(record);
+                outcomes.set(i, reason == null ? LendingOutcome.added(record) : LendingOutcome.rejected(record, reason));
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Checks the fields of a new lending record.
+     *
+     * @param record The lending record to check.
+     * @return Why the record is invalid, or null if it is valid.
+     */
+    private String checkLendingRecord(LendingRecord record) {
+        if (record == null || record.getRecordID() == null) {
+            return "record or record ID is missing";
+        }
+        if (record.getBorrower() == null) {
+            return "borrower is missing";
+        }
+        if (record.getEquipmentList() == null || record.getEquipmentList().isEmpty()) {
+            return "no equipment requested";
+        }
+        if (record.getBorrower() instanceof Student && ((Student) record.getBorrower()).getSupervisor() == null) {
+            return "student must have academic supervision";
+        }
+        return null;
     }
 
     /**
@@ -132,8 +264,8 @@ public class LendingService implements LendingManager {
 
         // Get updates via view
         Borrower newBorrower = getUpdatedBorrower(existingRecord.getBorrower());
-        Date newBorrowDate = getUpdatedBorrowDate(existingRecord.getBorrowDate());
-        Date newReturnDate = getUpdatedReturnDate(existingRecord.getReturnDate(), newBorrowDate);
+        LocalDate newBorrowDate = getUpdatedBorrowDate(existingRecord.getBorrowDate());
+        LocalDate newReturnDate = getUpdatedReturnDate(existingRecord.getReturnDate(), newBorrowDate);
         List<Equipment> newEquipmentList = getUpdatedEquipmentList(existingRecord.getEquipmentList());
         String newStatus = getUpdatedStatus(existingRecord.getStatus());
 
@@ -155,49 +287,196 @@ public class LendingService implements LendingManager {
             }
         }
 
-        // Apply updates
-        existingRecord.setBorrower(newBorrower);
-        existingRecord.setBorrowDate(newBorrowDate);
-        existingRecord.setReturnDate(newReturnDate);
-        existingRecord.setEquipmentList(newEquipmentList);
-        existingRecord.setStatus(newStatus);
+        return saveLendingRecordUpdate(existingRecord, newBorrower, newSupervisor, newBorrowDate, newReturnDate,
+                newEquipmentList, newStatus);
+    }
 
-        // Update supervisor if borrower is a Student
-        if (newBorrower instanceof Student) {
-            existingRecord.setSupervisor(newSupervisor);
-        }
+    /**
+     * Applies already chosen changes to a lending record and saves them, without asking anything.
+     * The record and every equipment it had or will have are locked while the changes are checked
+     * and applied. An open record may only be given equipment that is available or that it already
+     * holds; equipment it gives up goes back to the shelf unless another open loan holds it.
+     *
+     * @param existingRecord   The lending record to update.
+     * @param newBorrower      The new borrower.
+     * @param newSupervisor    The new supervisor, used if the borrower is a student.
+     * @param newBorrowDate    The new borrowing date.
+     * @param newReturnDate    The new return date.
+     * @param newEquipmentList The new equipment list.
+     * @param newStatus        The new status.
+     * @return true if the update is successful, false otherwise.
+     */
+    public boolean saveLendingRecordUpdate(LendingRecord existingRecord, Borrower newBorrower, Academic newSupervisor,
+                                           LocalDate newBorrowDate, LocalDate newReturnDate,
+                                           List<Equipment> newEquipmentList, String newStatus) {
+        return update.measure(() -> applyLendingRecordUpdate(existingRecord, newBorrower, newSupervisor,
+                newBorrowDate, newReturnDate, newEquipmentList, newStatus));
+    }
 
-        // Mark new equipment as "Borrowed" if status is not "Returned"
-        if (newStatus.equalsIgnoreCase("Returned")) {
-            for (Equipment eq : newEquipmentList) {
-                eq.setStatus("Available");
-                EquipmentDataWriter.updateEquipmentStatus(eq.getId(), "Available");
+    // Check and apply the changes of saveLendingRecordUpdate
+    private boolean applyLendingRecordUpdate(LendingRecord existingRecord, Borrower newBorrower, Academic newSupervisor,
+                                             LocalDate newBorrowDate, LocalDate newReturnDate,
+                                             List<Equipment> newEquipmentList, String newStatus) {
+        // Lock the record and every equipment it had or will have before applying changes
+        Set<Equipment> affectedEquipment = new LinkedHashSet<>(existingRecord.getEquipmentList());
+        affectedEquipment.addAll(newEquipmentList);
+        synchronized (existingRecord) {
+            if (lendingRecordsByID.get(existingRecord.getRecordID()) != existingRecord) {
+                System.out.println("Error: Lending record was deleted by another user.");
+                return false;
             }
-        } else {
-            for (Equipment eq : newEquipmentList) {
-                eq.setStatus("Borrowed");
-                EquipmentDataWriter.updateEquipmentStatus(eq.getId(), "Borrowed");
+
+            // A returned record holds no equipment, so reopening it must borrow all of it again
+            List<Equipment> heldEquipment = existingRecord.getStatus().equalsIgnoreCase("Returned")
+                    ? List.of() : existingRecord.getEquipmentList();
+            boolean staysOpen = !newStatus.equalsIgnoreCase("Returned");
+
+            TransactionManager.Transaction transaction;
+            int[] stripes = equipmentLocks.lock(affectedEquipment);
+            try {
+                // Equipment the record does not hold may have been lent out since it was selected
+                if (staysOpen) {
+                    for (Equipment eq : newEquipmentList) {
+                        if (!heldEquipment.contains(eq) && !eq.getStatus().equalsIgnoreCase("Available")) {
+                            System.out.println("Equipment " + eq.getId() + " is no longer available for lending.");
+                            return false;
+                        }
+                    }
+                }
+                transaction = DataRepository.beginTransaction();
+
+                // Apply updates. The indexes are keyed by borrower, equipment and dates, so the
+                // record is removed from them first and re-indexed once every change is applied
+                unindexRecord(existingRecord);
+                overdueMonitor.untrack(existingRecord);
+
+                // Equipment the record gives up goes back to the shelf
+                for (Equipment eq : heldEquipment) {
+                    if (!(staysOpen && newEquipmentList.contains(eq)) && !isLentByAnotherRecord(eq, existingRecord)) {
+                        DataRepository.updateEquipmentStatus(eq, "Available", transaction);
+                    }
+                }
+
+                existingRecord.setBorrower(newBorrower);
+                existingRecord.setBorrowDate(newBorrowDate);
+                existingRecord.setReturnDate(newReturnDate);
+                existingRecord.setEquipmentList(newEquipmentList);
+                existingRecord.setStatus(newStatus);
+
+                // Update supervisor if borrower is a Student
+                if (newBorrower instanceof Student) {
+                    existingRecord.setSupervisor(newSupervisor);
+                }
+
+                // Mark the equipment of an open record as "Borrowed"
+                if (staysOpen) {
+                    for (Equipment eq : newEquipmentList) {
+                        DataRepository.updateEquipmentStatus(eq, "Borrowed", transaction);
+                    }
+                }
+            } finally {
+                equipmentLocks.unlock(stripes);
             }
+
+            // Persist the record and the equipment status together
+            DataRepository.updateLendingRecords(List.of(existingRecord), transaction);
+            DataRepository.commit(transaction);
+
+            // Re-index under the new borrower, equipment and dates
+            indexRecord(existingRecord);
+            overdueMonitor.track(existingRecord);
+        }
+        return true;
+    }
+
+    /**
+     * Returns every open (borrowed or overdue) loan of a borrower.
+     * The loans are found through the borrower map and saved with one grouped write.
+     *
+     * @param borrowerID The ID of the borrower.
+     * @return The lending records that were returned.
+     */
+    @Override
+    public List<LendingRecord> returnAllForBorrower(String borrowerID) {
+        if (borrowerID == null || borrowerID.isEmpty()) {
+            return new ArrayList<>();
         }
+        return returnRecords(getLendingRecordsByBorrower(borrowerID));
+    }
 
-        // Persist changes
-        LendingRecordDataWriter.updateLendingRecord(existingRecord);
+    /**
+     * Returns the open loans of the given equipment, found through the equipment map.
+     * A loan is only returned once all of its equipment is given back; a loan with
+     * equipment still out stays open. The changes are saved with one grouped write.
+     *
+     * @param equipmentIDs The IDs of the equipment given back.
+     * @return The lending records that were returned.
+     */
+    @Override
+    public List<LendingRecord> returnEquipment(Collection<String> equipmentIDs) {
+        Set<String> givenBack = new HashSet<>(equipmentIDs);
+        Set<LendingRecord> candidates = new LinkedHashSet<>();
+        for (String equipmentID : givenBack) {
+            for (LendingRecord record : getLendingRecordsByEquipment(equipmentID)) {
+                boolean complete = true;
+                for (Equipment eq : record.getEquipmentList()) {
+                    if (!givenBack.contains(eq.getId())) {
+                        complete = false;
+                        break;
+                    }
+                }
+                if (complete) {
+                    candidates.add(record);
+                }
+            }
+        }
+        return returnRecords(candidates);
+    }
 
-        //update borrower map
-        lendingRecordsByBorrower.getOrDefault(newBorrower.getBorrowerID(), new ArrayList<>()).add(existingRecord);
+    /**
+     * Marks open loans as returned and their equipment as available.
+     * Every status change is made while holding the equipment locks once, then the
+     * equipment and the records are saved in one transaction, with one grouped write.
+     * A loan that was deleted, already returned, or given other equipment since it was
+     * looked up is skipped.
+     *
+     * @param candidates The loans to return.
+     * @return The lending records that were returned.
+     */
+    private List<LendingRecord> returnRecords(Collection<LendingRecord> candidates) {
+        Set<Equipment> equipment = new HashSet<>();
+        for (LendingRecord record : candidates) {
+            equipment.addAll(record.getEquipmentList());
+        }
 
-        //Update lending records by equipment ID map
-        for (Equipment eq : newEquipmentList) {
-            lendingRecordsByEquipment
-                    .computeIfAbsent(eq.getId(), k -> new ArrayList<>())
-                    .add(existingRecord);
+        List<LendingRecord> returned = new ArrayList<>();
+        TransactionManager.Transaction transaction = DataRepository.beginTransaction();
+        int[] stripes = equipmentLocks.lock(equipment);
+        try {
+            for (LendingRecord record : candidates) {
+                if (lendingRecordsByID.get(record.getRecordID()) != record
+                        || record.getStatus().equalsIgnoreCase("Returned")
+                        || !equipment.containsAll(record.getEquipmentList())) {
+                    continue;
+                }
+                overdueMonitor.untrack(record);
+                record.setStatus("Returned");
+                for (Equipment eq : record.getEquipmentList()) {
+                    DataRepository.updateEquipmentStatus(eq, "Available", transaction);
+                }
+                returned.add(record);
+            }
+        } finally {
+            equipmentLocks.unlock(stripes);
         }
-        return true;
+        DataRepository.updateLendingRecords(returned, transaction);
+        DataRepository.commit(transaction);
+        return returned;
     }
 
     /* *
      * Delete a lending record by record ID
-     * and reupdate the file
+     * and remove it from the file
      * @param recordID The ID of the lending record to be deleted
      */
     @Override
@@ -224,37 +503,71 @@ public class LendingService implements LendingManager {
             return false; // User chose not to delete
         }
 
-        // Proceed with deletion if confirmed
-        Iterator<LendingRecord> iterator = lendingRecords.iterator();
-        while (iterator.hasNext()) {
-            LendingRecord record = iterator.next();
-            if (record.getRecordID().equals(recordID)) {
-                // Restore equipment status to "Available"
-                for (Equipment eq : record.getEquipmentList()) {
-                    eq.setStatus("Available");
-                    EquipmentDataWriter.updateEquipmentStatus(eq.getId(), "Available");
-                }
+        return removeLendingRecord(recordToDelete);
+    }
 
-                // Remove from main list
-                iterator.remove();
+    /**
+     * Deletes a lending record without asking for confirmation.
+     * The equipment of an open record goes back to the shelf unless another open loan holds it;
+     * a returned record holds no equipment, so its equipment is left as it is.
+     *
+     * @param recordToDelete The lending record to delete.
+     * @return true if the record was deleted, false if it was already deleted.
+     */
+    public boolean removeLendingRecord(LendingRecord recordToDelete) {
+        return delete.measure(() -> applyLendingRecordRemoval(recordToDelete));
+    }
 
-                // Remove from borrower map
-                lendingRecordsByBorrower.getOrDefault(record.getBorrower().getBorrowerID(), new ArrayList<>()).remove(record);
+    // Delete the record of removeLendingRecord
+    private boolean applyLendingRecordRemoval(LendingRecord recordToDelete) {
+        synchronized (recordToDelete) {
+            // Only one terminal can remove the record
+            if (!lendingRecordsByID.remove(recordToDelete.getRecordID(), recordToDelete)) {
+                System.out.println("Record not found.");
+                return false;
+            }
 
-                // Remove from equipment map
-                for (Equipment eq : record.getEquipmentList()) {
-                    lendingRecordsByEquipment.getOrDefault(eq.getId(), new ArrayList<>()).remove(record);
+            // Restore the status of the equipment the record held to "Available"
+            TransactionManager.Transaction transaction = DataRepository.beginTransaction();
+            if (!recordToDelete.getStatus().equalsIgnoreCase("Returned")) {
+                int[] stripes = equipmentLocks.lock(recordToDelete.getEquipmentList());
+                try {
+                    for (Equipment eq : recordToDelete.getEquipmentList()) {
+                        if (!isLentByAnotherRecord(eq, recordToDelete)) {
+                            DataRepository.updateEquipmentStatus(eq, "Available", transaction);
+                        }
+                    }
+                } finally {
+                    equipmentLocks.unlock(stripes);
                 }
+            }
 
-                //Remove from lending record by ID
-                lendingRecordsByID.remove(recordID);
+            // Remove from the repository, then delete it from the file together with the equipment status
+            DataRepository.removeLendingRecord(recordToDelete, transaction);
+            DataRepository.commit(transaction);
 
-                // Save updated records (overwrite the file)
-                LendingRecordDataWriter.saveAllLendingRecords(lendingRecords);
+            // Remove from borrower and equipment maps
+            unindexRecord(recordToDelete);
+            overdueMonitor.untrack(recordToDelete);
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether another open loan holds an equipment, through the equipment map.
+     * Must be called while holding the equipment's lock.
+     *
+     * @param eq     The equipment to check.
+     * @param record The record to leave out.
+     * @return true if another borrowed or overdue record lists the equipment.
+     */
+    private boolean isLentByAnotherRecord(Equipment eq, LendingRecord record) {
+        for (LendingRecord other : getLendingRecordsByEquipment(eq.getId())) {
+            if (other != record && !other.getStatus().equalsIgnoreCase("Returned")) {
                 return true;
             }
         }
-        return false; // Record not found
+        return false;
     }
 
     //Define the method to view all lending records
@@ -272,7 +585,7 @@ public class LendingService implements LendingManager {
      */
     @Override
     public List<LendingRecord> getLendingRecordsByBorrower(String borrowerID) {
-        return lendingRecordsByBorrower.getOrDefault(borrowerID, new ArrayList<>());
+        return copyOf(lendingRecordsByBorrower.get(borrowerID));
     }
 
     /**
@@ -284,24 +597,84 @@ public class LendingService implements LendingManager {
      */
     @Override
     public List<LendingRecord> getLendingRecordsByEquipment(String equipmentID) {
-        return lendingRecordsByEquipment.getOrDefault(equipmentID, new ArrayList<>());
+        return copyOf(lendingRecordsByEquipment.get(equipmentID));
     }
 
     /**
      * Retrieves sorted overdue lending records.
+     * Records are read from the overdue monitor, which keeps them sorted by borrow date.
      *
      * @return List of overdue lending records.
      */
     @Override
     public List<LendingRecord> getOverdueLendingRecords() {
-        //Update all lending records before sorting
-        LendingRecordDataLoader.loadLendingRecords();
-        lendingRecords = LendingRecordProcessor.getLendingRecords();
-        // Filter the lending records to get only those with "Overdue" status
-        return lendingRecords.stream()
-                .filter(record -> "Overdue".equals(record.getStatus())) // Filter by status "Overdue"
-                .sorted(Comparator.comparing(LendingRecord::getBorrowDate)) // Always sort by borrowed date
-                .collect(Collectors.toList()); // Collect the sorted list
+        return overdueMonitor.getOverdueRecords();
+    }
+
+    /**
+     * Walks the overdue lending records in batches, sorted by borrow date.
+     *
+     * @param action The action to run for each overdue record.
+     */
+    @Override
+    public void forEachOverdueLendingRecord(Consumer<? super LendingRecord> action) {
+        overdueMonitor.forEachOverdueRecord(action);
+    }
+
+    /**
+     * Adds a record to the borrower and equipment maps.
+     * Each key holds a LinkedHashSet, so a record is never listed twice and can be removed in O(1).
+     * Sets are only changed inside compute, which is atomic per key.
+     *
+     * @param record The lending record to index.
+     */
+    private void indexRecord(LendingRecord record) {
+        addToIndex(lendingRecordsByBorrower, record.getBorrower().getBorrowerID(), record);
+        for (Equipment eq : record.getEquipmentList()) {
+            addToIndex(lendingRecordsByEquipment, eq.getId(), record);
+        }
+    }
+
+    /**
+     * Removes a record from the borrower and equipment maps.
+     * Must be called while the record still holds the borrower and equipment it was indexed with.
+     *
+     * @param record The lending record to remove.
+     */
+    private void unindexRecord(LendingRecord record) {
+        removeFromIndex(lendingRecordsByBorrower, record.getBorrower().getBorrowerID(), record);
+        for (Equipment eq : record.getEquipmentList()) {
+            removeFromIndex(lendingRecordsByEquipment, eq.getId(), record);
+        }
+    }
+
+    // Add a record to one key of an index
+    private void addToIndex(Map<String, Set<LendingRecord>> index, String key, LendingRecord record) {
+        index.compute(key, (k, records) -> {
+            if (records == null) {
+                records = Collections.synchronizedSet(new LinkedHashSet<>());
+            }
+            records.add(record);
+            return records;
+        });
+    }
+
+    // Remove a record from one key of an index, dropping the key once it is empty
+    private void removeFromIndex(Map<String, Set<LendingRecord>> index, String key, LendingRecord record) {
+        index.computeIfPresent(key, (k, records) -> {
+            records.remove(record);
+            return records.isEmpty() ? null : records;
+        });
+    }
+
+    // Copy the records of one key of an index
+    private List<LendingRecord> copyOf(Set<LendingRecord> records) {
+        if (records == null) {
+            return new ArrayList<>();
+        }
+        synchronized (records) {
+            return new ArrayList<>(records);
+        }
     }
 
     private Borrower getUpdatedBorrower(Borrower currentBorrower) {
@@ -310,15 +683,15 @@ public class LendingService implements LendingManager {
         return scanner.nextLine().trim().equalsIgnoreCase("yes") ? inputValidation.getValidBorrower() : currentBorrower;
     }
 
-    private Date getUpdatedBorrowDate(Date currentBorrowDate) {
+    private LocalDate getUpdatedBorrowDate(LocalDate currentBorrowDate) {
         System.out.print("Current borrowing date: " + DateUtils.formatDate(currentBorrowDate) + "\n");
         System.out.print("Do you want to change the borrowing date? (yes/no): ");
         return scanner.nextLine().trim().equalsIgnoreCase("yes") ? inputValidation.getValidDate("Enter new borrowing date: ") : currentBorrowDate;
     }
 
-    private Date getUpdatedReturnDate(Date currentReturnDate, Date borrowDate) {
+    private LocalDate getUpdatedReturnDate(LocalDate currentReturnDate, LocalDate borrowDate) {
         System.out.print("Current return date: " + DateUtils.formatDate(currentReturnDate) + "\n");
-        Date newReturnDate;
+        LocalDate newReturnDate;
         do {
             System.out.print("Do you want to change the return date? (yes/no): ");
             if (!scanner.nextLine().trim().equalsIgnoreCase("yes")) {
@@ -327,11 +700,11 @@ public class LendingService implements LendingManager {
 
             newReturnDate = inputValidation.getValidDate("Enter new return date: ");
 
-            if (newReturnDate.before(borrowDate)) {
+            if (newReturnDate.isBefore(borrowDate)) {
                 System.out.println("Error: Return date must be after the borrowing date. Please enter a valid return date.");
             }
 
-        } while (newReturnDate.before(borrowDate));
+        } while (newReturnDate.isBefore(borrowDate));
 
         return newReturnDate;
     }
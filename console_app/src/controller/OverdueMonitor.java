@@ -0,0 +1,205 @@
+package controller;
+
+import helper.DataRepository;
+import model.LendingRecord;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Keeps open loans ordered by return date and overdue loans ordered by borrow date.
+ * A sweep only looks at the open loans whose return date has passed, moves them to
+ * "Overdue" and saves the change, so its cost depends on the number of loans that
+ * became overdue rather than on the number of open loans.
+ * The sweep runs when the monitor starts and then every night at midnight.
+ * <p>
+ * The sweep only holds the monitor lock while it takes the due loans out of the open loans.
+ * Each loan is then changed under its own lock and its equipment locks, like any other
+ * change to a loan, and the changes are saved once no lock is held.
+ */
+public class OverdueMonitor {
+    private static final String BORROWED = "Borrowed";
+    public static final String OVERDUE = "Overdue";
+    private static final int BATCH_SIZE = 1024; // Loans copied per lock when walking the overdue loans
+
+    // Order of the overdue report: borrow date, then record ID
+    public static final Comparator<LendingRecord> OVERDUE_ORDER =
+            Comparator.comparing(LendingRecord::getBorrowDate, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparing(LendingRecord::getRecordID);
+
+    // Open loans, earliest return date first
+    private final NavigableSet<LendingRecord> openLoans = new TreeSet<>(
+            Comparator.comparing(LendingRecord::getReturnDate)
+                    .thenComparing(LendingRecord::getRecordID));
+
+    // Overdue loans, in the order of the overdue report
+    private final NavigableSet<LendingRecord> overdueLoans = new TreeSet<>(OVERDUE_ORDER);
+
+    private final EquipmentLocks equipmentLocks;          // Locks taken by every change of a loan's status
+    private final Predicate<LendingRecord> isCurrent;     // False once a loan has been deleted or replaced
+    private ScheduledExecutorService scheduler; // Runs the nightly sweep
+
+    /**
+     * Creates a monitor for the loans of a lending service.
+     *
+     * @param equipmentLocks The equipment locks of the lending service.
+     * @param isCurrent      Checks that a loan is still the one the lending service knows by its ID.
+     */
+    public OverdueMonitor(EquipmentLocks equipmentLocks, Predicate<LendingRecord> isCurrent) {
+        this.equipmentLocks = equipmentLocks;
+        this.isCurrent = isCurrent;
+    }
+
+    /**
+     * Starts tracking a lending record based on its status.
+     * Must be called again after the record's dates or status change.
+     *
+     * @param record The lending record to track.
+     */
+    public synchronized void track(LendingRecord record) {
+        if (BORROWED.equalsIgnoreCase(record.getStatus()) && record.getReturnDate() != null) {
+            openLoans.add(record);
+        } else if (OVERDUE.equalsIgnoreCase(record.getStatus())) {
+            overdueLoans.add(record);
+        }
+    }
+
+    /**
+     * Stops tracking a lending record.
+     * Must be called before the record's dates or status change.
+     *
+     * @param record The lending record to stop tracking.
+     */
+    public synchronized void untrack(LendingRecord record) {
+        if (!openLoans.remove(record)) {
+            overdueLoans.remove(record);
+        }
+    }
+
+    // Stop tracking every loan, before the loans are tracked again after a reload
+    public synchronized void clear() {
+        openLoans.clear();
+        overdueLoans.clear();
+    }
+
+    /**
+     * Moves every open loan whose return date is before the given day to "Overdue"
+     * and saves the changes with one grouped write.
+     * A loan that was returned, deleted or given a later return date after it was taken
+     * out of the open loans is left as it is.
+     *
+     * @param today The current day.
+     * @return The number of loans that became overdue.
+     */
+    public int promoteDue(LocalDate today) {
+        List<LendingRecord> due = new ArrayList<>();
+        synchronized (this) {
+            while (!openLoans.isEmpty() && openLoans.first().getReturnDate().isBefore(today)) {
+                due.add(openLoans.pollFirst());
+            }
+        }
+
+        List<LendingRecord> promoted = new ArrayList<>();
+        for (LendingRecord record : due) {
+            synchronized (record) {
+                int[] stripes = equipmentLocks.lock(record.getEquipmentList());
+                try {
+                    // Check again, as the loan may have changed since it was taken out
+                    if (!isCurrent.test(record) || !BORROWED.equalsIgnoreCase(record.getStatus())
+                            || record.getReturnDate() == null || !record.getReturnDate().isBefore(today)) {
+                        continue;
+                    }
+                    untrack(record); // An update may have tracked it again meanwhile
+                    record.setStatus(OVERDUE);
+                    track(record);
+                    promoted.add(record);
+                } finally {
+                    equipmentLocks.unlock(stripes);
+                }
+            }
+        }
+
+        if (!promoted.isEmpty()) {
+            DataRepository.updateLendingRecords(promoted);
+        }
+        return promoted.size();
+    }
+
+    /**
+     * Retrieves the overdue loans sorted by borrow date.
+     *
+     * @return A list of overdue lending records.
+     */
+    public synchronized List<LendingRecord> getOverdueRecords() {
+        return new ArrayList<>(overdueLoans);
+    }
+
+    /**
+     * Passes every overdue loan to an action, sorted by borrow date.
+     * Loans are copied in batches and the monitor is not locked while the action runs,
+     * so a long report neither holds a full copy of the overdue loans nor blocks the sweep.
+     * Loans changed during the walk may or may not be included.
+     *
+     * @param action The action to run for each overdue loan.
+     */
+    public void forEachOverdueRecord(Consumer<? super LendingRecord> action) {
+        List<LendingRecord> batch = new ArrayList<>(BATCH_SIZE);
+        LendingRecord last = null; // Last loan of the previous batch
+        do {
+            batch.clear();
+            synchronized (this) {
+                Iterator<LendingRecord> loans = last == null
+                        ? overdueLoans.iterator()
+                        : overdueLoans.tailSet(last, false).iterator();
+                while (batch.size() < BATCH_SIZE && loans.hasNext()) {
+                    batch.add(loans.next());
+                }
+            }
+            batch.forEach(action);
+            if (!batch.isEmpty()) {
+                last = batch.get(batch.size() - 1);
+            }
+        } while (batch.size() == BATCH_SIZE);
+    }
+
+    /**
+     * Runs a sweep now and schedules one every night at midnight.
+     */
+    public void start() {
+        promoteDue(LocalDate.now());
+        synchronized (this) {
+            if (scheduler == null) {
+                scheduleSweeps();
+            }
+        }
+    }
+
+    // Schedule a sweep every night at midnight
+    private void scheduleSweeps() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "overdue-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        LocalDateTime now = LocalDateTime.now();
+        long delay = Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay()).toMillis();
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                promoteDue(LocalDate.now());
+            } catch (RuntimeException e) {
+                // An exception would cancel all later sweeps
+                System.err.println("Error running overdue sweep: " + e.getMessage());
+            }
+        }, delay, TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+    }
+}
@@ -16,15 +16,12 @@ public class StaffController {
     public void getAllStaff() {
 
         // Retrieve lists of Academic and Professional staff
-        List<Academic> academics = StaffDataProcessor.getAcademics();
-        List<Professional> professionals = StaffDataProcessor.getProfessionals();
+        List<Academic> academics = DataRepository.getAcademics();
+        List<Professional> professionals = DataRepository.getProfessionals();
 
-// Retrieve all lending records
-        List<LendingRecord> lendingRecords = LendingRecordProcessor.getLendingRecords();
-
-        // Update each academic with their students
+        // Update each academic with their students from the relation index
         for (Academic academic : academics) {
-            academic.updateSupervisedStudents(lendingRecords);
+            academic.setStudentsBorrowed(DataRepository.getStudentsSupervisedBy(academic.getStaffID()));
         }
 
         // Display Academic staff
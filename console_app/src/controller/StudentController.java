@@ -15,14 +15,15 @@ public class StudentController {
     //Define the method to view students
     public void getAllStudents() {
         // Retrieve list of students
-        List<Student> students = StudentDataProcessor.getStudents();
+        List<Student> students = DataRepository.getStudents();
 
-        // Retrieve all lending records
-        List<LendingRecord> lendingRecords = LendingRecordProcessor.getLendingRecords();
-
-        // Update each student with their lending records
+        // Update each student with their lending records and supervisor from the relation index
         for (Student student : students) {
-            student.updateLendingRecords(lendingRecords);
+            student.setLendingRecords(DataRepository.getLendingRecordsOfStudent(student.getStudentID()));
+            Academic supervisor = DataRepository.getSupervisorOf(student.getStudentID());
+            if (supervisor != null) {
+                student.setSupervisor(supervisor);
+            }
         }
 
         // Display students with their lending records
@@ -0,0 +1,402 @@
+package helper;
+
+import model.*;
+import utils.Metrics;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Optional binary snapshot of all entities, used for a fast cold start.
+ * The text files stay the import/export format; the snapshot is only used while it
+ * matches them, which is checked through the size and modification time of each file.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * header     magic, version, fingerprint of each source file
+ * dictionary every distinct string once, UTF-8 encoded
+ * students   column per field (string fields as dictionary indexes, dates as epoch days)
+ * staff      column per field, type column (0 = academic, 1 = professional)
+ * equipment  column per field
+ * records    column per field, borrowers and supervisors as indexes into students + staff,
+ *            equipment as indexes into the equipment section
+ * </pre>
+ * The file is read through a memory-mapped {@link FileChannel}.
+ */
+public class BinarySnapshot {
+    private static final LongAdder bytesRead = Metrics.counter("io.binarySnapshot.bytesRead");
+    private static final LongAdder bytesWritten = Metrics.counter("io.binarySnapshot.bytesWritten");
+    private static final LongAdder ioErrors = Metrics.counter("io.binarySnapshot.errors");
+    private static final String SNAPSHOT_PATH = "console_app/database/snapshot.bin"; // Path to the snapshot
+    private static final String[] SOURCE_PATHS = {
+            "console_app/database/students.txt",
+            "console_app/database/staff.txt",
+            "console_app/database/equipment.txt",
+            "console_app/database/equipment.log",
+            "console_app/database/equipment.log.compacting",
+            "console_app/database/lending_records.txt"
+    };
+    private static final int MAGIC = 0x454C4D53; // "ELMS"
+    private static final int VERSION = 1;
+    private static final int NO_VALUE = -1;           // Missing string or reference
+    private static final int NO_DATE = Integer.MIN_VALUE; // Missing date
+    private static final int ACADEMIC = 0;
+    private static final int PROFESSIONAL = 1;
+
+    /**
+     * Checks whether the snapshot is turned on with -Delms.snapshot=true.
+     *
+     * @return true if the snapshot should be used.
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("elms.snapshot");
+    }
+
+    /**
+     * Loads all entities from the snapshot into the data processors.
+     *
+     * @return true if the snapshot was loaded, false if it is missing or out of date.
+     */
+    public static boolean load() {
+        Path path = Paths.get(SNAPSHOT_PATH);
+        if (!Files.exists(path)) {
+            return false;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            bytesRead.add(channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return false;
+            }
+            long[] fingerprint = fingerprint();
+            for (long expected : fingerprint) {
+                if (buffer.getLong() != expected) {
+                    return false; // A text file changed after the snapshot was written
+                }
+            }
+
+            String[] dictionary = readDictionary(buffer);
+
+            // Students
+            List<Student> students = StudentDataProcessor.getStudents();
+            students.clear();
+            int studentCount = buffer.getInt();
+            int[] studentIDs = readColumn(buffer, studentCount);
+            int[] studentPersonIDs = readColumn(buffer, studentCount);
+            int[] studentNames = readColumn(buffer, studentCount);
+            int[] studentBirthDates = readColumn(buffer, studentCount);
+            int[] studentContacts = readColumn(buffer, studentCount);
+            for (int i = 0; i < studentCount; i++) {
+                students.add(new Student(text(dictionary, studentIDs[i]), text(dictionary, studentPersonIDs[i]),
+                        text(dictionary, studentNames[i]), date(studentBirthDates[i]), text(dictionary, studentContacts[i])));
+            }
+
+            // Staff
+            List<Academic> academics = StaffDataProcessor.getAcademics();
+            List<Professional> professionals = StaffDataProcessor.getProfessionals();
+            academics.clear();
+            professionals.clear();
+            int staffCount = buffer.getInt();
+            int[] staffTypes = readColumn(buffer, staffCount);
+            int[] staffIDs = readColumn(buffer, staffCount);
+            int[] staffPersonIDs = readColumn(buffer, staffCount);
+            int[] staffNames = readColumn(buffer, staffCount);
+            int[] staffBirthDates = readColumn(buffer, staffCount);
+            int[] staffContacts = readColumn(buffer, staffCount);
+            int[] staffExtraInfo = readColumn(buffer, staffCount);
+            Borrower[] borrowers = new Borrower[studentCount + staffCount]; // Reference table for records
+            for (int i = 0; i < studentCount; i++) {
+                borrowers[i] = students.get(i);
+            }
+            for (int i = 0; i < staffCount; i++) {
+                String staffID = text(dictionary, staffIDs[i]);
+                String id = text(dictionary, staffPersonIDs[i]);
+                String fullName = text(dictionary, staffNames[i]);
+                String contactInfo = text(dictionary, staffContacts[i]);
+                String extraInfo = text(dictionary, staffExtraInfo[i]);
+                if (staffTypes[i] == ACADEMIC) {
+                    Academic academic = new Academic(staffID, id, fullName, date(staffBirthDates[i]), contactInfo, extraInfo);
+                    academics.add(academic);
+                    borrowers[studentCount + i] = academic;
+                } else {
+                    Professional professional = new Professional(staffID, id, fullName, date(staffBirthDates[i]), contactInfo, extraInfo);
+                    professionals.add(professional);
+                    borrowers[studentCount + i] = professional;
+                }
+            }
+
+            // Equipment
+            List<Equipment> equipments = EquipmentDataProcessor.getEquipments();
+            equipments.clear();
+            int equipmentCount = buffer.getInt();
+            int[] equipmentIDs = readColumn(buffer, equipmentCount);
+            int[] equipmentNames = readColumn(buffer, equipmentCount);
+            int[] equipmentStatuses = readColumn(buffer, equipmentCount);
+            int[] purchasedDates = readColumn(buffer, equipmentCount);
+            int[] conditions = readColumn(buffer, equipmentCount);
+            for (int i = 0; i < equipmentCount; i++) {
+                equipments.add(new Equipment(text(dictionary, equipmentIDs[i]), text(dictionary, equipmentNames[i]),
+                        text(dictionary, equipmentStatuses[i]), date(purchasedDates[i]), text(dictionary, conditions[i])));
+            }
+
+            // Lending records
+            List<LendingRecord> lendingRecords = LendingRecordProcessor.getLendingRecords();
+            lendingRecords.clear();
+            int recordCount = buffer.getInt();
+            int[] recordIDs = readColumn(buffer, recordCount);
+            int[] borrowerRefs = readColumn(buffer, recordCount);
+            int[] supervisorRefs = readColumn(buffer, recordCount);
+            int[] borrowDates = readColumn(buffer, recordCount);
+            int[] returnDates = readColumn(buffer, recordCount);
+            int[] recordStatuses = readColumn(buffer, recordCount);
+            int[] purposes = readColumn(buffer, recordCount);
+            int[] equipmentCounts = readColumn(buffer, recordCount);
+            int[] equipmentRefs = readColumn(buffer, buffer.getInt());
+            int nextRef = 0;
+            for (int i = 0; i < recordCount; i++) {
+                List<Equipment> equipmentList = new ArrayList<>(equipmentCounts[i]);
+                for (int j = 0; j < equipmentCounts[i]; j++) {
+                    equipmentList.add(equipments.get(equipmentRefs[nextRef++]));
+                }
+                Academic supervisor = supervisorRefs[i] == NO_VALUE ? null : (Academic) borrowers[supervisorRefs[i]];
+                lendingRecords.add(new LendingRecord(text(dictionary, recordIDs[i]), borrowers[borrowerRefs[i]],
+                        equipmentList, supervisor, date(borrowDates[i]), date(returnDates[i]),
+                        text(dictionary, recordStatuses[i]), text(dictionary, purposes[i])));
+            }
+
+            // Reuse the objects already in memory
+            StudentDataProcessor.canonicalize();
+            StaffDataProcessor.canonicalize();
+            EquipmentDataProcessor.canonicalize();
+            LendingRecordProcessor.canonicalize();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error loading data snapshot, falling back to text files: " + e.getMessage());
+            ioErrors.increment();
+            return false;
+        }
+    }
+
+    /**
+     * Writes the entities currently held by the data processors to the snapshot.
+     * The snapshot is written to a temporary file first and then renamed.
+     */
+    public static void write() {
+        List<Student> students = StudentDataProcessor.getStudents();
+        List<Academic> academics = StaffDataProcessor.getAcademics();
+        List<Professional> professionals = StaffDataProcessor.getProfessionals();
+        List<Equipment> equipments = EquipmentDataProcessor.getEquipments();
+        List<LendingRecord> lendingRecords = new ArrayList<>(LendingRecordProcessor.getLendingRecords()); // Read by position
+
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        Map<Borrower, Integer> borrowerRefs = new IdentityHashMap<>();
+        Map<Equipment, Integer> equipmentRefs = new IdentityHashMap<>();
+        List<Staff> staff = new ArrayList<>(academics);
+        staff.addAll(professionals);
+
+        // Students
+        int studentCount = students.size();
+        int[][] studentColumns = new int[5][studentCount];
+        for (int i = 0; i < studentCount; i++) {
+            Student student = students.get(i);
+            studentColumns[0][i] = encode(dictionary, student.getStudentID());
+            studentColumns[1][i] = encode(dictionary, student.getId());
+            studentColumns[2][i] = encode(dictionary, student.getFullName());
+            studentColumns[3][i] = epochDay(student.getBirthDate());
+            studentColumns[4][i] = encode(dictionary, student.getContactInfo());
+            borrowerRefs.put(student, i);
+        }
+
+        // Staff
+        int staffCount = staff.size();
+        int[][] staffColumns = new int[7][staffCount];
+        for (int i = 0; i < staffCount; i++) {
+            Staff member = staff.get(i);
+            boolean academic = member instanceof Academic;
+            staffColumns[0][i] = academic ? ACADEMIC : PROFESSIONAL;
+            staffColumns[1][i] = encode(dictionary, member.getStaffID());
+            staffColumns[2][i] = encode(dictionary, member.getId());
+            staffColumns[3][i] = encode(dictionary, member.getFullName());
+            staffColumns[4][i] = epochDay(member.getBirthDate());
+            staffColumns[5][i] = encode(dictionary, member.getContactInfo());
+            staffColumns[6][i] = encode(dictionary, academic
+                    ? ((Academic) member).getExpertise()
+                    : ((Professional) member).getDepartment());
+            borrowerRefs.put(member, studentCount + i);
+        }
+
+        // Equipment
+        int equipmentCount = equipments.size();
+        int[][] equipmentColumns = new int[5][equipmentCount];
+        for (int i = 0; i < equipmentCount; i++) {
+            Equipment equipment = equipments.get(i);
+            equipmentColumns[0][i] = encode(dictionary, equipment.getId());
+            equipmentColumns[1][i] = encode(dictionary, equipment.getName());
+            equipmentColumns[2][i] = encode(dictionary, equipment.getStatus());
+            equipmentColumns[3][i] = epochDay(equipment.getPurchasedDate());
+            equipmentColumns[4][i] = encode(dictionary, equipment.getCondition());
+            equipmentRefs.put(equipment, i);
+        }
+
+        // Lending records
+        int recordCount = lendingRecords.size();
+        int[][] recordColumns = new int[8][recordCount];
+        int[] flatEquipmentRefs = new int[16];
+        int refCount = 0;
+        for (int i = 0; i < recordCount; i++) {
+            LendingRecord record = lendingRecords.get(i);
+            Integer borrowerRef = borrowerRefs.get(record.getBorrower());
+            if (borrowerRef == null) {
+                System.err.println("Error writing data snapshot: unknown borrower in record " + record.getRecordID());
+                return;
+            }
+            recordColumns[0][i] = encode(dictionary, record.getRecordID());
+            recordColumns[1][i] = borrowerRef;
+            recordColumns[2][i] = record.getSupervisor() == null
+                    ? NO_VALUE
+                    : borrowerRefs.getOrDefault(record.getSupervisor(), NO_VALUE);
+            recordColumns[3][i] = epochDay(record.getBorrowDate());
+            recordColumns[4][i] = epochDay(record.getReturnDate());
+            recordColumns[5][i] = encode(dictionary, record.getStatus());
+            recordColumns[6][i] = encode(dictionary, record.getPurpose());
+            recordColumns[7][i] = record.getEquipmentList().size();
+            for (Equipment equipment : record.getEquipmentList()) {
+                Integer equipmentRef = equipmentRefs.get(equipment);
+                if (equipmentRef == null) {
+                    System.err.println("Error writing data snapshot: unknown equipment in record " + record.getRecordID());
+                    return;
+                }
+                if (refCount == flatEquipmentRefs.length) {
+                    flatEquipmentRefs = Arrays.copyOf(flatEquipmentRefs, refCount * 2);
+                }
+                flatEquipmentRefs[refCount++] = equipmentRef;
+            }
+        }
+
+        Path temp = Paths.get(SNAPSHOT_PATH + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp.toFile()), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (long value : fingerprint()) {
+                out.writeLong(value);
+            }
+
+            out.writeInt(dictionary.size());
+            for (String value : dictionary.keySet()) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            writeSection(out, studentCount, studentColumns);
+            writeSection(out, staffCount, staffColumns);
+            writeSection(out, equipmentCount, equipmentColumns);
+            writeSection(out, recordCount, recordColumns);
+            out.writeInt(refCount);
+            for (int i = 0; i < refCount; i++) {
+                out.writeInt(flatEquipmentRefs[i]);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing data snapshot: " + e.getMessage());
+            ioErrors.increment();
+            return;
+        }
+
+        try {
+            bytesWritten.add(Files.size(temp));
+            Files.move(temp, Paths.get(SNAPSHOT_PATH), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error writing data snapshot: " + e.getMessage());
+            ioErrors.increment();
+        }
+    }
+
+    /**
+     * Size and modification time of each source file, used to detect a stale snapshot.
+     */
+    private static long[] fingerprint() {
+        long[] fingerprint = new long[SOURCE_PATHS.length * 2];
+        for (int i = 0; i < SOURCE_PATHS.length; i++) {
+            File file = new File(SOURCE_PATHS[i]);
+            fingerprint[i * 2] = file.exists() ? file.length() : -1;
+            fingerprint[i * 2 + 1] = file.exists() ? file.lastModified() : -1;
+        }
+        return fingerprint;
+    }
+
+    private static String[] readDictionary(ByteBuffer buffer) {
+        String[] dictionary = new String[buffer.getInt()];
+        byte[] bytes = new byte[64];
+        for (int i = 0; i < dictionary.length; i++) {
+            int length = buffer.getInt();
+            if (length > bytes.length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            buffer.get(bytes, 0, length);
+            dictionary[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+        return dictionary;
+    }
+
+    /**
+     * Reads a column of ints with one bulk copy.
+     */
+    private static int[] readColumn(ByteBuffer buffer, int count) {
+        int[] column = new int[count];
+        IntBuffer ints = buffer.asIntBuffer();
+        ints.get(column);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        return column;
+    }
+
+    private static void writeSection(DataOutputStream out, int count, int[][] columns) throws IOException {
+        out.writeInt(count);
+        for (int[] column : columns) {
+            for (int i = 0; i < count; i++) {
+                out.writeInt(column[i]);
+            }
+        }
+    }
+
+    private static int encode(Map<String, Integer> dictionary, String value) {
+        if (value == null) {
+            return NO_VALUE;
+        }
+        Integer index = dictionary.get(value);
+        if (index == null) {
+            index = dictionary.size();
+            dictionary.put(value, index);
+        }
+        return index;
+    }
+
+    private static String text(String[] dictionary, int index) {
+        return index == NO_VALUE ? null : dictionary[index];
+    }
+
+    private static int epochDay(LocalDate date) {
+        if (date == null) {
+            return NO_DATE;
+        }
+        return (int) date.toEpochDay();
+    }
+
+    private static LocalDate date(int epochDay) {
+        if (epochDay == NO_DATE) {
+            return null;
+        }
+        return LocalDate.ofEpochDay(epochDay);
+    }
+}
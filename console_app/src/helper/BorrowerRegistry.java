@@ -0,0 +1,167 @@
+package helper;
+
+import model.Academic;
+import model.Borrower;
+import model.Professional;
+import model.Student;
+
+import java.util.*;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Every borrower in one place: students, academics and professionals keyed by borrower ID,
+ * plus sorted-array indexes over lowercase IDs, full names and the words of names for
+ * prefix search. A search is a binary search per index followed by a walk over at most
+ * {@code limit} matches, so it costs microseconds however many borrowers there are.
+ * A registry is not changed after it is built; build a new one when the people change.
+ */
+public class BorrowerRegistry {
+    private final Map<String, Borrower> borrowersByID; // Exact lookup by borrower ID
+    private final Borrower[] borrowers;                 // All borrowers, referenced by the indexes
+    private final SortedKeys ids;                       // Lowercase borrower IDs
+    private final SortedKeys names;                     // Lowercase full names
+    private final SortedKeys words;                     // Lowercase words of the names after the first
+
+    /**
+     * Builds a registry of the given people.
+     *
+     * @param students      The students.
+     * @param academics     The academic staff.
+     * @param professionals The professional staff.
+     */
+    public BorrowerRegistry(List<Student> students, List<Academic> academics, List<Professional> professionals) {
+        int size = students.size() + academics.size() + professionals.size();
+        this.borrowers = new Borrower[size];
+        this.borrowersByID = new HashMap<>(size * 4 / 3 + 1);
+        int next = 0;
+        for (List<? extends Borrower> people : List.of(students, academics, professionals)) {
+            for (Borrower borrower : people) {
+                borrowers[next++] = borrower;
+                borrowersByID.putIfAbsent(borrower.getBorrowerID(), borrower);
+            }
+        }
+
+        List<String> idKeys = new ArrayList<>(size);
+        List<String> nameKeys = new ArrayList<>(size);
+        List<String> wordKeys = new ArrayList<>(size);
+        List<Integer> wordRefs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            idKeys.add(lower(borrowers[i].getBorrowerID()));
+            String name = lower(borrowers[i].getFullName());
+            nameKeys.add(name);
+            // Index each later word too, so a family name finds the person
+            for (int start = name.indexOf(' '); start >= 0; start = name.indexOf(' ', start + 1)) {
+                if (start + 1 < name.length() && name.charAt(start + 1) != ' ') {
+                    wordKeys.add(name.substring(start + 1));
+                    wordRefs.add(i);
+                }
+            }
+        }
+        this.ids = new SortedKeys(idKeys, null);
+        this.names = new SortedKeys(nameKeys, null);
+        this.words = new SortedKeys(wordKeys, wordRefs);
+    }
+
+    /**
+     * Finds a borrower by exact ID.
+     *
+     * @param borrowerID The borrower ID.
+     * @return The borrower, or null if not found.
+     */
+    public Borrower find(String borrowerID) {
+        return borrowersByID.get(borrowerID);
+    }
+
+    /**
+     * Finds an academic by exact staff ID.
+     *
+     * @param staffID The staff ID.
+     * @return The academic, or null if the ID is unknown or not an academic.
+     */
+    public Academic findAcademic(String staffID) {
+        Borrower borrower = borrowersByID.get(staffID);
+        return borrower instanceof Academic ? (Academic) borrower : null;
+    }
+
+    /**
+     * Finds the borrowers whose ID, name or a word of the name starts with a prefix,
+     * ignoring case. Matches are ranked: exact ID, then ID prefix, then name prefix,
+     * then word prefix, each in alphabetical order.
+     *
+     * @param prefix The start of an ID or name. An empty prefix lists borrowers by ID.
+     * @param limit  The maximum number of matches to return.
+     * @return The matches, best first.
+     */
+    public List<Borrower> search(String prefix, int limit) {
+        String key = lower(prefix.trim());
+        Set<Borrower> matches = new LinkedHashSet<>();
+        ids.collect(key, limit, matches);
+        names.collect(key, limit, matches);
+        words.collect(key, limit, matches);
+        return new ArrayList<>(matches);
+    }
+
+    // Get the number of borrowers
+    public int size() {
+        return borrowers.length;
+    }
+
+    // Get a label for the type of a borrower
+    public static String typeOf(Borrower borrower) {
+        return borrower.getClass().getSimpleName();
+    }
+
+    private static String lower(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Keys sorted alphabetically, each pointing at a borrower.
+     */
+    private class SortedKeys {
+        private final String[] keys;
+        private final int[] refs; // Index into borrowers of each key
+
+        // Sort the keys; refs may be null when key i belongs to borrower i
+        private SortedKeys(List<String> keyList, List<Integer> refList) {
+            Integer[] order = new Integer[keyList.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparing(keyList::get));
+            keys = new String[order.length];
+            refs = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                keys[i] = keyList.get(order[i]);
+                refs[i] = refList == null ? order[i] : refList.get(order[i]);
+            }
+        }
+
+        // Add the borrowers of the keys starting with a prefix until there are enough matches
+        private void collect(String prefix, int limit, Set<Borrower> matches) {
+            for (int i = lowerBound(prefix); i < keys.length && matches.size() < limit; i++) {
+                if (!keys[i].startsWith(prefix)) {
+                    return;
+                }
+                matches.add(borrowers[refs[i]]);
+            }
+        }
+
+        // Find the first key that is not less than a prefix
+        private int lowerBound(String prefix) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[middle].compareTo(prefix) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
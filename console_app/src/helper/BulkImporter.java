@@ -0,0 +1,732 @@
+package helper;
+
+import model.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Command-line importer for students, staff, equipment and lending records in bulk.
+ * Each file runs through a pipeline of stages joined by bounded queues, so a fast stage
+ * waits for a slow one instead of filling memory:
+ * <pre>
+ * reader -> parser/validator workers -> ID and reference check -> indexer -> writer
+ * </pre>
+ * The reader cuts the file into chunks of lines. Several workers parse and validate the
+ * chunks in parallel with the same rules as the loaders. The check stage puts the chunks
+ * back in file order and rejects duplicate IDs and loans of equipment that is already lent.
+ * The indexer adds the accepted rows to the repository, and the writer appends them to the
+ * data files with one write per chunk. Lending records are instead added to one transaction
+ * per chunk; the writer marks their equipment as borrowed, commits the transaction, and only
+ * then adds the records to the repository, so a failed commit leaves memory as it was. Rejected rows are written to a file next to the
+ * input, each after a comment line with its line number and reason, so the file can be
+ * fixed and imported again.
+ * <p>
+ * Input files use the format of the data files. Blank lines and lines starting with '#'
+ * are skipped. An equipment or lending record with an empty ID gets a new ID from the
+ * {@link IdAllocator}. A loan with status Borrowed or Overdue marks its equipment as borrowed.
+ * <p>
+ * Usage, from the project root:
+ * <pre>
+ * java -cp out helper.BulkImporter [--students file] [--staff file] [--equipment file] [--lending file] [--workers n]
+ * </pre>
+ * The files are imported in that order, so later files can refer to rows of earlier ones.
+ */
+public class BulkImporter<T> {
+    private static final int CHUNK_LINES = 4096;  // Lines handed from stage to stage at a time
+    private static final int QUEUE_CHUNKS = 2;    // Chunks waiting in a queue per worker
+    private static final long POLL_MILLIS = 100;  // How often a waiting stage checks for a failure
+
+    private final Rules<T> rules;      // How to parse, check, index and save the rows
+    private final Path input;          // File to import
+    private final Path rejectedPath;   // File of rejected rows
+    private final int workers;         // Parser/validator threads
+    private final BlockingQueue<Chunk<T>> lineQueue;    // Reader to workers
+    private final BlockingQueue<Chunk<T>> parsedQueue;  // Workers to check, in any order
+    private final BlockingQueue<Chunk<T>> checkedQueue; // Check to indexer, in file order
+    private final BlockingQueue<Chunk<T>> indexedQueue; // Indexer to writer, in file order
+    private volatile Throwable failure; // First error of any stage; stops the pipeline
+    private long rows;                  // Rows read, set by the writer
+    private long accepted;              // Rows imported, set by the writer
+    private long rejected;              // Rows rejected, set by the writer
+
+    /**
+     * Imports the files given on the command line.
+     *
+     * @param args The options, see the class description.
+     */
+    public static void main(String[] args) {
+        Map<String, String> files = new LinkedHashMap<>();
+        int workers = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--students", "--staff", "--equipment", "--lending" -> files.put(args[i].substring(2), args[i + 1]);
+                case "--workers" -> workers = Math.max(1, Integer.parseInt(args[i + 1]));
+                default -> System.err.println("Unknown option: " + args[i]);
+            }
+        }
+        if (files.isEmpty() || args.length % 2 != 0) {
+            System.out.println("Usage: java -cp out helper.BulkImporter [--students file] [--staff file]"
+                    + " [--equipment file] [--lending file] [--workers n]");
+            return;
+        }
+
+        boolean failed = false;
+        for (String kind : List.of("students", "staff", "equipment", "lending")) {
+            String file = files.get(kind);
+            if (file != null && !failed) {
+                failed = !importFile(kind, Paths.get(file), workers);
+            }
+        }
+        System.exit(failed ? 1 : 0); // Stop the background threads of the repository
+    }
+
+    /**
+     * Imports one file and prints a summary.
+     *
+     * @param kind    "students", "staff", "equipment" or "lending".
+     * @param input   The file to import.
+     * @param workers The number of parser/validator threads.
+     * @return true if the file was imported, false if the import stopped on an error.
+     */
+    public static boolean importFile(String kind, Path input, int workers) {
+        if (!Files.isRegularFile(input)) {
+            System.err.println("Error importing " + kind + ": file not found: " + input);
+            return false;
+        }
+        long start = System.nanoTime();
+        BulkImporter<?> importer = new BulkImporter<>(rulesFor(kind), input, workers);
+        try {
+            importer.run();
+        } catch (Exception e) {
+            System.err.println("Error importing " + kind + " from " + input + ": " + e.getMessage());
+            return false;
+        }
+        System.out.printf("Imported %d of %d %s rows from %s in %.1f s%n", importer.accepted, importer.rows,
+                kind, input, (System.nanoTime() - start) / 1e9);
+        if (importer.rejected > 0) {
+            System.out.println(importer.rejected + " rejected rows were written to " + importer.rejectedPath);
+        }
+        return true;
+    }
+
+    private BulkImporter(Rules<T> rules, Path input, int workers) {
+        this.rules = rules;
+        this.input = input;
+        this.rejectedPath = Paths.get(input + ".rejected");
+        this.workers = workers;
+        this.lineQueue = new ArrayBlockingQueue<>(workers * QUEUE_CHUNKS);
+        this.parsedQueue = new ArrayBlockingQueue<>(workers * QUEUE_CHUNKS);
+        this.checkedQueue = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+        this.indexedQueue = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+    }
+
+    /**
+     * Runs every stage on its own thread and waits for the writer to finish.
+     */
+    private void run() throws Exception {
+        Files.deleteIfExists(rejectedPath); // Leave only the rejects of this run
+        ExecutorService threads = Executors.newFixedThreadPool(workers + 4);
+        try {
+            List<Future<?>> stages = new ArrayList<>();
+            stages.add(threads.submit(stage(this::read)));
+            for (int i = 0; i < workers; i++) {
+                stages.add(threads.submit(stage(this::parse)));
+            }
+            stages.add(threads.submit(stage(this::check)));
+            stages.add(threads.submit(stage(this::index)));
+            stages.add(threads.submit(stage(this::write)));
+            for (Future<?> stage : stages) {
+                stage.get();
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+        if (failure != null) {
+            throw new IOException(failure.getMessage() != null ? failure.getMessage() : failure.toString(), failure);
+        }
+        rules.finish();
+    }
+
+    // Run a stage, recording its error so the other stages stop waiting
+    private Callable<Void> stage(Callable<Void> body) {
+        return () -> {
+            try {
+                body.call();
+            } catch (CancellationException e) {
+                // Another stage failed
+            } catch (Throwable e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+            return null;
+        };
+    }
+
+    // Stage 1: read the file into chunks of lines
+    private Void read() throws Exception {
+        long sequence = 0;
+        long lineNumber = 1;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(input.toFile()), StandardCharsets.UTF_8), 1 << 20)) {
+            List<String> lines = new ArrayList<>(CHUNK_LINES);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+                if (lines.size() == CHUNK_LINES) {
+                    put(lineQueue, new Chunk<>(sequence++, lineNumber, lines));
+                    lineNumber += lines.size();
+                    lines = new ArrayList<>(CHUNK_LINES);
+                }
+            }
+            if (!lines.isEmpty()) {
+                put(lineQueue, new Chunk<>(sequence, lineNumber, lines));
+            }
+        }
+        for (int i = 0; i < workers; i++) {
+            put(lineQueue, Chunk.end());
+        }
+        return null;
+    }
+
+    // Stage 2, on several threads: parse and validate each line of a chunk
+    private Void parse() throws Exception {
+        while (true) {
+            Chunk<T> chunk = take(lineQueue);
+            if (chunk.isEnd()) {
+                put(parsedQueue, chunk);
+                return null;
+            }
+            for (int i = 0; i < chunk.lines.size(); i++) {
+                String line = chunk.lines.get(i);
+                if (line.isBlank() || line.trim().startsWith("#")) {
+                    continue;
+                }
+                try {
+                    chunk.rows.set(i, rules.parse(CsvFieldTokenizer.forLine(line)));
+                } catch (IllegalArgumentException e) {
+                    chunk.reasons[i] = e.getMessage();
+                }
+            }
+            put(parsedQueue, chunk);
+        }
+    }
+
+    // Stage 3: put the chunks back in file order, then check IDs and references row by row
+    private Void check() throws Exception {
+        Map<Long, Chunk<T>> waiting = new HashMap<>();
+        Set<String> seen = new HashSet<>(); // IDs imported by this run
+        long next = 0;
+        int endedWorkers = 0;
+        while (endedWorkers < workers) {
+            Chunk<T> chunk = take(parsedQueue);
+            if (chunk.isEnd()) {
+                endedWorkers++;
+                continue;
+            }
+            waiting.put(chunk.sequence, chunk);
+            for (Chunk<T> ready; (ready = waiting.remove(next)) != null; next++) {
+                checkChunk(ready, seen);
+                put(checkedQueue, ready);
+            }
+        }
+        put(checkedQueue, Chunk.end());
+        return null;
+    }
+
+    // Give new IDs to rows without one, then reject duplicate IDs and rows the rules refuse
+    private void checkChunk(Chunk<T> chunk, Set<String> seen) {
+        GeneratedIdRules<T> generated = rules.generatedIds();
+        IdAllocator.Sequence sequence = generated != null ? generated.sequence() : null;
+        int missing = 0;
+        for (T row : chunk.rows) {
+            if (row != null && rules.idOf(row).isEmpty()) {
+                missing++;
+            }
+        }
+        IdAllocator.Block block = missing > 0 && generated != null ? IdAllocator.reserve(sequence, missing) : null;
+
+        for (int i = 0; i < chunk.rows.size(); i++) {
+            T row = chunk.rows.get(i);
+            if (row == null) {
+                continue;
+            }
+            String id = rules.idOf(row);
+            String reason = null;
+            if (id.isEmpty()) {
+                if (block == null) {
+                    reason = "Missing ID";
+                } else {
+                    row = generated.withId(row, block.next());
+                    chunk.rows.set(i, row);
+                }
+            } else if (seen.contains(id) || rules.exists(id)) {
+                reason = "Duplicate ID: " + id;
+            } else if (generated != null) {
+                generated.highestImported = Math.max(generated.highestImported, IdAllocator.parse(sequence, id));
+            }
+            if (reason == null) {
+                reason = rules.check(row);
+            }
+            if (reason != null) {
+                chunk.rows.set(i, null);
+                chunk.reasons[i] = reason;
+            } else {
+                seen.add(rules.idOf(row));
+            }
+        }
+    }
+
+    // Stage 4: add the accepted rows to the repository and to the transaction of their chunk
+    private Void index() throws Exception {
+        while (true) {
+            Chunk<T> chunk = take(checkedQueue);
+            if (!chunk.isEnd()) {
+                chunk.transaction = DataRepository.beginTransaction();
+                rules.index(chunk.accepted(), chunk.transaction);
+            }
+            put(indexedQueue, chunk);
+            if (chunk.isEnd()) {
+                return null;
+            }
+        }
+    }
+
+    // Stage 5: save the accepted rows and write the rejected rows to the rejects file
+    private Void write() throws Exception {
+        BufferedWriter rejects = null;
+        try {
+            while (true) {
+                Chunk<T> chunk = take(indexedQueue);
+                if (chunk.isEnd()) {
+                    return null;
+                }
+                List<T> rowsOfChunk = chunk.accepted();
+                rules.write(rowsOfChunk, chunk.transaction);
+                accepted += rowsOfChunk.size();
+                for (int i = 0; i < chunk.lines.size(); i++) {
+                    if (chunk.rows.get(i) != null) {
+                        rows++;
+                    } else if (chunk.reasons[i] != null) {
+                        rows++;
+                        rejected++;
+                        if (rejects == null) {
+                            rejects = Files.newBufferedWriter(rejectedPath, StandardCharsets.UTF_8);
+                        }
+                        rejects.write("# line " + (chunk.firstLine + i) + ": " + chunk.reasons[i]);
+                        rejects.newLine();
+                        rejects.write(chunk.lines.get(i));
+                        rejects.newLine();
+                    }
+                }
+            }
+        } finally {
+            if (rejects != null) {
+                rejects.close();
+            }
+        }
+    }
+
+    // Put a chunk on a queue, waiting while it is full
+    private void put(BlockingQueue<Chunk<T>> queue, Chunk<T> chunk) throws InterruptedException {
+        while (!queue.offer(chunk, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (failure != null) {
+                throw new CancellationException();
+            }
+        }
+    }
+
+    // Take a chunk from a queue, waiting while it is empty
+    private Chunk<T> take(BlockingQueue<Chunk<T>> queue) throws InterruptedException {
+        while (true) {
+            Chunk<T> chunk = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (chunk != null) {
+                return chunk;
+            }
+            if (failure != null) {
+                throw new CancellationException();
+            }
+        }
+    }
+
+    /**
+     * Lines of the input and what became of each of them.
+     */
+    private static class Chunk<T> {
+        private final long sequence;     // Position of the chunk in the file, -1 for the end marker
+        private final long firstLine;    // Line number of the first line
+        private final List<String> lines;
+        private final List<T> rows;      // Parsed row of each line, null if skipped or rejected
+        private final String[] reasons;  // Why each line was rejected, null if it was not
+        private TransactionManager.Transaction transaction; // Changes of the accepted rows, set by the indexer
+
+        private Chunk(long sequence, long firstLine, List<String> lines) {
+            this.sequence = sequence;
+            this.firstLine = firstLine;
+            this.lines = lines;
+            this.rows = new ArrayList<>(Collections.nCopies(lines.size(), null));
+            this.reasons = new String[lines.size()];
+        }
+
+        // Create the marker that ends the input of a stage
+        private static <T> Chunk<T> end() {
+            return new Chunk<>(-1, 0, List.of());
+        }
+
+        private boolean isEnd() {
+            return sequence < 0;
+        }
+
+        // Get the accepted rows, in file order
+        private List<T> accepted() {
+            List<T> accepted = new ArrayList<>(rows.size());
+            for (T row : rows) {
+                if (row != null) {
+                    accepted.add(row);
+                }
+            }
+            return accepted;
+        }
+    }
+
+    /**
+     * How one kind of row is parsed, checked, indexed and saved.
+     *
+     * @param <T> The type of the rows.
+     */
+    private abstract static class Rules<T> {
+        // Parse and validate a non-blank line; called on several threads
+        abstract T parse(CsvFieldTokenizer data);
+
+        abstract String idOf(T row);
+
+        // Check whether an ID is already in the data
+        abstract boolean exists(String id);
+
+        // Add accepted rows to the repository; changes saved through a transaction are added to it
+        abstract void index(List<T> rows, TransactionManager.Transaction transaction);
+
+        // Save accepted rows: append them to the data file, or commit the transaction they were added to
+        abstract void write(List<T> rows, TransactionManager.Transaction transaction);
+
+        // Get these rules as rules that give new IDs to rows without one, or null if rows must have an ID
+        GeneratedIdRules<T> generatedIds() {
+            return null;
+        }
+
+        // Check a row against the rows before it; returns why it is rejected, or null
+        String check(T row) {
+            return null;
+        }
+
+        // Called once every row has been written
+        void finish() {
+        }
+    }
+
+    /**
+     * Rules of rows whose ID can be left empty and is then taken from a sequence of the
+     * {@link IdAllocator}. Imported IDs raise the sequence, so later IDs never repeat them.
+     *
+     * @param <T> The type of the rows.
+     */
+    private abstract static class GeneratedIdRules<T> extends Rules<T> {
+        private long highestImported; // Highest number of the imported IDs of the sequence
+
+        // Get the sequence new IDs come from
+        abstract IdAllocator.Sequence sequence();
+
+        // Copy a row with a new ID; the row itself is not changed, as it is hashed by its ID
+        abstract T withId(T row, String id);
+
+        @Override
+        GeneratedIdRules<T> generatedIds() {
+            return this;
+        }
+
+        @Override
+        void finish() {
+            if (highestImported > 0) {
+                IdAllocator.raiseTo(sequence(), highestImported);
+            }
+        }
+    }
+
+    // Get the rules of a kind of row
+    private static Rules<?> rulesFor(String kind) {
+        return switch (kind) {
+            case "students" -> new StudentRules();
+            case "staff" -> new StaffRules();
+            case "equipment" -> new EquipmentRules();
+            case "lending" -> new LendingRules();
+            default -> throw new IllegalArgumentException("Unknown kind: " + kind);
+        };
+    }
+
+    // Reject a person without an ID, a name or a valid birth date
+    private static void validatePerson(String borrowerID, Person person, CsvFieldTokenizer data) {
+        if (borrowerID.isEmpty() || person.getFullName().isEmpty()) {
+            throw new IllegalArgumentException("Missing ID or name: " + data.line());
+        }
+        if (person.getBirthDate() == null) {
+            throw new IllegalArgumentException("Invalid birth date: " + data.line());
+        }
+    }
+
+    /**
+     * Students, with the rules of {@link StudentDataProcessor}.
+     */
+    private static class StudentRules extends Rules<Student> {
+        @Override
+        Student parse(CsvFieldTokenizer data) {
+            Student student = StudentDataProcessor.toStudent(data);
+            validatePerson(student.getStudentID(), student, data);
+            return student;
+        }
+
+        @Override
+        String idOf(Student row) {
+            return row.getStudentID();
+        }
+
+        @Override
+        boolean exists(String id) {
+            return DataRepository.findBorrower(id) != null;
+        }
+
+        @Override
+        void index(List<Student> rows, TransactionManager.Transaction transaction) {
+            DataRepository.indexStudents(rows);
+        }
+
+        @Override
+        void write(List<Student> rows, TransactionManager.Transaction transaction) {
+            PersonDataWriter.saveStudents(rows);
+        }
+
+        @Override
+        void finish() {
+            DataRepository.refreshBorrowers();
+        }
+    }
+
+    /**
+     * Academic and professional staff, with the rules of {@link StaffDataProcessor}.
+     */
+    private static class StaffRules extends Rules<Staff> {
+        @Override
+        Staff parse(CsvFieldTokenizer data) {
+            Staff staff = StaffDataProcessor.toStaff(data);
+            validatePerson(staff.getStaffID(), staff, data);
+            return staff;
+        }
+
+        @Override
+        String idOf(Staff row) {
+            return row.getStaffID();
+        }
+
+        @Override
+        boolean exists(String id) {
+            return DataRepository.findBorrower(id) != null;
+        }
+
+        @Override
+        void index(List<Staff> rows, TransactionManager.Transaction transaction) {
+            DataRepository.indexStaff(rows);
+        }
+
+        @Override
+        void write(List<Staff> rows, TransactionManager.Transaction transaction) {
+            PersonDataWriter.saveStaff(rows);
+        }
+
+        @Override
+        void finish() {
+            DataRepository.refreshBorrowers();
+        }
+    }
+
+    /**
+     * Equipment, with the rules of {@link EquipmentDataProcessor}.
+     */
+    private static class EquipmentRules extends GeneratedIdRules<Equipment> {
+        @Override
+        Equipment parse(CsvFieldTokenizer data) {
+            Equipment equipment = EquipmentDataProcessor.toEquipment(data);
+            if (equipment.getName().isEmpty() || equipment.getCondition().isEmpty()) {
+                throw new IllegalArgumentException("Missing name or condition: " + data.line());
+            }
+            EquipmentStatus status = EquipmentStatus.fromLabel(equipment.getStatus());
+            if (status == null) {
+                throw new IllegalArgumentException("Invalid status: " + equipment.getStatus());
+            }
+            if (status == EquipmentStatus.BORROWED) {
+                throw new IllegalArgumentException("Equipment can only be borrowed through a lending record: " + equipment.getId());
+            }
+            if (equipment.getPurchasedDate() == null) {
+                throw new IllegalArgumentException("Invalid purchase date: " + data.line());
+            }
+            return equipment;
+        }
+
+        @Override
+        String idOf(Equipment row) {
+            return row.getId();
+        }
+
+        @Override
+        IdAllocator.Sequence sequence() {
+            return IdAllocator.Sequence.EQUIPMENT;
+        }
+
+        @Override
+        Equipment withId(Equipment row, String id) {
+            return new Equipment(id, row.getName(), row.getStatus(), row.getPurchasedDate(), row.getCondition());
+        }
+
+        @Override
+        boolean exists(String id) {
+            return DataRepository.getEquipment(id) != null;
+        }
+
+        @Override
+        void index(List<Equipment> rows, TransactionManager.Transaction transaction) {
+            DataRepository.indexEquipments(rows);
+        }
+
+        @Override
+        void write(List<Equipment> rows, TransactionManager.Transaction transaction) {
+            EquipmentDataWriter.saveEquipments(rows);
+        }
+    }
+
+    /**
+     * Lending records, with the rules of {@link LendingRecordProcessor}.
+     * Unlike the loader, a record is rejected if any of its equipment or its supervisor is unknown.
+     */
+    private static class LendingRules extends GeneratedIdRules<LendingRecord> {
+        private static final Set<String> STATUSES = Set.of("borrowed", "returned", "overdue");
+
+        private final BorrowerRegistry borrowers;          // Borrowers at the start of the import
+        private final Map<String, Equipment> equipmentMap; // Equipment at the start of the import
+        private final Set<Equipment> claimed = new HashSet<>(); // Equipment lent by imported open loans
+
+        private LendingRules() {
+            borrowers = new BorrowerRegistry(DataRepository.getStudents(), DataRepository.getAcademics(),
+                    DataRepository.getProfessionals());
+            List<Equipment> equipments = DataRepository.snapshotEquipments();
+            equipmentMap = new HashMap<>(equipments.size() * 4 / 3 + 1);
+            for (Equipment equipment : equipments) {
+                equipmentMap.put(equipment.getId(), equipment);
+            }
+        }
+
+        @Override
+        LendingRecord parse(CsvFieldTokenizer data) {
+            LendingRecord record = LendingRecordProcessor.toLendingRecord(data, borrowers, equipmentMap);
+            String recordID = record.getRecordID();
+            if (record.getEquipmentList().size() != data.split(2, ';').count()) {
+                throw new IllegalArgumentException("Equipment not found for record: " + recordID);
+            }
+            boolean noSupervisor = data.isEmpty(3) || data.fieldEquals(3, "-");
+            if (record.getBorrower() instanceof Student && !noSupervisor && record.getSupervisor() == null) {
+                throw new IllegalArgumentException("Supervisor not found for ID: " + data.field(3));
+            }
+            if (!STATUSES.contains(record.getStatus().toLowerCase())) {
+                throw new IllegalArgumentException("Invalid status for record: " + recordID);
+            }
+            LocalDate borrowDate = record.getBorrowDate();
+            if (borrowDate == null) {
+                throw new IllegalArgumentException("Invalid borrow date for record: " + recordID);
+            }
+            if (record.getReturnDate() != null && record.getReturnDate().isBefore(borrowDate)) {
+                throw new IllegalArgumentException("Return date is before borrow date for record: " + recordID);
+            }
+            return record;
+        }
+
+        @Override
+        String idOf(LendingRecord row) {
+            return row.getRecordID();
+        }
+
+        @Override
+        IdAllocator.Sequence sequence() {
+            return IdAllocator.Sequence.LENDING_RECORD;
+        }
+
+        @Override
+        LendingRecord withId(LendingRecord row, String id) {
+            return new LendingRecord(id, row.getBorrower(), row.getEquipmentList(), row.getSupervisor(),
+                    row.getBorrowDate(), row.getReturnDate(), row.getStatus(), row.getPurpose());
+        }
+
+        @Override
+        boolean exists(String id) {
+            return LendingRecordProcessor.getRegistry().get(id) != null;
+        }
+
+        // An open loan needs equipment that is available and not lent by an earlier imported loan
+        @Override
+        String check(LendingRecord row) {
+            if (!isOpen(row)) {
+                return null;
+            }
+            for (Equipment equipment : row.getEquipmentList()) {
+                if (claimed.contains(equipment) || !equipment.getStatus().equalsIgnoreCase("Available")) {
+                    return "Equipment " + equipment.getId() + " is not available for record: " + row.getRecordID();
+                }
+            }
+            claimed.addAll(row.getEquipmentList());
+            return null;
+        }
+
+        // Only add the records to the transaction; the repository is changed once it is committed
+        @Override
+        void index(List<LendingRecord> rows, TransactionManager.Transaction transaction) {
+            for (LendingRecord record : rows) {
+                transaction.putLendingRecord(record);
+            }
+        }
+
+        // Save the records and the equipment they borrow together, then add the records to the repository
+        @Override
+        void write(List<LendingRecord> rows, TransactionManager.Transaction transaction) {
+            List<Equipment> borrowed = new ArrayList<>();
+            for (LendingRecord record : rows) {
+                if (isOpen(record)) {
+                    borrowed.addAll(record.getEquipmentList());
+                }
+            }
+            for (Equipment equipment : borrowed) {
+                DataRepository.updateEquipmentStatus(equipment, "Borrowed", transaction);
+            }
+            try {
+                DataRepository.commit(transaction);
+            } catch (RuntimeException e) {
+                // The check only accepted available equipment, so that is what it goes back to
+                for (Equipment equipment : borrowed) {
+                    equipment.setStatus("Available");
+                }
+                throw e;
+            }
+            DataRepository.indexLendingRecords(rows);
+        }
+
+        // Check whether a loan has not been returned
+        private static boolean isOpen(LendingRecord record) {
+            return !record.getStatus().equalsIgnoreCase("Returned");
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package helper;
+
+import utils.DateUtils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Splits one line of a data file into trimmed fields without copying it.
+ * Fields are kept as start and end positions in the line, and a String is only created
+ * when a caller asks for one. Values that repeat on almost every line (status, condition,
+ * staff type) are returned from a small pool so they are not created again for each line.
+ * An instance is reused line after line and must only be used by one thread at a time.
+ */
+public class CsvFieldTokenizer {
+    private static final int BUFFER_SIZE = 64 * 1024; // Characters read from the file at a time
+    private static final int POOL_LIMIT = 32; // Most distinct values kept in the pool
+
+    // One tokenizer per thread for callers that pass a single line
+    private static final ThreadLocal<CsvFieldTokenizer> LINE_TOKENIZER = ThreadLocal.withInitial(CsvFieldTokenizer::new);
+
+    private final char separator;
+    private CharSequence text;
+    private int lineStart;
+    private int lineEnd;
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int count;
+    private final String[] pool = new String[POOL_LIMIT];
+    private int poolSize;
+    private CsvFieldTokenizer parts; // Reused to split a field into parts
+
+    /**
+     * Creates a tokenizer for comma-separated lines.
+     */
+    public CsvFieldTokenizer() {
+        this(',');
+    }
+
+    /**
+     * Creates a tokenizer for lines that use another separator.
+     *
+     * @param separator The character between fields.
+     */
+    public CsvFieldTokenizer(char separator) {
+        this.separator = separator;
+    }
+
+    /**
+     * Splits a single line using the tokenizer of the current thread.
+     *
+     * @param line The line to split.
+     * @return The tokenizer, positioned on the line.
+     */
+    public static CsvFieldTokenizer forLine(CharSequence line) {
+        return LINE_TOKENIZER.get().reset(line, 0, line.length());
+    }
+
+    /**
+     * Reads lines from a reader and passes each one to the handler.
+     * Lines are split straight out of a reusable character buffer, so no String is created per line.
+     *
+     * @param reader  The reader to read from.
+     * @param handler Receives the tokenizer, positioned on each line in turn.
+     * @throws IOException If reading fails.
+     */
+    public static void forEachLine(Reader reader, Consumer<CsvFieldTokenizer> handler) throws IOException {
+        CsvFieldTokenizer fields = new CsvFieldTokenizer();
+        char[] buffer = new char[BUFFER_SIZE];
+        CharSequence view = CharBuffer.wrap(buffer);
+        int length = 0;
+        int read;
+        while ((read = reader.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+            int lineStart = 0;
+            for (int i = 0; i < length; i++) {
+                if (buffer[i] == '\n') {
+                    handler.accept(fields.reset(view, lineStart, i));
+                    lineStart = i + 1;
+                }
+            }
+
+            // Keep the unfinished line at the front, and grow the buffer if it fills it
+            length -= lineStart;
+            System.arraycopy(buffer, lineStart, buffer, 0, length);
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                view = CharBuffer.wrap(buffer);
+            }
+        }
+        if (length > 0) {
+            handler.accept(fields.reset(view, 0, length)); // Last line without a line break
+        }
+    }
+
+    /**
+     * Passes each line of text that is already in memory to the handler.
+     *
+     * @param text    The characters holding the lines.
+     * @param handler Receives the tokenizer, positioned on each line in turn.
+     */
+    public static void forEachLine(CharSequence text, Consumer<CsvFieldTokenizer> handler) {
+        CsvFieldTokenizer fields = new CsvFieldTokenizer();
+        int length = text.length();
+        int lineStart = 0;
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) == '\n') {
+                handler.accept(fields.reset(text, lineStart, i));
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < length) {
+            handler.accept(fields.reset(text, lineStart, length)); // Last line without a line break
+        }
+    }
+
+    /**
+     * Positions the tokenizer on a line and finds its fields.
+     * Like String.split, empty fields at the end of the line are dropped.
+     *
+     * @param text  The characters holding the line.
+     * @param start Index of the first character of the line (inclusive).
+     * @param end   Index of the last character of the line (exclusive).
+     * @return This tokenizer.
+     */
+    public CsvFieldTokenizer reset(CharSequence text, int start, int end) {
+        this.text = text;
+        start = skipSpaces(start, end);
+        end = trimSpaces(start, end);
+        this.lineStart = start;
+        this.lineEnd = end;
+        this.count = 0;
+
+        if (start == end) {
+            return this; // Blank line
+        }
+
+        int fieldStart = start;
+        int kept = 0; // Fields up to the last one that is not empty before trimming
+        for (int i = start; i <= end; i++) {
+            if (i == end || text.charAt(i) == separator) {
+                addField(fieldStart, i);
+                if (i > fieldStart) {
+                    kept = count;
+                }
+                fieldStart = i + 1;
+            }
+        }
+        count = kept; // Drop empty fields at the end of the line
+        return this;
+    }
+
+    private void addField(int start, int end) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        start = skipSpaces(start, end);
+        starts[count] = start;
+        ends[count] = trimSpaces(start, end);
+        count++;
+    }
+
+    private int skipSpaces(int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimSpaces(int start, int end) {
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Checks whether the line has no content.
+     *
+     * @return True if the line is empty or only spaces.
+     */
+    public boolean isBlank() {
+        return lineStart == lineEnd;
+    }
+
+    /**
+     * Gets the number of fields on the line.
+     *
+     * @return The field count.
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Gets a trimmed field as a new String.
+     *
+     * @param index The field position.
+     * @return The field value.
+     */
+    public String field(int index) {
+        if (text instanceof CharBuffer && ((CharBuffer) text).hasArray()) {
+            // Copy straight from the read buffer instead of through a sub-buffer
+            CharBuffer buffer = (CharBuffer) text;
+            return new String(buffer.array(), buffer.arrayOffset() + buffer.position() + starts[index], ends[index] - starts[index]);
+        }
+        return text.subSequence(starts[index], ends[index]).toString();
+    }
+
+    /**
+     * Gets a trimmed field from the pool of repeated values.
+     * Use for fields with only a few distinct values, such as status or condition.
+     *
+     * @param index The field position.
+     * @return The field value, shared with earlier lines that had the same value.
+     */
+    public String pooled(int index) {
+        for (int i = 0; i < poolSize; i++) {
+            if (fieldEquals(index, pool[i])) {
+                return pool[i];
+            }
+        }
+        String value = field(index);
+        if (poolSize < POOL_LIMIT) {
+            pool[poolSize++] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Checks whether a trimmed field is empty.
+     *
+     * @param index The field position.
+     * @return True if the field is empty.
+     */
+    public boolean isEmpty(int index) {
+        return starts[index] == ends[index];
+    }
+
+    /**
+     * Compares a trimmed field with a value without creating a String.
+     *
+     * @param index The field position.
+     * @param value The value to compare with.
+     * @return True if the field equals the value.
+     */
+    public boolean fieldEquals(int index, String value) {
+        int start = starts[index];
+        int length = ends[index] - start;
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a date field in place.
+     *
+     * @param index The field position.
+     * @return The date, or null for "N/A" or an invalid date.
+     */
+    public LocalDate date(int index) {
+        return DateUtils.parseDate(text, starts[index], ends[index]);
+    }
+
+    /**
+     * Splits a field into parts, for example a list of IDs separated by ';'.
+     * The returned tokenizer is reused by the next call.
+     *
+     * @param index     The field position.
+     * @param separator The character between parts.
+     * @return A tokenizer positioned on the parts of the field.
+     */
+    public CsvFieldTokenizer split(int index, char separator) {
+        if (parts == null || parts.separator != separator) {
+            parts = new CsvFieldTokenizer(separator);
+        }
+        return parts.reset(text, starts[index], ends[index]);
+    }
+
+    /**
+     * Gets the trimmed line, for error messages.
+     *
+     * @return The line as a String.
+     */
+    public String line() {
+        return text.subSequence(lineStart, lineEnd).toString();
+    }
+}
@@ -0,0 +1,99 @@
+package helper;
+
+import model.Equipment;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Loads students, staff, equipment and lending records at startup.
+ * Committed transactions that did not reach the data files are recovered first.
+ * Uses the binary snapshot when it is enabled and up to date, and the text files otherwise.
+ * The students, staff and equipment files do not depend on each other, so they are loaded
+ * at the same time. Lending records need all three, so they are parsed as soon as the
+ * borrower registry and the equipment map are ready.
+ */
+public class DataLoader {
+    private static final int LOADER_THREADS = 3; // One per independent data file
+    private static boolean loaded = false; // True once all data has been loaded
+
+    /**
+     * Loads all data once. Later calls do nothing.
+     */
+    public static synchronized void loadAll() {
+        if (loaded) {
+            return;
+        }
+
+        // Finish the transactions a crash left out of the data files before reading them
+        TransactionManager.recover();
+
+        if (!BinarySnapshot.isEnabled() || !BinarySnapshot.load()) {
+            loadTextFiles();
+
+            // Refresh the snapshot so the next start can skip the text files
+            if (BinarySnapshot.isEnabled()) {
+                BinarySnapshot.write();
+            }
+        }
+        loaded = true;
+    }
+
+    /**
+     * Loads all data again. Objects that are still in the files are updated in place.
+     */
+    public static synchronized void reload() {
+        loaded = false;
+        loadAll();
+    }
+
+    /**
+     * Loads the text files, running independent files in parallel.
+     */
+    private static void loadTextFiles() {
+        ExecutorService executor = Executors.newFixedThreadPool(LOADER_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "data-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            // Each lookup is built as soon as the data it needs has been loaded
+            CompletableFuture<Void> students = CompletableFuture.runAsync(StudentDataLoader::loadStudents, executor);
+            CompletableFuture<Void> staff = CompletableFuture.runAsync(StaffDataLoader::loadStaff, executor);
+            CompletableFuture<BorrowerRegistry> borrowers = students
+                    .thenCombine(staff, (studentsDone, staffDone) -> new BorrowerRegistry(StudentDataProcessor.getStudents(),
+                            StaffDataProcessor.getAcademics(), StaffDataProcessor.getProfessionals()));
+            CompletableFuture<Map<String, Equipment>> equipment = CompletableFuture
+                    .runAsync(EquipmentDataLoader::loadEquipment, executor)
+                    .thenApply(done -> byID(EquipmentDataProcessor.getEquipments(), Equipment::getId));
+
+            // Start on the lending records as soon as every lookup they need is ready
+            CompletableFuture.allOf(borrowers, equipment)
+                    .thenRunAsync(() -> LendingRecordDataLoader.loadLendingRecords(borrowers.join(), equipment.join()), executor)
+                    .join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.err.println("Error loading data: " + cause.getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Build a lookup map from a list
+    private static <T> Map<String, T> byID(List<T> items, Function<T, String> id) {
+        Map<String, T> map = new HashMap<>(items.size() * 4 / 3 + 1);
+        for (T item : items) {
+            map.put(id.apply(item), item);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,526 @@
+package helper;
+
+import model.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Single in-memory repository that owns all loaded data.
+ * Data is loaded once, every read is served from memory, and every change goes through
+ * this class so that memory and the data files stay consistent.
+ * Changes to the shared lists are synchronized, so the repository can be used from several threads.
+ */
+public class DataRepository {
+    private static final Map<String, Equipment> equipmentByID = new ConcurrentHashMap<>(); // Fast lookup by equipment ID
+    private static final EquipmentStatusIndex statusIndex = new EquipmentStatusIndex(); // Equipment by status
+    private static final EquipmentSearchIndex searchIndex = new EquipmentSearchIndex(); // Equipment by trigrams of the name
+    private static final LendingRelationIndex relationIndex = new LendingRelationIndex(); // Records by student, students by supervisor
+    private static volatile BorrowerRegistry borrowers; // Every borrower by ID, with prefix search
+    private static volatile boolean initialized = false; // True once the data has been loaded
+
+    /**
+     * Loads all data on first use.
+     */
+    private static void ensureLoaded() {
+        if (!initialized) {
+            load();
+        }
+    }
+
+    private static synchronized void load() {
+        if (initialized) {
+            return;
+        }
+        DataLoader.loadAll();
+        for (Equipment equipment : EquipmentDataProcessor.getEquipments()) {
+            equipmentByID.put(equipment.getId(), equipment);
+            statusIndex.add(equipment);
+            searchIndex.add(equipment);
+        }
+        for (LendingRecord record : LendingRecordProcessor.getLendingRecords()) {
+            relationIndex.add(record);
+        }
+        borrowers = new BorrowerRegistry(StudentDataProcessor.getStudents(),
+                StaffDataProcessor.getAcademics(), StaffDataProcessor.getProfessionals());
+        initialized = true;
+    }
+
+    /**
+     * Reads the data files again.
+     * Students, staff, equipment and lending records that are still in the files keep their
+     * objects and are updated in place, so nothing that holds them sees a stale copy.
+     * Services that keep their own indexes of lending records should be created again
+     * if records were added or removed outside the application.
+     */
+    public static synchronized void reload() {
+        ensureLoaded();
+        DataLoader.reload();
+
+        // Equipment was updated in place; index new equipment and drop equipment that is gone
+        Set<Equipment> current = new HashSet<>(EquipmentDataProcessor.getEquipments());
+        equipmentByID.values().removeIf(equipment -> {
+            if (current.contains(equipment)) {
+                return false;
+            }
+            statusIndex.remove(equipment);
+            searchIndex.remove(equipment);
+            return true;
+        });
+        for (Equipment equipment : EquipmentDataProcessor.getEquipments()) {
+            if (equipmentByID.putIfAbsent(equipment.getId(), equipment) == null) {
+                statusIndex.add(equipment);
+            }
+            searchIndex.update(equipment); // Names may have changed in the file
+        }
+
+        relationIndex.clear();
+        for (LendingRecord record : LendingRecordProcessor.getLendingRecords()) {
+            relationIndex.add(record);
+        }
+        borrowers = new BorrowerRegistry(StudentDataProcessor.getStudents(),
+                StaffDataProcessor.getAcademics(), StaffDataProcessor.getProfessionals());
+    }
+
+    // Get the list of students
+    public static List<Student> getStudents() {
+        ensureLoaded();
+        return StudentDataProcessor.getStudents();
+    }
+
+    // Get the list of academic staff
+    public static List<Academic> getAcademics() {
+        ensureLoaded();
+        return StaffDataProcessor.getAcademics();
+    }
+
+    // Get the list of professional staff
+    public static List<Professional> getProfessionals() {
+        ensureLoaded();
+        return StaffDataProcessor.getProfessionals();
+    }
+
+    // Get the list of equipment
+    public static List<Equipment> getEquipments() {
+        ensureLoaded();
+        return EquipmentDataProcessor.getEquipments();
+    }
+
+    // Get the list of lending records
+    public static List<LendingRecord> getLendingRecords() {
+        ensureLoaded();
+        return LendingRecordProcessor.getLendingRecords();
+    }
+
+    /**
+     * Copies the list of equipment, so it can be read while other threads change the repository.
+     *
+     * @return A copy of the list of equipment.
+     */
+    public static synchronized List<Equipment> snapshotEquipments() {
+        ensureLoaded();
+        return new ArrayList<>(EquipmentDataProcessor.getEquipments());
+    }
+
+    /**
+     * Copies the list of lending records, so it can be read while other threads change the repository.
+     *
+     * @return A copy of the list of lending records.
+     */
+    public static synchronized List<LendingRecord> snapshotLendingRecords() {
+        ensureLoaded();
+        return new ArrayList<>(LendingRecordProcessor.getLendingRecords());
+    }
+
+    /**
+     * Finds an equipment by ID.
+     *
+     * @param equipmentID The ID of the equipment.
+     * @return The equipment, or null if not found.
+     */
+    public static Equipment getEquipment(String equipmentID) {
+        ensureLoaded();
+        return equipmentByID.get(equipmentID);
+    }
+
+    /**
+     * Retrieves the equipment with a status, sorted by name and purchase date.
+     * The index is updated automatically whenever an equipment status changes.
+     *
+     * @param status The status to look up.
+     * @return A sorted list of the equipment with that status.
+     */
+    public static List<Equipment> getEquipmentByStatus(EquipmentStatus status) {
+        ensureLoaded();
+        return statusIndex.get(status);
+    }
+
+    /**
+     * Passes the equipment with a status to an action, sorted by name and purchase date,
+     * without copying the whole list.
+     *
+     * @param status The status to look up.
+     * @param action The action to run for each equipment.
+     */
+    public static void forEachEquipmentByStatus(EquipmentStatus status, Consumer<? super Equipment> action) {
+        ensureLoaded();
+        statusIndex.forEach(status, action);
+    }
+
+    /**
+     * Counts the equipment with a status without copying them.
+     *
+     * @param status The status to look up.
+     * @return The number of equipment with that status.
+     */
+    public static int countEquipmentByStatus(EquipmentStatus status) {
+        ensureLoaded();
+        return statusIndex.count(status);
+    }
+
+    /**
+     * Searches equipment names, best matches first.
+     *
+     * @param query     Words or the start of words of the name, in any case.
+     * @param status    Only equipment with this status, or null for any status.
+     * @param condition Only equipment in this condition, or null for any condition.
+     * @param limit     The maximum number of matches.
+     * @return The matching equipment.
+     */
+    public static List<Equipment> searchEquipment(String query, EquipmentStatus status, String condition, int limit) {
+        ensureLoaded();
+        return searchIndex.search(query, status, condition, limit);
+    }
+
+    /**
+     * Finds a student, academic or professional by borrower ID.
+     *
+     * @param borrowerID The borrower ID.
+     * @return The borrower, or null if not found.
+     */
+    public static Borrower findBorrower(String borrowerID) {
+        ensureLoaded();
+        return borrowers.find(borrowerID);
+    }
+
+    /**
+     * Finds the borrowers whose ID or name starts with a prefix, best matches first.
+     *
+     * @param prefix The start of a borrower ID, a name or a word of a name, in any case.
+     * @param limit  The maximum number of matches.
+     * @return The matching borrowers.
+     */
+    public static List<Borrower> searchBorrowers(String prefix, int limit) {
+        ensureLoaded();
+        return borrowers.search(prefix, limit);
+    }
+
+    // Count the borrowers
+    public static int countBorrowers() {
+        ensureLoaded();
+        return borrowers.size();
+    }
+
+    /**
+     * Retrieves the lending records of a student from the relation index.
+     *
+     * @param studentID The ID of the student.
+     * @return The student's lending records, in the order they were added.
+     */
+    public static List<LendingRecord> getLendingRecordsOfStudent(String studentID) {
+        ensureLoaded();
+        return relationIndex.getRecordsOfStudent(studentID);
+    }
+
+    /**
+     * Finds the supervisor named on the latest lending record of a student.
+     *
+     * @param studentID The ID of the student.
+     * @return The supervisor, or null if none.
+     */
+    public static Academic getSupervisorOf(String studentID) {
+        ensureLoaded();
+        return relationIndex.getSupervisorOf(studentID);
+    }
+
+    /**
+     * Retrieves the students an academic supervises on at least one lending record.
+     *
+     * @param staffID The staff ID of the academic.
+     * @return The supervised students.
+     */
+    public static List<Student> getStudentsSupervisedBy(String staffID) {
+        ensureLoaded();
+        return relationIndex.getStudentsSupervisedBy(staffID);
+    }
+
+    /**
+     * Adds a new equipment and saves it to the file.
+     *
+     * @param equipment The equipment to add.
+     */
+    public static synchronized void addEquipment(Equipment equipment) {
+        ensureLoaded();
+        EquipmentDataProcessor.getEquipments().add(equipment);
+        EquipmentDataProcessor.getRegistry().register(equipment);
+        equipmentByID.put(equipment.getId(), equipment);
+        statusIndex.add(equipment);
+        searchIndex.add(equipment);
+        EquipmentDataWriter.saveEquipment(equipment);
+    }
+
+    /**
+     * Saves the status and condition of an equipment that was changed in memory, in its own
+     * transaction, and re-indexes its name.
+     *
+     * @param equipment The updated equipment.
+     */
+    public static void updateEquipment(Equipment equipment) {
+        ensureLoaded();
+        searchIndex.update(equipment);
+        TransactionManager.Transaction transaction = beginTransaction();
+        transaction.setEquipmentStatus(equipment);
+        transaction.setEquipmentCondition(equipment);
+        commit(transaction);
+    }
+
+    /**
+     * Changes the status of an equipment in memory and adds the change to a transaction.
+     *
+     * @param equipment   The equipment to update.
+     * @param newStatus   The new status.
+     * @param transaction The transaction that saves the change.
+     */
+    public static void updateEquipmentStatus(Equipment equipment, String newStatus, TransactionManager.Transaction transaction) {
+        ensureLoaded();
+        equipment.setStatus(newStatus);
+        transaction.setEquipmentStatus(equipment);
+    }
+
+    /**
+     * Starts a transaction, so changes to lending records and equipment status are saved together.
+     *
+     * @return The new transaction.
+     */
+    public static TransactionManager.Transaction beginTransaction() {
+        return TransactionManager.begin();
+    }
+
+    /**
+     * Saves every change of a transaction as one unit. See {@link TransactionManager}.
+     *
+     * @param transaction The transaction to commit.
+     * @throws java.io.UncheckedIOException if the changes could not be saved.
+     */
+    public static void commit(TransactionManager.Transaction transaction) {
+        TransactionManager.commit(transaction);
+    }
+
+    /**
+     * Removes an equipment and rewrites the equipment file.
+     * The rewrite bypasses the transaction log, so it runs through
+     * {@link TransactionManager#writeOutsideLog}.
+     *
+     * @param equipment The equipment to remove.
+     */
+    public static synchronized void removeEquipment(Equipment equipment) {
+        ensureLoaded();
+        EquipmentDataProcessor.getEquipments().remove(equipment);
+        EquipmentDataProcessor.getRegistry().unregister(equipment);
+        equipmentByID.remove(equipment.getId());
+        statusIndex.remove(equipment);
+        searchIndex.remove(equipment);
+        TransactionManager.writeOutsideLog(() -> EquipmentDataWriter.saveAllEquipment(EquipmentDataProcessor.getEquipments()));
+    }
+
+    /**
+     * Adds a new lending record and appends it to the file in its own transaction.
+     *
+     * @param record The lending record to add.
+     */
+    public static void addLendingRecord(LendingRecord record) {
+        TransactionManager.Transaction transaction = beginTransaction();
+        addLendingRecord(record, transaction);
+        commit(transaction);
+    }
+
+    /**
+     * Adds a new lending record in memory and adds it to a transaction, which saves it.
+     *
+     * @param record      The lending record to add.
+     * @param transaction The transaction that saves the record.
+     */
+    public static synchronized void addLendingRecord(LendingRecord record, TransactionManager.Transaction transaction) {
+        ensureLoaded();
+        LendingRecordProcessor.getLendingRecords().add(record);
+        LendingRecordProcessor.getRegistry().register(record);
+        relationIndex.add(record);
+        transaction.putLendingRecord(record);
+    }
+
+    /**
+     * Adds several new lending records and appends them to the file with one write,
+     * in their own transaction.
+     *
+     * @param records The lending records to add.
+     */
+    public static void addLendingRecords(List<LendingRecord> records) {
+        TransactionManager.Transaction transaction = beginTransaction();
+        addLendingRecords(records, transaction);
+        commit(transaction);
+    }
+
+    /**
+     * Adds several new lending records in memory and adds them to a transaction, which
+     * appends them with one write.
+     *
+     * @param records     The lending records to add.
+     * @param transaction The transaction that saves the records.
+     */
+    public static synchronized void addLendingRecords(List<LendingRecord> records, TransactionManager.Transaction transaction) {
+        indexLendingRecords(records);
+        for (LendingRecord record : records) {
+            transaction.putLendingRecord(record);
+        }
+    }
+
+    /**
+     * Adds lending records to memory and the indexes without saving them, for a bulk import
+     * that has already committed them.
+     *
+     * @param records The lending records to add.
+     */
+    static synchronized void indexLendingRecords(List<LendingRecord> records) {
+        ensureLoaded();
+        LendingRecordProcessor.getLendingRecords().addAll(records);
+        for (LendingRecord record : records) {
+            LendingRecordProcessor.getRegistry().register(record);
+            relationIndex.add(record);
+        }
+    }
+
+    /**
+     * Adds equipment to memory and the indexes without saving them, for a bulk import
+     * that writes the file itself.
+     *
+     * @param equipments The equipment to add.
+     */
+    public static synchronized void indexEquipments(List<Equipment> equipments) {
+        ensureLoaded();
+        EquipmentDataProcessor.getEquipments().addAll(equipments);
+        for (Equipment equipment : equipments) {
+            EquipmentDataProcessor.getRegistry().register(equipment);
+            equipmentByID.put(equipment.getId(), equipment);
+            statusIndex.add(equipment);
+            searchIndex.add(equipment);
+        }
+    }
+
+    /**
+     * Adds students to memory without saving them, for a bulk import that writes the file itself.
+     * Call {@link #refreshBorrowers()} once all people have been added.
+     *
+     * @param students The students to add.
+     */
+    public static synchronized void indexStudents(List<Student> students) {
+        ensureLoaded();
+        StudentDataProcessor.getStudents().addAll(students);
+        for (Student student : students) {
+            StudentDataProcessor.getRegistry().register(student);
+        }
+    }
+
+    /**
+     * Adds academics and professionals to memory without saving them, for a bulk import that
+     * writes the file itself. Call {@link #refreshBorrowers()} once all people have been added.
+     *
+     * @param staff The staff members to add.
+     */
+    public static synchronized void indexStaff(List<? extends Staff> staff) {
+        ensureLoaded();
+        for (Staff member : staff) {
+            if (member instanceof Academic) {
+                StaffDataProcessor.getAcademics().add((Academic) member);
+                StaffDataProcessor.getAcademicRegistry().register((Academic) member);
+            } else if (member instanceof Professional) {
+                StaffDataProcessor.getProfessionals().add((Professional) member);
+                StaffDataProcessor.getProfessionalRegistry().register((Professional) member);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the borrower registry, so students and staff added since it was built can be found.
+     */
+    public static synchronized void refreshBorrowers() {
+        ensureLoaded();
+        borrowers = new BorrowerRegistry(StudentDataProcessor.getStudents(),
+                StaffDataProcessor.getAcademics(), StaffDataProcessor.getProfessionals());
+    }
+
+    /**
+     * Saves a lending record that was changed in memory, in its own transaction,
+     * and re-indexes its student and supervisor.
+     *
+     * @param record The updated lending record.
+     */
+    public static void updateLendingRecord(LendingRecord record) {
+        updateLendingRecords(List.of(record));
+    }
+
+    /**
+     * Saves several lending records that were changed in memory with one grouped write,
+     * in their own transaction, and re-indexes their students and supervisors.
+     *
+     * @param records The updated lending records.
+     */
+    public static void updateLendingRecords(List<LendingRecord> records) {
+        TransactionManager.Transaction transaction = beginTransaction();
+        updateLendingRecords(records, transaction);
+        commit(transaction);
+    }
+
+    /**
+     * Re-indexes lending records that were changed in memory and adds them to a transaction,
+     * which saves them.
+     *
+     * @param records     The updated lending records.
+     * @param transaction The transaction that saves the records.
+     */
+    public static void updateLendingRecords(List<LendingRecord> records, TransactionManager.Transaction transaction) {
+        ensureLoaded();
+        for (LendingRecord record : records) {
+            relationIndex.update(record);
+            transaction.putLendingRecord(record);
+        }
+    }
+
+    /**
+     * Removes a lending record from memory and from the file, in its own transaction.
+     *
+     * @param record The lending record to remove.
+     */
+    public static void removeLendingRecord(LendingRecord record) {
+        TransactionManager.Transaction transaction = beginTransaction();
+        removeLendingRecord(record, transaction);
+        commit(transaction);
+    }
+
+    /**
+     * Removes a lending record from memory and adds its deletion to a transaction.
+     *
+     * @param record      The lending record to remove.
+     * @param transaction The transaction that deletes the record from the file.
+     */
+    public static synchronized void removeLendingRecord(LendingRecord record, TransactionManager.Transaction transaction) {
+        ensureLoaded();
+        LendingRecordProcessor.getLendingRecords().remove(record);
+        LendingRecordProcessor.getRegistry().unregister(record);
+        relationIndex.remove(record);
+        transaction.deleteLendingRecord(record.getRecordID());
+    }
+}
@@ -0,0 +1,114 @@
+package helper;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Identity map that keeps one canonical object per ID.
+ * When data is loaded again, objects that already exist are updated in place instead of
+ * being replaced, so every list, index and lending record keeps pointing at the same
+ * object and sees the same state.
+ *
+ * @param <T> The type of the objects.
+ */
+public class EntityRegistry<T> {
+    private final Map<String, T> entities = new ConcurrentHashMap<>(); // Canonical object by ID
+    private final Function<? super T, String> idOf;          // Gets the ID of an object
+    private final BiConsumer<? super T, ? super T> update;   // Copies a loaded object into the canonical one
+
+    /**
+     * Creates an empty registry.
+     *
+     * @param idOf   Gets the ID of an object.
+     * @param update Copies the fields of a freshly loaded object (second argument) into the
+     *               canonical object with the same ID (first argument).
+     */
+    public EntityRegistry(Function<? super T, String> idOf, BiConsumer<? super T, ? super T> update) {
+        this.idOf = idOf;
+        this.update = update;
+    }
+
+    /**
+     * Gets the canonical object for a loaded object.
+     * The loaded object becomes canonical if its ID is new; otherwise the existing object is
+     * updated from it and returned.
+     *
+     * @param loaded The loaded object.
+     * @return The canonical object with the same ID.
+     */
+    public T intern(T loaded) {
+        T existing = entities.putIfAbsent(idOf.apply(loaded), loaded);
+        if (existing == null || existing == loaded) {
+            return loaded;
+        }
+        update.accept(existing, loaded);
+        return existing;
+    }
+
+    /**
+     * Replaces every object of a freshly loaded list with its canonical object and forgets
+     * the objects that are no longer in the list. If an ID appears more than once, only the
+     * first one is kept.
+     *
+     * @param loaded The loaded list, changed in place.
+     */
+    public void internAll(List<T> loaded) {
+        Set<String> ids = new HashSet<>(loaded.size() * 4 / 3 + 1);
+        List<T> canonical = new ArrayList<>(loaded.size());
+        for (T item : loaded) {
+            String id = idOf.apply(item);
+            if (!ids.add(id)) {
+                System.err.println("Duplicate ID ignored: " + id);
+                continue;
+            }
+            canonical.add(intern(item));
+        }
+        loaded.clear();
+        loaded.addAll(canonical);
+        entities.keySet().retainAll(ids);
+    }
+
+    /**
+     * Gets the canonical object of an object that may come from another load.
+     *
+     * @param entity The object, or null.
+     * @return The canonical object with the same ID, or the object itself if it has none.
+     */
+    public T canonical(T entity) {
+        if (entity == null) {
+            return null;
+        }
+        T existing = entities.get(idOf.apply(entity));
+        return existing != null ? existing : entity;
+    }
+
+    /**
+     * Finds the canonical object with an ID.
+     *
+     * @param id The ID.
+     * @return The object, or null if not found.
+     */
+    public T get(String id) {
+        return entities.get(id);
+    }
+
+    // Make a new object canonical, for example one the user has just added
+    public void register(T entity) {
+        entities.put(idOf.apply(entity), entity);
+    }
+
+    // Forget an object that was removed
+    public void unregister(T entity) {
+        entities.remove(idOf.apply(entity), entity);
+    }
+
+    // Get the number of canonical objects
+    public int size() {
+        return entities.size();
+    }
+}
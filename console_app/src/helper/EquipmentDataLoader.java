@@ -1,14 +1,16 @@
 package helper;
 
-import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 
 /**
  * @author Luong Thi Tra My - s3987023
  * @version 1.0
  * <p>
  * Handles loading equipment data from a file.
+ * Changes recorded in the equipment journal are applied on top of the file.
  */
 public class EquipmentDataLoader {
     private static final String FILE_PATH = "console_app/database/equipment.txt"; // Path to equipment data file
@@ -18,13 +20,14 @@ public class EquipmentDataLoader {
      */
     public static void loadEquipment() {
         EquipmentDataProcessor.getEquipments().clear();
-        try (BufferedReader br = new BufferedReader(new FileReader(FILE_PATH))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                EquipmentDataProcessor.processEquipmentRecord(line); // Delegates processing
-            }
+        try (Reader reader = new FileReader(FILE_PATH, StandardCharsets.UTF_8)) {
+            CsvFieldTokenizer.forEachLine(reader, EquipmentDataProcessor::processEquipmentRecord); // Delegates processing
         } catch (IOException e) {
             System.err.println("Error reading staff data file: " + e.getMessage());
         }
+
+        // Apply status and condition changes that are not compacted into the file yet
+        EquipmentJournal.replay(EquipmentDataProcessor.getEquipments());
+        EquipmentDataProcessor.canonicalize(); // Reuse the equipment already in memory
     }
 }
@@ -1,11 +1,11 @@
 package helper;
 
 import model.Equipment;
-import utils.DateUtils;
 
 import java.util.ArrayList;
-import java.util.Date;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * @Author: Luong Thi Tra My - s3987023
@@ -15,55 +15,83 @@ import java.util.List;
  */
 public class EquipmentDataProcessor {
     private static final List<Equipment> equipments = new ArrayList<>(); // List to store equipment data
+    // One Equipment object per ID; reloads update it in place, which also keeps the status index current
+    private static final EntityRegistry<Equipment> registry = new EntityRegistry<>(Equipment::getId, (current, loaded) -> {
+        if (!Objects.equals(current.getName(), loaded.getName())) {
+            current.setName(loaded.getName());
+        }
+        if (!Objects.equals(current.getPurchasedDate(), loaded.getPurchasedDate())) {
+            current.setPurchasedDate(loaded.getPurchasedDate());
+        }
+        current.setStatus(loaded.getStatus());
+        current.setCondition(loaded.getCondition());
+    });
 
     /**
      * Processes a single line of equipment data and adds it to the list.
      *
      * @param line A comma-separated string containing equipment details.
      */
-    public static void processEquipmentRecord(String line) {
-        line = line.trim(); // Remove leading/trailing spaces
+    public static void processEquipmentRecord(CharSequence line) {
+        processEquipmentRecord(CsvFieldTokenizer.forLine(line));
+    }
 
+    /**
+     * Processes a line of equipment data that is already split into fields.
+     *
+     * @param data The fields of the line.
+     */
+    public static void processEquipmentRecord(CsvFieldTokenizer data) {
         // Skip blank lines
-        if (line.isEmpty()) {
+        if (data.isBlank()) {
             return;
         }
 
-        String[] data = line.split(",");
-
-        // Check if the line has the expected number of fields
-        if (data.length != 5) {
-            System.err.println("Invalid data format: " + line);
-            return;
-        }
-
-        // Extract and trim values
-        String id = data[0].trim();
-        String name = data[1].trim();
-        String status = data[2].trim();
-        String condition = data[4].trim();
-
         try {
-            // Parse date safely
-            Date purchasedDate = DateUtils.parseDate(data[3].trim());
-
-            // If parsing succeeds, add the equipment
-            addEquipment(id, name, status, purchasedDate, condition);
-        } catch (Exception e) {
-            System.err.println("Error parsing date in record: " + line);
-            e.printStackTrace(); // Print error details for debugging
+            equipments.add(toEquipment(data));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
         }
     }
 
     /**
-     * Adds an equipment to the list.
+     * Builds an equipment from a line without adding it to the list.
+     * Does not touch shared state, so lines can be parsed on several threads.
+     *
+     * @param data The fields of a non-blank line.
+     * @return The equipment.
+     * @throws IllegalArgumentException if the line does not have the expected fields.
      */
-    private static void addEquipment(String id, String name, String status, Date purchasedDate, String condition) {
-        equipments.add(new Equipment(id, name, status, purchasedDate, condition));
+    public static Equipment toEquipment(CsvFieldTokenizer data) {
+        // Check if the line has the expected number of fields
+        if (data.count() != 5) {
+            throw new IllegalArgumentException("Invalid data format: " + data.line());
+        }
+
+        // Extract trimmed values, sharing the repeated status and condition values
+        String id = data.field(0);
+        String name = data.field(1);
+        String status = data.pooled(2);
+        LocalDate purchasedDate = data.date(3);
+        String condition = data.pooled(4);
+        return new Equipment(id, name, status, purchasedDate, condition);
     }
 
     // Get a list of equipment
     public static List<Equipment> getEquipments() {
         return equipments;
     }
+
+    // Get the registry of canonical equipment
+    public static EntityRegistry<Equipment> getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Replaces the loaded equipment with their canonical objects, so a reload updates
+     * the equipment already in use instead of creating copies of them.
+     */
+    public static void canonicalize() {
+        registry.internAll(equipments);
+    }
 }
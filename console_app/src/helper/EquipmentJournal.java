@@ -0,0 +1,415 @@
+package helper;
+
+import model.Equipment;
+import utils.LatencyHistogram;
+import utils.Metrics;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Append-only journal for equipment status and condition changes.
+ * Each change is appended to equipment.log instead of rewriting equipment.txt,
+ * so the cost of a change does not depend on the size of the inventory.
+ * Appends are flushed and fsynced in a batch by {@link #sync()}, and the log is
+ * folded into the equipment.txt snapshot by a background compaction.
+ * <p>
+ * Log line format: equipmentID, field, value (field is "status" or "condition").
+ */
+public class EquipmentJournal {
+    private static final String SNAPSHOT_PATH = "console_app/database/equipment.txt"; // Compacted snapshot
+    private static final String LOG_PATH = "console_app/database/equipment.log"; // Active log
+    private static final String COMPACTING_PATH = "console_app/database/equipment.log.compacting"; // Log being folded
+    private static final int COMPACTION_THRESHOLD = 10000; // Number of log entries before compaction starts
+
+    public static final String FIELD_STATUS = "status";
+    public static final String FIELD_CONDITION = "condition";
+
+    private static final LongAdder bytesRead = Metrics.counter("io.equipmentJournal.bytesRead");
+    private static final LongAdder bytesWritten = Metrics.counter("io.equipmentJournal.bytesWritten");
+    private static final LongAdder ioErrors = Metrics.counter("io.equipmentJournal.errors");
+    private static final LatencyHistogram syncLatency = Metrics.histogram("io.equipmentJournal.sync");
+    private static final Object SNAPSHOT_LOCK = new Object(); // Guards every write of the snapshot file
+    private static final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "equipment-journal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static FileOutputStream logStream; // Underlying stream, used for fsync
+    private static BufferedWriter logWriter;   // Buffered appends, flushed on sync
+    private static int entryCount = -1;        // Entries in the active log, -1 until counted
+    private static boolean dirty = false;      // True when appends are waiting for a sync
+    private static boolean compacting = false; // True while a background compaction is running
+
+    static {
+        // Make sure buffered changes reach the disk when the program exits
+        Runtime.getRuntime().addShutdownHook(new Thread(EquipmentJournal::sync, "equipment-journal-sync"));
+    }
+
+    /**
+     * Appends a status change to the journal.
+     *
+     * @param equipmentID The ID of the equipment.
+     * @param newStatus   The new status.
+     * @throws IOException if the change could not be written.
+     */
+    public static void appendStatus(String equipmentID, String newStatus) throws IOException {
+        append(equipmentID, FIELD_STATUS, newStatus);
+    }
+
+    /**
+     * Appends a condition change to the journal.
+     *
+     * @param equipmentID  The ID of the equipment.
+     * @param newCondition The new condition.
+     * @throws IOException if the change could not be written.
+     */
+    public static void appendCondition(String equipmentID, String newCondition) throws IOException {
+        append(equipmentID, FIELD_CONDITION, newCondition);
+    }
+
+    /**
+     * Appends a single change to the active log.
+     * The change is buffered until {@link #sync()} is called.
+     */
+    private static synchronized void append(String equipmentID, String field, String value) throws IOException {
+        try {
+            openLog();
+            String entry = equipmentID + ", " + field + ", " + value.trim();
+            logWriter.write(entry);
+            logWriter.newLine();
+            bytesWritten.add(entry.length() + 1); // Entries are plain ASCII
+            entryCount++;
+            dirty = true;
+        } catch (IOException e) {
+            ioErrors.increment();
+            throw e;
+        }
+
+        if (entryCount >= COMPACTION_THRESHOLD && !compacting) {
+            startCompaction();
+        }
+    }
+
+    /**
+     * Flushes buffered changes and fsyncs the log once for the whole batch.
+     *
+     * @return true if every change is on the disk.
+     */
+    public static synchronized boolean sync() {
+        if (!dirty || logWriter == null) {
+            return true;
+        }
+        long start = System.nanoTime();
+        try {
+            logWriter.flush();
+            logStream.getChannel().force(false);
+            dirty = false;
+            syncLatency.record(System.nanoTime() - start);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error syncing equipment journal: " + e.getMessage());
+            ioErrors.increment();
+            return false;
+        }
+    }
+
+    /**
+     * Applies the journaled changes to equipment loaded from the snapshot.
+     *
+     * @param equipmentList Equipment loaded from equipment.txt.
+     */
+    public static void replay(List<Equipment> equipmentList) {
+        Map<String, Equipment> equipmentMap = new HashMap<>();
+        for (Equipment equipment : equipmentList) {
+            equipmentMap.put(equipment.getId(), equipment);
+        }
+
+        synchronized (SNAPSHOT_LOCK) {
+            sync();
+            // A compaction that did not finish leaves its log behind, which is older than the active log
+            replayFile(COMPACTING_PATH, equipmentMap);
+            replayFile(LOG_PATH, equipmentMap);
+        }
+    }
+
+    /**
+     * Writes a full snapshot of the given equipment and discards the journal,
+     * since the snapshot already contains every change.
+     *
+     * @param equipmentList The complete list of equipment.
+     */
+    public static void writeSnapshot(List<Equipment> equipmentList) {
+        synchronized (SNAPSHOT_LOCK) {
+            List<String> lines = new ArrayList<>();
+            for (Equipment equipment : equipmentList) {
+                lines.add(EquipmentDataWriter.formatEquipment(equipment));
+            }
+            try {
+                writeLinesAtomically(lines);
+                resetLog();
+                Files.deleteIfExists(Paths.get(COMPACTING_PATH));
+            } catch (IOException e) {
+                System.err.println("Error saving all equipment: " + e.getMessage());
+                ioErrors.increment();
+            }
+        }
+    }
+
+    /**
+     * Appends a new equipment line to the snapshot.
+     *
+     * @param line The formatted equipment line.
+     */
+    public static void appendToSnapshot(String line) {
+        appendAllToSnapshot(List.of(line));
+    }
+
+    /**
+     * Appends several new equipment lines to the snapshot with a single open of the file.
+     *
+     * @param lines The formatted equipment lines, in order.
+     */
+    public static void appendAllToSnapshot(List<String> lines) {
+        synchronized (SNAPSHOT_LOCK) {
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(SNAPSHOT_PATH, StandardCharsets.UTF_8, true))) {
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.newLine();
+                    bytesWritten.add(line.length() + 1);
+                }
+            } catch (IOException e) {
+                System.err.println("Error saving equipment: " + e.getMessage());
+                ioErrors.increment();
+            }
+        }
+    }
+
+    /**
+     * Rotates the active log and folds it into the snapshot on the compactor thread.
+     */
+    private static synchronized void startCompaction() {
+        compacting = true;
+        compactor.submit(() -> {
+            try {
+                compact();
+            } finally {
+                synchronized (EquipmentJournal.class) {
+                    compacting = false;
+                }
+            }
+        });
+    }
+
+    /**
+     * Folds the journal into equipment.txt.
+     * The active log is renamed first, so new changes keep being appended while the
+     * snapshot is rewritten. The snapshot is replaced through a rename, so a crash
+     * leaves either the old snapshot with its log or the new snapshot.
+     */
+    public static void compact() {
+        synchronized (SNAPSHOT_LOCK) {
+            try {
+                rotateLog();
+                bytesRead.add(Files.size(Paths.get(SNAPSHOT_PATH)) + Files.size(Paths.get(COMPACTING_PATH)));
+
+                // Read the current snapshot, keeping the original line order
+                Map<String, String[]> rows = new LinkedHashMap<>();
+                List<String> otherLines = new ArrayList<>();
+                try (BufferedReader br = new BufferedReader(new FileReader(SNAPSHOT_PATH, StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = br.readLine()) != null) {
+                        String[] data = line.split(",");
+                        if (data.length == 5) {
+                            for (int i = 0; i < data.length; i++) {
+                                data[i] = data[i].trim();
+                            }
+                            rows.put(data[0], data);
+                        } else if (!line.trim().isEmpty()) {
+                            otherLines.add(line); // Keep lines the loader will report as invalid
+                        }
+                    }
+                }
+
+                // Apply the rotated log on top of the snapshot
+                try (BufferedReader br = new BufferedReader(new FileReader(COMPACTING_PATH, StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = br.readLine()) != null) {
+                        String[] entry = parseEntry(line);
+                        if (entry != null && rows.containsKey(entry[0])) {
+                            rows.get(entry[0])[FIELD_STATUS.equals(entry[1]) ? 2 : 4] = entry[2];
+                        }
+                    }
+                }
+
+                List<String> lines = new ArrayList<>();
+                for (String[] data : rows.values()) {
+                    lines.add(String.join(", ", data));
+                }
+                lines.addAll(otherLines);
+                writeLinesAtomically(lines);
+                Files.deleteIfExists(Paths.get(COMPACTING_PATH));
+            } catch (IOException e) {
+                System.err.println("Error compacting equipment journal: " + e.getMessage());
+                ioErrors.increment();
+            }
+        }
+    }
+
+    /**
+     * Closes the active log and renames it so it can be folded into the snapshot.
+     * A left-over file from an interrupted compaction is merged in front of it.
+     */
+    private static synchronized void rotateLog() throws IOException {
+        sync();
+        closeLog();
+        Path log = Paths.get(LOG_PATH);
+        Path rotated = Paths.get(COMPACTING_PATH);
+        if (Files.exists(rotated)) {
+            if (Files.exists(log)) {
+                Files.write(rotated, Files.readAllBytes(log), StandardOpenOption.APPEND);
+                Files.delete(log);
+            }
+        } else if (Files.exists(log)) {
+            Files.move(log, rotated, StandardCopyOption.ATOMIC_MOVE);
+        } else {
+            Files.createFile(rotated);
+        }
+        entryCount = 0;
+    }
+
+    /**
+     * Discards every entry in the active log.
+     */
+    private static synchronized void resetLog() throws IOException {
+        closeLog();
+        Files.deleteIfExists(Paths.get(LOG_PATH));
+        entryCount = 0;
+        dirty = false;
+    }
+
+    /**
+     * Opens the active log in append mode if it is not open yet.
+     */
+    private static void openLog() throws IOException {
+        if (logWriter != null) {
+            return;
+        }
+        if (entryCount < 0) {
+            entryCount = countEntries(LOG_PATH);
+        }
+        logStream = new FileOutputStream(LOG_PATH, true);
+        logWriter = new BufferedWriter(new OutputStreamWriter(logStream, StandardCharsets.UTF_8));
+    }
+
+    private static void closeLog() throws IOException {
+        if (logWriter != null) {
+            logWriter.close();
+            logWriter = null;
+            logStream = null;
+        }
+    }
+
+    /**
+     * Applies every entry of a log file to the matching equipment.
+     */
+    private static void replayFile(String path, Map<String, Equipment> equipmentMap) {
+        if (!Files.exists(Paths.get(path))) {
+            return;
+        }
+        try (BufferedReader br = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            bytesRead.add(Files.size(Paths.get(path)));
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] entry = parseEntry(line);
+                if (entry == null) {
+                    continue;
+                }
+                Equipment equipment = equipmentMap.get(entry[0]);
+                if (equipment == null) {
+                    continue; // Equipment was removed after the change was logged
+                }
+                if (FIELD_STATUS.equals(entry[1])) {
+                    equipment.setStatus(entry[2]);
+                } else {
+                    equipment.setCondition(entry[2]);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading equipment journal: " + e.getMessage());
+            ioErrors.increment();
+        }
+    }
+
+    /**
+     * Splits a log line into ID, field and value.
+     *
+     * @return The three parts, or null if the line is blank or malformed (e.g. a torn write).
+     */
+    private static String[] parseEntry(String line) {
+        String[] entry = line.split(",");
+        if (entry.length != 3) {
+            return null;
+        }
+        for (int i = 0; i < entry.length; i++) {
+            entry[i] = entry[i].trim();
+        }
+        if (!FIELD_STATUS.equals(entry[1]) && !FIELD_CONDITION.equals(entry[1])) {
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Writes the snapshot to a temporary file and renames it over equipment.txt.
+     * The directory is fsynced after the rename, so the new snapshot is still there after a crash.
+     */
+    private static void writeLinesAtomically(List<String> lines) throws IOException {
+        Path snapshot = Paths.get(SNAPSHOT_PATH);
+        Path temp = Paths.get(SNAPSHOT_PATH + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp.toFile());
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+            writer.flush();
+            out.getChannel().force(true);
+        }
+        bytesWritten.add(Files.size(temp));
+        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(snapshot.toAbsolutePath().getParent());
+    }
+
+    // Fsync a directory, so a rename in it is on the disk
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Some platforms, such as Windows, cannot open a directory; the rename is flushed by the file system
+        }
+    }
+
+    private static int countEntries(String path) throws IOException {
+        if (!Files.exists(Paths.get(path))) {
+            return 0;
+        }
+        int count = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(path, StandardCharsets.UTF_8))) {
+            while (br.readLine() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,261 @@
+package helper;
+
+import model.Equipment;
+import model.LendingRecord;
+import utils.Metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Issues new equipment and lending record IDs from high-water marks saved in
+ * id_sequences.txt, so an ID costs one small file update instead of a scan of every
+ * existing ID. The file is locked while a mark is raised, so terminals running at the
+ * same time never get the same ID. A sequence that is not in the file yet starts after
+ * the highest ID already in the data.
+ * <p>
+ * IDs are the prefix followed by the number with at least three digits, so EQ099 is
+ * followed by EQ100 and L999 by L1000.
+ * <p>
+ * File line format: sequence, last issued number.
+ */
+public class IdAllocator {
+    private static final String FILE_PATH = "console_app/database/id_sequences.txt";
+    private static final int MIN_DIGITS = 3; // Numbers are zero-padded to this width
+
+    private static final LongAdder bytesRead = Metrics.counter("io.idAllocator.bytesRead");
+    private static final LongAdder bytesWritten = Metrics.counter("io.idAllocator.bytesWritten");
+    private static final LongAdder ioErrors = Metrics.counter("io.idAllocator.errors");
+    private static final Map<Sequence, Long> fallbackMarks = new EnumMap<>(Sequence.class); // Marks used while the file fails
+
+    /**
+     * The ID sequences, with the prefix of their IDs.
+     */
+    public enum Sequence {
+        EQUIPMENT("equipment", "EQ"),
+        LENDING_RECORD("lending_record", "L");
+
+        private final String key;    // Name of the sequence in the file
+        private final String prefix; // Prefix of every ID of the sequence
+
+        Sequence(String key, String prefix) {
+            this.key = key;
+            this.prefix = prefix;
+        }
+
+        public String getPrefix() {
+            return prefix;
+        }
+
+        // Get the IDs already in the data
+        private List<String> existingIds() {
+            List<String> ids = new ArrayList<>();
+            if (this == EQUIPMENT) {
+                for (Equipment equipment : DataRepository.getEquipments()) {
+                    ids.add(equipment.getId());
+                }
+            } else {
+                for (LendingRecord record : DataRepository.snapshotLendingRecords()) {
+                    ids.add(record.getRecordID());
+                }
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * A range of IDs reserved in one go, handed out one at a time without touching the file.
+     */
+    public static class Block {
+        private final Sequence sequence;
+        private long next;      // Next number to hand out
+        private final long end; // First number after the block
+
+        private Block(Sequence sequence, long first, int count) {
+            this.sequence = sequence;
+            this.next = first;
+            this.end = first + count;
+        }
+
+        // Check whether the block still has IDs
+        public boolean hasNext() {
+            return next < end;
+        }
+
+        /**
+         * Hands out the next ID of the block.
+         *
+         * @return The ID.
+         * @throws NoSuchElementException if every ID of the block has been handed out.
+         */
+        public String next() {
+            if (next >= end) {
+                throw new NoSuchElementException("ID block of " + sequence.key + " is used up");
+            }
+            return format(sequence, next++);
+        }
+
+        // Get the number of IDs left
+        public long remaining() {
+            return end - next;
+        }
+    }
+
+    /**
+     * Issues the next ID of a sequence.
+     *
+     * @param sequence The sequence.
+     * @return The new ID.
+     */
+    public static String next(Sequence sequence) {
+        return reserve(sequence, 1).next();
+    }
+
+    /**
+     * Reserves a block of consecutive IDs, for example for a bulk import.
+     *
+     * @param sequence The sequence.
+     * @param count    The number of IDs to reserve, at least 1.
+     * @return The reserved block.
+     */
+    public static Block reserve(Sequence sequence, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Cannot reserve " + count + " IDs");
+        }
+        return new Block(sequence, advance(sequence, mark -> mark + count) - count + 1, count);
+    }
+
+    /**
+     * Makes sure the IDs issued from now on come after a number, for example after
+     * IDs were imported from another system.
+     *
+     * @param sequence The sequence.
+     * @param number   The highest number in use.
+     */
+    public static void raiseTo(Sequence sequence, long number) {
+        advance(sequence, mark -> Math.max(mark, number));
+    }
+
+    /**
+     * Formats a number of a sequence as an ID, e.g. 7 as EQ007 and 1234 as EQ1234.
+     *
+     * @param sequence The sequence.
+     * @param number   The number.
+     * @return The ID.
+     */
+    public static String format(Sequence sequence, long number) {
+        String digits = Long.toString(number);
+        StringBuilder id = new StringBuilder(sequence.prefix.length() + Math.max(MIN_DIGITS, digits.length()));
+        id.append(sequence.prefix);
+        for (int i = digits.length(); i < MIN_DIGITS; i++) {
+            id.append('0');
+        }
+        return id.append(digits).toString();
+    }
+
+    /**
+     * Gets the number of an ID of a sequence.
+     *
+     * @param sequence The sequence.
+     * @param id       The ID.
+     * @return The number, or -1 if the ID does not belong to the sequence.
+     */
+    public static long parse(Sequence sequence, String id) {
+        if (id == null || !id.startsWith(sequence.prefix) || id.length() == sequence.prefix.length()
+                || id.length() - sequence.prefix.length() > 18) {
+            return -1;
+        }
+        long number = 0;
+        for (int i = sequence.prefix.length(); i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+
+    /**
+     * Raises the high-water mark of a sequence while holding the file lock.
+     * If the file cannot be used, the mark is kept in memory, starting from the data.
+     *
+     * @param raise Computes the new mark from the current one.
+     * @return The new high-water mark, the last number reserved.
+     */
+    private static synchronized long advance(Sequence sequence, LongUnaryOperator raise) {
+        Path path = Paths.get(FILE_PATH);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock(); // Other processes wait here until the mark is written
+            try {
+                Map<String, Long> marks = read(channel);
+                Long mark = marks.get(sequence.key);
+                long last = raise.applyAsLong(mark != null ? mark : highestExisting(sequence));
+                marks.put(sequence.key, last);
+                write(channel, marks);
+                return last;
+            } finally {
+                lock.release();
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error updating ID sequences: " + e.getMessage());
+            ioErrors.increment();
+            long last = raise.applyAsLong(Math.max(fallbackMarks.getOrDefault(sequence, 0L), highestExisting(sequence)));
+            fallbackMarks.put(sequence, last);
+            return last;
+        }
+    }
+
+    // Read every mark of the locked file
+    private static Map<String, Long> read(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+            // Keep reading until the buffer is full
+        }
+        bytesRead.add(buffer.position());
+        Map<String, Long> marks = new LinkedHashMap<>();
+        String content = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+        for (String line : content.split("\n")) {
+            String[] fields = line.split(",");
+            if (fields.length == 2 && !fields[0].isBlank()) {
+                marks.put(fields[0].trim(), Long.parseLong(fields[1].trim()));
+            }
+        }
+        return marks;
+    }
+
+    // Replace the content of the locked file with the marks and force it to disk
+    private static void write(FileChannel channel, Map<String, Long> marks) throws IOException {
+        StringBuilder content = new StringBuilder();
+        marks.forEach((key, last) -> content.append(key).append(", ").append(last).append('\n'));
+        ByteBuffer buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8));
+        channel.truncate(0);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, buffer.position());
+        }
+        channel.force(false);
+        bytesWritten.add(buffer.limit());
+    }
+
+    // Find the highest number of the sequence in the data, or 0 if it has none
+    private static long highestExisting(Sequence sequence) {
+        long highest = 0;
+        for (String id : sequence.existingIds()) {
+            highest = Math.max(highest, parse(sequence, id));
+        }
+        return highest;
+    }
+}
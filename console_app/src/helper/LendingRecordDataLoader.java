@@ -1,54 +1,170 @@
 package helper;
 
 import model.LendingRecord;
-import model.Student;
-import model.Academic;
-import model.Professional;
 import model.Equipment;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * @author Luong Thi Tra My - s3987023
  * @version 1.0
  * <p>
  * A helper class to load lending records from a file.
+ * A large file is cut into chunks that end on a line break, the chunks are parsed in
+ * parallel on the fork-join pool, and the results are joined back in file order.
  */
 public class LendingRecordDataLoader {
     private static final String FILE_PATH = "console_app/database/lending_records.txt";
+    private static final long CHUNK_SIZE = 4 * 1024 * 1024; // Bytes parsed by one task
+    private static final int SCAN_SIZE = 4 * 1024; // Bytes read at a time when looking for a line break
 
     /**
      * Loads lending records from the file and processes them.
+     * The maps are built once by the caller from the loaded students, staff and equipment.
+     *
+     * @param borrowers       The borrowers, looked up by ID.
+     * @param equipmentMap    A map of equipment IDs to Equipment objects.
      */
-    public static void loadLendingRecords() {
+    public static void loadLendingRecords(BorrowerRegistry borrowers, Map<String, Equipment> equipmentMap) {
         LendingRecordProcessor.getLendingRecords().clear(); // Clear existing records
 
-        // Get students, academics, professionals, and equipment
-        List<Student> students = StudentDataProcessor.getStudents();
-        List<Academic> academics = StaffDataProcessor.getAcademics();
-        List<Professional> professionals = StaffDataProcessor.getProfessionals();
-        List<Equipment> equipmentList = EquipmentDataProcessor.getEquipments();
-
-        // Create HashMaps for quick lookup
-        Map<String, Student> studentMap = new HashMap<>();
-        Map<String, Academic> academicMap = new HashMap<>();
-        Map<String, Professional> professionalMap = new HashMap<>();
-        Map<String, Equipment> equipmentMap = new HashMap<>();
-
-        for (Student s : students) studentMap.put(s.getBorrowerID(), s);
-        for (Academic a : academics) academicMap.put(a.getBorrowerID(), a);
-        for (Professional p : professionals) professionalMap.put(p.getBorrowerID(), p);
-        for (Equipment e : equipmentList) equipmentMap.put(e.getId(), e);
-
-        // Read lending records from the file and process them
-        try (BufferedReader br = new BufferedReader(new FileReader(FILE_PATH))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                LendingRecordProcessor.processLendingRecord(line, studentMap, academicMap, professionalMap, equipmentMap);
+        try (FileChannel channel = FileChannel.open(Paths.get(FILE_PATH), StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            // A small file is faster to read on this thread
+            if (size <= CHUNK_SIZE) {
+                try (Reader reader = new FileReader(FILE_PATH, StandardCharsets.UTF_8)) {
+                    CsvFieldTokenizer.forEachLine(reader, fields ->
+                            LendingRecordProcessor.processLendingRecord(fields, borrowers, equipmentMap));
+                }
+            } else {
+                long[] bounds = chunkBounds(channel, size);
+                ChunkTask task = new ChunkTask(channel, bounds, 0, bounds.length - 1,
+                        borrowers, equipmentMap);
+                LendingRecordProcessor.getLendingRecords().addAll(ForkJoinPool.commonPool().invoke(task));
             }
-        } catch (IOException e) {
+        } catch (IOException | UncheckedIOException e) {
             System.err.println("Error loading lending records: " + e.getMessage());
         }
+        LendingRecordProcessor.canonicalize(); // Reuse the records already in memory
+    }
+
+    /**
+     * Splits the file into chunks of about CHUNK_SIZE bytes, each ending just after a line break.
+     *
+     * @return The chunk start positions followed by the file size.
+     */
+    private static long[] chunkBounds(FileChannel channel, long size) throws IOException {
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer scan = ByteBuffer.allocate(SCAN_SIZE);
+        long position = CHUNK_SIZE;
+        while (position < size) {
+            long lineEnd = nextLineStart(channel, scan, position, size);
+            if (lineEnd >= size) {
+                break;
+            }
+            bounds.add(lineEnd);
+            position = lineEnd + CHUNK_SIZE;
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    // Find the position just after the next line break at or after the given position
+    private static long nextLineStart(FileChannel channel, ByteBuffer scan, long position, long size) throws IOException {
+        while (position < size) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Parses a range of chunks, splitting the range in half until a single chunk is left.
+     */
+    private static class ChunkTask extends RecursiveTask<List<LendingRecord>> {
+        private static final long serialVersionUID = 1L; // Never serialized; declared because ForkJoinTask is Serializable
+
+        private final FileChannel channel;
+        private final long[] bounds;
+        private final int first; // First chunk (inclusive)
+        private final int last; // Last chunk (exclusive)
+        private final BorrowerRegistry borrowers;
+        private final Map<String, Equipment> equipmentMap;
+
+        ChunkTask(FileChannel channel, long[] bounds, int first, int last,
+                  BorrowerRegistry borrowers, Map<String, Equipment> equipmentMap) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.first = first;
+            this.last = last;
+            this.borrowers = borrowers;
+            this.equipmentMap = equipmentMap;
+        }
+
+        @Override
+        protected List<LendingRecord> compute() {
+            if (last - first == 1) {
+                return parseChunk(bounds[first], bounds[last]);
+            }
+
+            // Parse the second half here while another worker takes the first half
+            int middle = (first + last) >>> 1;
+            ChunkTask left = new ChunkTask(channel, bounds, first, middle, borrowers, equipmentMap);
+            ChunkTask right = new ChunkTask(channel, bounds, middle, last, borrowers, equipmentMap);
+            left.fork();
+            List<LendingRecord> rightRecords = right.compute();
+            List<LendingRecord> records = left.join();
+            records.addAll(rightRecords); // Keep file order
+            return records;
+        }
+
+        private List<LendingRecord> parseChunk(long start, long end) {
+            List<LendingRecord> records = new ArrayList<>();
+            try {
+                ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+
+                // Replace bad bytes like the file reader does instead of failing the chunk
+                CharBuffer chars = StandardCharsets.UTF_8.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                        .decode(bytes);
+                CsvFieldTokenizer.forEachLine(chars, fields -> {
+                    LendingRecord record = LendingRecordProcessor.parseLendingRecord(
+                            fields, borrowers, equipmentMap);
+                    if (record != null) {
+                        records.add(record);
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return records;
+        }
     }
 }
@@ -6,13 +6,15 @@ import model.Academic;
 import model.Professional;
 import model.Equipment;
 import model.Borrower;
-import utils.DateUtils;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Date;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * @author Luong Thi Tra My - s3987023
@@ -21,105 +23,225 @@ import java.util.Map;
  * Processes lending record data and stores them in a list.
  */
 public class LendingRecordProcessor {
-    private static final List<LendingRecord> lendingRecords = new ArrayList<>();
+    private static final List<LendingRecord> lendingRecords = new RecordList();
+    // One LendingRecord object per record ID; reloads update it in place
+    private static final EntityRegistry<LendingRecord> registry = new EntityRegistry<>(LendingRecord::getRecordID, (current, loaded) -> {
+        current.setBorrower(loaded.getBorrower());
+        current.setEquipmentList(loaded.getEquipmentList());
+        current.setSupervisor(loaded.getSupervisor());
+        current.setBorrowDate(loaded.getBorrowDate());
+        current.setReturnDate(loaded.getReturnDate());
+        current.setStatus(loaded.getStatus());
+        current.setPurpose(loaded.getPurpose());
+    });
 
     /**
      * Processes a single line of lending record data and adds it to the list.
      *
      * @param line            A comma-separated string containing lending record details.
-     * @param studentMap      A map of student IDs to Student objects.
-     * @param academicMap     A map of academic IDs to Academic objects.
-     * @param professionalMap A map of professional IDs to Professional objects.
+     * @param borrowers       The borrowers, looked up by ID.
      * @param equipmentMap    A map of equipment IDs to Equipment objects.
      */
-    public static void processLendingRecord(String line,
-                                            Map<String, Student> studentMap,
-                                            Map<String, Academic> academicMap,
-                                            Map<String, Professional> professionalMap,
+    public static void processLendingRecord(CharSequence line,
+                                            BorrowerRegistry borrowers,
                                             Map<String, Equipment> equipmentMap) {
-        line = line.trim(); // Remove leading/trailing spaces
+        processLendingRecord(CsvFieldTokenizer.forLine(line), borrowers, equipmentMap);
+    }
 
-        // Skip blank lines
-        if (line.isEmpty()) {
-            return;
+    /**
+     * Processes a line of lending record data that is already split into fields.
+     *
+     * @param data            The fields of the line.
+     * @param borrowers       The borrowers, looked up by ID.
+     * @param equipmentMap    A map of equipment IDs to Equipment objects.
+     */
+    public static void processLendingRecord(CsvFieldTokenizer data,
+                                            BorrowerRegistry borrowers,
+                                            Map<String, Equipment> equipmentMap) {
+        LendingRecord record = parseLendingRecord(data, borrowers, equipmentMap);
+        if (record != null) {
+            lendingRecords.add(record);
         }
+    }
 
-        String[] data = line.split(",");
-        if (data.length != 8) {
-            System.err.println("Invalid data format: " + line);
-            return;
+    /**
+     * Builds a lending record from a line without adding it to the list.
+     * Invalid lines are reported the same way as in processLendingRecord.
+     * Does not touch shared state, so lines can be parsed on several threads.
+     *
+     * @param data            The fields of the line.
+     * @param borrowers       The borrowers, looked up by ID.
+     * @param equipmentMap    A map of equipment IDs to Equipment objects.
+     * @return The lending record, or null if the line is blank or invalid.
+     */
+    public static LendingRecord parseLendingRecord(CsvFieldTokenizer data,
+                                                   BorrowerRegistry borrowers,
+                                                   Map<String, Equipment> equipmentMap) {
+        // Skip blank lines
+        if (data.isBlank()) {
+            return null;
         }
+
         try {
-            String recordID = data[0].trim();
-            String borrowerID = data[1].trim();
-            String[] equipmentIDs = data[2].trim().split(";");
-            String supervisorID = data[3].trim().isEmpty() ? "-" : data[3].trim();
-            Date borrowDate = DateUtils.parseDate(data[4].trim());
-            Date returnDate = DateUtils.parseDate(data[5].trim());
-            String status = data[6].trim();
-            String purpose = data[7].trim();
-
-            Borrower borrower = findBorrower(borrowerID, studentMap, academicMap, professionalMap);
-            if (borrower == null) {
-                System.err.println("Borrower not found for ID: " + borrowerID);
-                return;
-            }
+            return toLendingRecord(data, borrowers, equipmentMap);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return null;
+        } catch (Exception e) {
+            System.err.println("Error processing lending record: " + data.line());
+            return null;
+        }
+    }
+
+    /**
+     * Builds a lending record from a line, resolving its borrower, supervisor and equipment.
+     * Equipment IDs that are not found are left out of the record.
+     * Does not touch shared state, so lines can be parsed on several threads.
+     *
+     * @param data            The fields of a non-blank line.
+     * @param borrowers       The borrowers, looked up by ID.
+     * @param equipmentMap    A map of equipment IDs to Equipment objects.
+     * @return The lending record.
+     * @throws IllegalArgumentException if the line does not have the expected fields, the borrower
+     *                                  is unknown or none of the equipment is found.
+     */
+    public static LendingRecord toLendingRecord(CsvFieldTokenizer data,
+                                                BorrowerRegistry borrowers,
+                                                Map<String, Equipment> equipmentMap) {
+        if (data.count() != 8) {
+            throw new IllegalArgumentException("Invalid data format: " + data.line());
+        }
+        String recordID = data.field(0);
+        String borrowerID = data.field(1);
+        boolean noSupervisor = data.isEmpty(3) || data.fieldEquals(3, "-");
+        LocalDate borrowDate = data.date(4);
+        LocalDate returnDate = data.date(5);
+        String status = data.pooled(6);
+        String purpose = data.field(7);
 
-            Academic supervisor = (borrower instanceof Student && !supervisorID.equals("-"))
-                    ? academicMap.get(supervisorID)
-                    : null;
+        Borrower borrower = borrowers.find(borrowerID);
+        if (borrower == null) {
+            throw new IllegalArgumentException("Borrower not found for ID: " + borrowerID);
+        }
 
-            List<Equipment> borrowedEquipment = findEquipment(equipmentIDs, equipmentMap);
-            if (borrowedEquipment.isEmpty()) {
-                System.err.println("No valid equipment found for record: " + recordID);
-                return;
-            }
+        Academic supervisor = (borrower instanceof Student && !noSupervisor)
+                ? borrowers.findAcademic(data.field(3))
+                : null;
 
-            addLendingRecord(recordID, borrower, borrowedEquipment, supervisor, borrowDate, returnDate, status, purpose);
-        } catch (Exception e) {
-            System.err.println("Error processing lending record: " + line);
+        List<Equipment> borrowedEquipment = findEquipment(data.split(2, ';'), equipmentMap);
+        if (borrowedEquipment.isEmpty()) {
+            throw new IllegalArgumentException("No valid equipment found for record: " + recordID);
         }
+
+        return new LendingRecord(recordID, borrower, borrowedEquipment, supervisor, borrowDate, returnDate, status, purpose);
     }
 
     /**
-     * Adds a lending record to the list.
+     * Finds equipment by the IDs in a split field.
      */
-    private static void addLendingRecord(String recordID, Borrower borrower, List<Equipment> equipmentList,
-                                         Academic supervisor, Date borrowDate, Date returnDate,
-                                         String status, String purpose) {
-        lendingRecords.add(new LendingRecord(recordID, borrower, equipmentList, supervisor, borrowDate, returnDate, status, purpose));
+    public static List<Equipment> findEquipment(CsvFieldTokenizer ids, Map<String, Equipment> equipmentMap) {
+        List<Equipment> foundEquipment = new ArrayList<>(ids.count());
+        for (int i = 0; i < ids.count(); i++) {
+            Equipment equipment = equipmentMap.get(ids.field(i));
+            if (equipment != null) {
+                foundEquipment.add(equipment);
+            }
+        }
+        return foundEquipment;
     }
 
     /**
-     * Finds a borrower by ID.
+     * Returns the list of lending records.
+     * The list is kept by record ID, so finding and removing a record does not scan it, but
+     * getting a record by position walks the list; iterate it or copy it for random access.
      */
-    public static Borrower findBorrower(String id,
-                                        Map<String, Student> studentMap,
-                                        Map<String, Academic> academicMap,
-                                        Map<String, Professional> professionalMap) {
-        if (studentMap.containsKey(id)) return studentMap.get(id);
-        if (academicMap.containsKey(id)) return academicMap.get(id);
-        if (professionalMap.containsKey(id)) return professionalMap.get(id);
-        return null;
+    public static List<LendingRecord> getLendingRecords() {
+        return lendingRecords;
+    }
+
+    // Get the registry of canonical lending records
+    public static EntityRegistry<LendingRecord> getRegistry() {
+        return registry;
     }
 
     /**
-     * Finds equipment by IDs.
+     * Points the loaded lending records at the canonical borrowers, supervisors and equipment,
+     * then replaces them with their canonical records.
+     * Call after the people and equipment have been canonicalized.
      */
-    public static List<Equipment> findEquipment(String[] ids, Map<String, Equipment> equipmentMap) {
-        List<Equipment> foundEquipment = new ArrayList<>();
-        for (String id : ids) {
-            if (equipmentMap.containsKey(id)) {
-                foundEquipment.add(equipmentMap.get(id));
+    public static void canonicalize() {
+        for (LendingRecord record : lendingRecords) {
+            Borrower borrower = record.getBorrower();
+            if (borrower instanceof Student) {
+                record.setBorrower(StudentDataProcessor.getRegistry().canonical((Student) borrower));
+            } else if (borrower instanceof Academic) {
+                record.setBorrower(StaffDataProcessor.getAcademicRegistry().canonical((Academic) borrower));
+            } else if (borrower instanceof Professional) {
+                record.setBorrower(StaffDataProcessor.getProfessionalRegistry().canonical((Professional) borrower));
             }
+            record.setSupervisor(StaffDataProcessor.getAcademicRegistry().canonical(record.getSupervisor()));
+            record.getEquipmentList().replaceAll(EquipmentDataProcessor.getRegistry()::canonical);
         }
-        return foundEquipment;
+        registry.internAll(lendingRecords);
     }
 
     /**
-     * Returns the list of lending records.
+     * The lending records in the order they were added, kept in a map by record ID.
+     * A record ID is only listed once; adding another record with the same ID is ignored.
      */
-    public static List<LendingRecord> getLendingRecords() {
-        return lendingRecords;
+    private static class RecordList extends AbstractList<LendingRecord> {
+        private final Map<String, LendingRecord> records = new LinkedHashMap<>();
+
+        @Override
+        public boolean add(LendingRecord record) {
+            if (records.putIfAbsent(record.getRecordID(), record) != null) {
+                System.err.println("Duplicate ID ignored: " + record.getRecordID());
+                return false;
+            }
+            modCount++;
+            return true;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof LendingRecord && records.containsKey(((LendingRecord) o).getRecordID());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!contains(o)) {
+                return false;
+            }
+            records.remove(((LendingRecord) o).getRecordID());
+            modCount++;
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            records.clear();
+            modCount++;
+        }
+
+        @Override
+        public Iterator<LendingRecord> iterator() {
+            return records.values().iterator();
+        }
+
+        // Walks the records up to the position
+        @Override
+        public LendingRecord get(int index) {
+            Objects.checkIndex(index, records.size());
+            Iterator<LendingRecord> iterator = records.values().iterator();
+            for (int i = 0; i < index; i++) {
+                iterator.next();
+            }
+            return iterator.next();
+        }
+
+        @Override
+        public int size() {
+            return records.size();
+        }
     }
 }
@@ -0,0 +1,422 @@
+package helper;
+
+import utils.Metrics;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Record-level storage for the lending records file.
+ * Keeps an index from record ID to the byte offset and length of its line (its slot),
+ * so a single record can be changed without rewriting the whole file:
+ * <ul>
+ *     <li>An update that fits in the old slot is written in place, padded with spaces.</li>
+ *     <li>A longer update blanks out the old slot (a tombstone) and appends the new line.</li>
+ *     <li>A delete blanks out the slot.</li>
+ * </ul>
+ * Tombstones are blank lines, which the loader already skips. When more than half of the
+ * file is tombstones, the file is compacted.
+ */
+public class LendingRecordStore {
+    private static final String FILE_PATH = "console_app/database/lending_records.txt"; // Path to lending records
+    private static final long COMPACTION_MIN_BYTES = 64 * 1024; // Do not compact small files
+
+    private static final LongAdder bytesRead = Metrics.counter("io.lendingRecordStore.bytesRead");
+    private static final LongAdder bytesWritten = Metrics.counter("io.lendingRecordStore.bytesWritten");
+    private static final LongAdder ioErrors = Metrics.counter("io.lendingRecordStore.errors");
+
+    private static Map<String, long[]> slots; // Record ID -> {offset, length}, null until the file is indexed
+    private static long fileLength;          // Current length of the file in bytes
+    private static long deadBytes;           // Bytes taken by tombstones
+    private static boolean endsWithNewline;  // False if the last line has no line break
+
+    /**
+     * Appends a new record line at the end of the file.
+     *
+     * @param recordID The ID of the record.
+     * @param line     The formatted record line.
+     */
+    public static synchronized void append(String recordID, String line) {
+        try (FileChannel channel = openChannel()) {
+            ensureIndex(channel);
+            appendLine(channel, recordID, line);
+        } catch (IOException e) {
+            System.err.println("Error saving lending record: " + e.getMessage());
+            ioErrors.increment();
+        }
+    }
+
+    /**
+     * Appends several record lines with a single write.
+     *
+     * @param lines Map of record ID to formatted record line, in the order to write.
+     */
+    public static synchronized void appendAll(LinkedHashMap<String, String> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        try (FileChannel channel = openChannel()) {
+            ensureIndex(channel);
+            StringBuilder block = new StringBuilder();
+            if (!endsWithNewline) {
+                block.append('\n');
+            }
+            long offset = fileLength + (endsWithNewline ? 0 : 1);
+            for (Map.Entry<String, String> entry : lines.entrySet()) {
+                int length = entry.getValue().getBytes(StandardCharsets.UTF_8).length;
+                putSlot(entry.getKey(), offset, length);
+                block.append(entry.getValue()).append('\n');
+                offset += length + 1;
+            }
+            writeAt(channel, block.toString().getBytes(StandardCharsets.UTF_8), fileLength);
+            fileLength = offset;
+            endsWithNewline = true;
+        } catch (IOException e) {
+            System.err.println("Error saving lending records: " + e.getMessage());
+            ioErrors.increment();
+        }
+    }
+
+    /**
+     * Replaces the line of an existing record.
+     *
+     * @param recordID The ID of the record.
+     * @param line     The new formatted record line.
+     * @return true if the record was found and updated, false otherwise.
+     */
+    public static synchronized boolean update(String recordID, String line) {
+        try (FileChannel channel = openChannel()) {
+            ensureIndex(channel);
+            long[] slot = slots.get(recordID);
+            if (slot == null) {
+                return false;
+            }
+
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length <= slot[1]) {
+                // Fits in the old slot: overwrite in place and pad the rest with spaces
+                writeAt(channel, padded(bytes, (int) slot[1]), slot[0]);
+            } else {
+                // Too long: tombstone the old slot and append the new line
+                tombstone(channel, slot);
+                appendLine(channel, recordID, line);
+            }
+            compactIfNeeded(channel);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error writing updated lending records: " + e.getMessage());
+            ioErrors.increment();
+            return false;
+        }
+    }
+
+    /**
+     * Replaces the lines of several existing records, opening the file once.
+     * Lines that fit in their old slot are written in place; the longer ones are tombstoned
+     * and appended together with a single write.
+     *
+     * @param lines Map of record ID to new formatted record line.
+     * @return The number of records that were found and updated.
+     */
+    public static synchronized int updateAll(LinkedHashMap<String, String> lines) {
+        try {
+            return writeAll(lines, false);
+        } catch (IOException e) {
+            System.err.println("Error writing updated lending records: " + e.getMessage());
+            ioErrors.increment();
+            return 0;
+        }
+    }
+
+    /**
+     * Updates the records that are in the file and appends the others, opening the file once.
+     * Writing the same lines twice leaves the file as after the first time.
+     *
+     * @param lines Map of record ID to formatted record line.
+     * @throws IOException if the file could not be written.
+     */
+    public static synchronized void putAll(LinkedHashMap<String, String> lines) throws IOException {
+        try {
+            writeAll(lines, true);
+        } catch (IOException e) {
+            ioErrors.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Forces every change of the file to the disk.
+     *
+     * @return true if every change is on the disk.
+     */
+    public static synchronized boolean sync() {
+        if (!Files.exists(Paths.get(FILE_PATH))) {
+            return true;
+        }
+        try (FileChannel channel = openChannel()) {
+            channel.force(false);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error syncing lending records: " + e.getMessage());
+            ioErrors.increment();
+            return false;
+        }
+    }
+
+    /**
+     * Writes the lines of several records: in place if they fit in their slot, otherwise
+     * together at the end of the file with a single write.
+     *
+     * @param appendMissing Whether records that are not in the file are appended or skipped.
+     * @return The number of records that were written.
+     */
+    private static int writeAll(LinkedHashMap<String, String> lines, boolean appendMissing) throws IOException {
+        if (lines.isEmpty()) {
+            return 0;
+        }
+        try (FileChannel channel = openChannel()) {
+            ensureIndex(channel);
+            int updated = 0;
+            LinkedHashMap<String, byte[]> moved = new LinkedHashMap<>(); // Lines written at the end
+            for (Map.Entry<String, String> entry : lines.entrySet()) {
+                long[] slot = slots.get(entry.getKey());
+                byte[] bytes = entry.getValue().getBytes(StandardCharsets.UTF_8);
+                if (slot == null) {
+                    if (appendMissing) {
+                        moved.put(entry.getKey(), bytes);
+                        updated++;
+                    }
+                    continue;
+                }
+                if (bytes.length <= slot[1]) {
+                    writeAt(channel, padded(bytes, (int) slot[1]), slot[0]);
+                } else {
+                    tombstone(channel, slot);
+                    moved.put(entry.getKey(), bytes);
+                }
+                updated++;
+            }
+
+            if (!moved.isEmpty()) {
+                ByteArrayOutputStream block = new ByteArrayOutputStream();
+                if (!endsWithNewline) {
+                    block.write('\n');
+                }
+                long offset = fileLength + (endsWithNewline ? 0 : 1);
+                for (Map.Entry<String, byte[]> entry : moved.entrySet()) {
+                    putSlot(entry.getKey(), offset, entry.getValue().length);
+                    block.write(entry.getValue());
+                    block.write('\n');
+                    offset += entry.getValue().length + 1;
+                }
+                writeAt(channel, block.toByteArray(), fileLength);
+                fileLength = offset;
+                endsWithNewline = true;
+            }
+            compactIfNeeded(channel);
+            return updated;
+        }
+    }
+
+    /**
+     * Deletes a record by replacing its line with a tombstone.
+     *
+     * @param recordID The ID of the record.
+     * @return true if the record was found and deleted, false otherwise.
+     * @throws IOException if the file could not be written.
+     */
+    public static synchronized boolean delete(String recordID) throws IOException {
+        try (FileChannel channel = openChannel()) {
+            ensureIndex(channel);
+            long[] slot = slots.remove(recordID);
+            if (slot == null) {
+                return false;
+            }
+            tombstone(channel, slot);
+            compactIfNeeded(channel);
+            return true;
+        } catch (IOException e) {
+            ioErrors.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Replaces the whole file with the given lines and rebuilds the index.
+     * The new file is written to a temporary file first and then renamed.
+     *
+     * @param lines The formatted record lines.
+     */
+    public static synchronized void rewrite(List<String> lines) {
+        try {
+            writeAtomically(lines);
+            slots = null; // Rebuilt on next use
+        } catch (IOException e) {
+            System.err.println("Error saving lending records: " + e.getMessage());
+            ioErrors.increment();
+        }
+    }
+
+    /**
+     * Rewrites the file without tombstones and padding.
+     */
+    public static synchronized void compact() {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(FILE_PATH), StandardCharsets.UTF_8))) {
+            bytesRead.add(Files.size(Paths.get(FILE_PATH)));
+            String line;
+            while ((line = br.readLine()) != null) {
+                String trimmed = line.trim();
+                if (!trimmed.isEmpty()) {
+                    lines.add(trimmed);
+                }
+            }
+            writeAtomically(lines);
+            slots = null; // Rebuilt on next use
+        } catch (IOException e) {
+            System.err.println("Error compacting lending records: " + e.getMessage());
+            ioErrors.increment();
+        }
+    }
+
+    private static FileChannel openChannel() throws IOException {
+        return FileChannel.open(Paths.get(FILE_PATH), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Builds the slot index by scanning the file once.
+     */
+    private static void ensureIndex(FileChannel channel) throws IOException {
+        if (slots != null && channel.size() == fileLength) {
+            return;
+        }
+        // First use, or the file was changed outside the store
+        slots = new HashMap<>();
+        deadBytes = 0;
+        fileLength = channel.size();
+        endsWithNewline = true;
+
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        ByteArrayOutputStream idBytes = new ByteArrayOutputStream();
+        long lineStart = 0;
+        long position = 0;
+        boolean readingID = true; // True until the first comma of the line
+        boolean blank = true;     // True while the line has only whitespace
+
+        channel.position(0);
+        while (channel.read(buffer) > 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (b == '\n') {
+                    indexLine(idBytes, lineStart, position - lineStart, blank);
+                    idBytes.reset();
+                    lineStart = position + 1;
+                    readingID = true;
+                    blank = true;
+                } else {
+                    if (b != ' ' && b != '\t' && b != '\r') {
+                        blank = false;
+                    }
+                    if (b == ',') {
+                        readingID = false;
+                    } else if (readingID) {
+                        idBytes.write(b);
+                    }
+                }
+                position++;
+            }
+            buffer.clear();
+        }
+        if (lineStart < position) {
+            indexLine(idBytes, lineStart, position - lineStart, blank);
+            endsWithNewline = false;
+        }
+        bytesRead.add(position);
+    }
+
+    private static void indexLine(ByteArrayOutputStream idBytes, long offset, long length, boolean blank) {
+        if (blank) {
+            deadBytes += length + 1;
+            return;
+        }
+        String recordID = new String(idBytes.toByteArray(), StandardCharsets.UTF_8).trim();
+        putSlot(recordID, offset, length);
+    }
+
+    /**
+     * Records the slot of a record. An older slot for the same ID counts as dead space.
+     */
+    private static void putSlot(String recordID, long offset, long length) {
+        long[] previous = slots.put(recordID, new long[]{offset, length});
+        if (previous != null) {
+            deadBytes += previous[1] + 1;
+        }
+    }
+
+    private static void appendLine(FileChannel channel, String recordID, String line) throws IOException {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        long offset = fileLength;
+        if (!endsWithNewline) {
+            writeAt(channel, new byte[]{'\n'}, offset);
+            offset++;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 1);
+        buffer.put(bytes).put((byte) '\n').flip();
+        writeAt(channel, buffer.array(), offset);
+        putSlot(recordID, offset, bytes.length);
+        fileLength = offset + bytes.length + 1;
+        endsWithNewline = true;
+    }
+
+    private static void tombstone(FileChannel channel, long[] slot) throws IOException {
+        writeAt(channel, padded(new byte[0], (int) slot[1]), slot[0]);
+        deadBytes += slot[1] + 1;
+    }
+
+    private static void compactIfNeeded(FileChannel channel) throws IOException {
+        if (deadBytes > COMPACTION_MIN_BYTES && deadBytes * 2 > fileLength) {
+            channel.close();
+            compact();
+        }
+    }
+
+    private static byte[] padded(byte[] bytes, int length) {
+        byte[] slot = Arrays.copyOf(bytes, length);
+        Arrays.fill(slot, bytes.length, length, (byte) ' ');
+        return slot;
+    }
+
+    private static void writeAt(FileChannel channel, byte[] bytes, long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+        bytesWritten.add(bytes.length);
+    }
+
+    private static void writeAtomically(List<String> lines) throws IOException {
+        Path file = Paths.get(FILE_PATH);
+        Path temp = Paths.get(FILE_PATH + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp.toFile());
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+            writer.flush();
+            out.getChannel().force(true); // The new file must be on disk before it replaces the old one
+        }
+        bytesWritten.add(Files.size(temp));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
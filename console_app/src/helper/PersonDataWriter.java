@@ -0,0 +1,119 @@
+package helper;
+
+import model.Academic;
+import model.Professional;
+import model.Staff;
+import model.Student;
+import utils.DateUtils;
+import utils.Metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * A helper class to save new students and staff.
+ * Lines are appended to the end of the files in the format read by the loaders.
+ */
+public class PersonDataWriter {
+    private static final String STUDENTS_PATH = "console_app/database/students.txt";
+    private static final String STAFF_PATH = "console_app/database/staff.txt";
+
+    private static final LongAdder bytesWritten = Metrics.counter("io.personDataWriter.bytesWritten");
+    private static final LongAdder ioErrors = Metrics.counter("io.personDataWriter.errors");
+
+    /**
+     * Appends students to the students file with a single write.
+     *
+     * @param students The students to save, in order.
+     */
+    public static void saveStudents(List<Student> students) {
+        StringBuilder block = new StringBuilder();
+        for (Student student : students) {
+            block.append(formatStudent(student)).append('\n');
+        }
+        append(STUDENTS_PATH, block);
+    }
+
+    /**
+     * Appends staff members to the staff file with a single write.
+     *
+     * @param staff The academics and professionals to save, in order.
+     */
+    public static void saveStaff(List<? extends Staff> staff) {
+        StringBuilder block = new StringBuilder();
+        for (Staff member : staff) {
+            block.append(formatStaff(member)).append('\n');
+        }
+        append(STAFF_PATH, block);
+    }
+
+    /**
+     * Formats a student as a line of the students file.
+     *
+     * @param student The student to format.
+     * @return The comma-separated student line.
+     */
+    public static String formatStudent(Student student) {
+        StringBuilder line = new StringBuilder();
+        line.append(student.getStudentID()).append(", ")
+                .append(student.getId()).append(", ")
+                .append(student.getFullName()).append(", ");
+        DateUtils.appendDateForFile(line, student.getBirthDate()).append(", ")
+                .append(student.getContactInfo());
+        return line.toString();
+    }
+
+    /**
+     * Formats a staff member as a line of the staff file.
+     *
+     * @param staff The academic or professional to format.
+     * @return The comma-separated staff line.
+     */
+    public static String formatStaff(Staff staff) {
+        StringBuilder line = new StringBuilder();
+        line.append(staff.getStaffID()).append(", ")
+                .append(staff.getId()).append(", ")
+                .append(staff.getFullName()).append(", ");
+        DateUtils.appendDateForFile(line, staff.getBirthDate()).append(", ")
+                .append(staff.getContactInfo()).append(", ");
+        // Staff type, then expertise (Academic) or department (Professional)
+        if (staff instanceof Academic) {
+            line.append("Academic, ").append(((Academic) staff).getExpertise());
+        } else {
+            line.append("Professional, ").append(((Professional) staff).getDepartment());
+        }
+        return line.toString();
+    }
+
+    // Append a block of lines to the end of a file, starting a new line if the file does not end with one
+    private static synchronized void append(String path, CharSequence block) {
+        if (block.length() == 0) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            ByteBuffer last = ByteBuffer.allocate(1);
+            boolean newline = size > 0 && channel.read(last, size - 1) == 1 && last.get(0) != '\n';
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(newline ? "\n" + block : block.toString());
+            int length = bytes.remaining();
+            long position = size;
+            while (bytes.hasRemaining()) {
+                position += channel.write(bytes, position);
+            }
+            bytesWritten.add(length);
+        } catch (IOException e) {
+            System.err.println("Error saving people: " + e.getMessage());
+            ioErrors.increment();
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package helper;
 
-import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 
 /**
  * @author Luong Thi Tra My - s3987023
@@ -20,13 +21,11 @@ public class StaffDataLoader {
         StaffDataProcessor.getAcademics().clear(); // Clear existing data
         StaffDataProcessor.getProfessionals().clear(); // Clear existing data
 
-        try (BufferedReader br = new BufferedReader(new FileReader(FILE_PATH))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                StaffDataProcessor.processStaffRecord(line); // Delegates processing
-            }
+        try (Reader reader = new FileReader(FILE_PATH, StandardCharsets.UTF_8)) {
+            CsvFieldTokenizer.forEachLine(reader, StaffDataProcessor::processStaffRecord); // Delegates processing
         } catch (IOException e) {
             System.err.println("Error reading staff data file: " + e.getMessage());
         }
+        StaffDataProcessor.canonicalize(); // Reuse the staff already in memory
     }
 }
@@ -2,10 +2,10 @@ package helper;
 
 import model.Academic;
 import model.Professional;
-import utils.DateUtils;
+import model.Staff;
 
 import java.util.ArrayList;
-import java.util.Date;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -17,70 +17,83 @@ import java.util.List;
 public class StaffDataProcessor {
     private static final List<Academic> academics = new ArrayList<>();
     private static final List<Professional> professionals = new ArrayList<>();
+    // One object per staff ID; reloads update it in place
+    private static final EntityRegistry<Academic> academicRegistry = new EntityRegistry<>(Academic::getStaffID, (current, loaded) -> {
+        current.setFullName(loaded.getFullName());
+        current.setBirthDate(loaded.getBirthDate());
+        current.setContactInfo(loaded.getContactInfo());
+        current.setExpertise(loaded.getExpertise());
+    });
+    private static final EntityRegistry<Professional> professionalRegistry = new EntityRegistry<>(Professional::getStaffID, (current, loaded) -> {
+        current.setFullName(loaded.getFullName());
+        current.setBirthDate(loaded.getBirthDate());
+        current.setContactInfo(loaded.getContactInfo());
+        current.setDepartment(loaded.getDepartment());
+    });
 
     /**
      * Processes a single line of staff data and adds it to the corresponding list.
      *
      * @param line A comma-separated string containing staff details.
      */
-    public static void processStaffRecord(String line) {
-        line = line.trim(); // Remove leading/trailing spaces
+    public static void processStaffRecord(CharSequence line) {
+        processStaffRecord(CsvFieldTokenizer.forLine(line));
+    }
 
+    /**
+     * Processes a line of staff data that is already split into fields.
+     *
+     * @param data The fields of the line.
+     */
+    public static void processStaffRecord(CsvFieldTokenizer data) {
         // Skip blank lines
-        if (line.isEmpty()) {
-            return;
-        }
-
-        String[] data = line.split(",");
-
-        // Ensure correct number of fields before processing
-        if (data.length != 7) {
-            System.err.println("Invalid data format: " + line);
+        if (data.isBlank()) {
             return;
         }
 
-        // Extract and trim values
-        String staffID = data[0].trim();
-        String id = data[1].trim();
-        String fullName = data[2].trim();
-        String contactInfo = data[4].trim();
-        String type = data[5].trim().toLowerCase();
-        String extraInfo = data[6].trim(); // Expertise (Academic) or Department (Professional)
-
         try {
-            // Parse birth date safely
-            Date birthDate = DateUtils.parseDate(data[3].trim());
-
-            // If parsing succeeds, add staff member
-            addStaffMember(staffID, id, fullName, birthDate, contactInfo, type, extraInfo);
-        } catch (Exception e) {
-            System.err.println("Error parsing date in record: " + line);
-            e.printStackTrace(); // Print error details for debugging
+            // Add the staff member to the list of their type
+            Staff staff = toStaff(data);
+            if (staff instanceof Academic) {
+                academics.add((Academic) staff);
+            } else {
+                professionals.add((Professional) staff);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
         }
     }
 
     /**
-     * Adds a staff member to the appropriate list based on their type.
+     * Builds an academic or professional staff member from a line without adding it to a list.
+     * Does not touch shared state, so lines can be parsed on several threads.
      *
-     * @param staffID     Staff ID.
-     * @param id          Person ID.
-     * @param fullName    Full name.
-     * @param birthDate   Birth date.
-     * @param contactInfo Contact details.
-     * @param type        Staff type (academic/professional).
-     * @param extraInfo   Expertise (Academic) or Department (Professional).
+     * @param data The fields of a non-blank line.
+     * @return The Academic or Professional.
+     * @throws IllegalArgumentException if the line does not have the expected fields or the staff type is unknown.
      */
-    private static void addStaffMember(String staffID, String id, String fullName, Date birthDate,
-                                       String contactInfo, String type, String extraInfo) {
+    public static Staff toStaff(CsvFieldTokenizer data) {
+        // Ensure correct number of fields before processing
+        if (data.count() != 7) {
+            throw new IllegalArgumentException("Invalid data format: " + data.line());
+        }
+
+        // Extract trimmed values, sharing the repeated staff type and department values
+        String staffID = data.field(0);
+        String id = data.field(1);
+        String fullName = data.field(2);
+        LocalDate birthDate = data.date(3);
+        String contactInfo = data.field(4);
+        String type = data.pooled(5).toLowerCase();
+        String extraInfo = data.pooled(6); // Expertise (Academic) or Department (Professional)
+
         switch (type) {
             case "academic":
-                academics.add(new Academic(staffID, id, fullName, birthDate, contactInfo, extraInfo));
-                break;
+                return new Academic(staffID, id, fullName, birthDate, contactInfo, extraInfo);
             case "professional":
-                professionals.add(new Professional(staffID, id, fullName, birthDate, contactInfo, extraInfo));
-                break;
+                return new Professional(staffID, id, fullName, birthDate, contactInfo, extraInfo);
             default:
-                System.err.println("Invalid staff type: " + type);
+                throw new IllegalArgumentException("Invalid staff type: " + type);
         }
     }
 
@@ -101,4 +114,23 @@ public class StaffDataProcessor {
     public static List<Professional> getProfessionals() {
         return professionals;
     }
+
+    // Get the registry of canonical academic staff
+    public static EntityRegistry<Academic> getAcademicRegistry() {
+        return academicRegistry;
+    }
+
+    // Get the registry of canonical professional staff
+    public static EntityRegistry<Professional> getProfessionalRegistry() {
+        return professionalRegistry;
+    }
+
+    /**
+     * Replaces the loaded staff with their canonical objects, so a reload updates
+     * the staff already in use instead of creating copies of them.
+     */
+    public static void canonicalize() {
+        academicRegistry.internAll(academics);
+        professionalRegistry.internAll(professionals);
+    }
 }
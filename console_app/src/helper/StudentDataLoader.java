@@ -1,8 +1,9 @@
 package helper;
 
-import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 
 /**
  * @author Luong Thi Tra My - s3987023
@@ -18,13 +19,11 @@ public class StudentDataLoader {
      */
     public static void loadStudents() {
         StudentDataProcessor.getStudents().clear(); // Clear existing data
-        try (BufferedReader br = new BufferedReader(new FileReader(FILE_PATH))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                StudentDataProcessor.processStudentRecord(line); // Process each line
-            }
+        try (Reader reader = new FileReader(FILE_PATH, StandardCharsets.UTF_8)) {
+            CsvFieldTokenizer.forEachLine(reader, StudentDataProcessor::processStudentRecord); // Process each line
         } catch (IOException e) {
             System.err.println("Error reading staff data file: " + e.getMessage());
         }
+        StudentDataProcessor.canonicalize(); // Reuse the students already in memory
     }
 }
@@ -1,10 +1,9 @@
 package helper;
 
 import model.Student;
-import utils.DateUtils;
 
 import java.util.ArrayList;
-import java.util.Date;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -15,55 +14,78 @@ import java.util.List;
  */
 public class StudentDataProcessor {
     private static final List<Student> students = new ArrayList<>();
+    // One Student object per student ID; reloads update it in place
+    private static final EntityRegistry<Student> registry = new EntityRegistry<>(Student::getStudentID, (current, loaded) -> {
+        current.setFullName(loaded.getFullName());
+        current.setBirthDate(loaded.getBirthDate());
+        current.setContactInfo(loaded.getContactInfo());
+    });
 
     /**
      * Processes a single line of student data and adds it to the list.
      *
      * @param line A comma-separated string containing student details.
      */
-    public static void processStudentRecord(String line) {
-        line = line.trim(); // Remove leading/trailing spaces
+    public static void processStudentRecord(CharSequence line) {
+        processStudentRecord(CsvFieldTokenizer.forLine(line));
+    }
 
+    /**
+     * Processes a line of student data that is already split into fields.
+     *
+     * @param data The fields of the line.
+     */
+    public static void processStudentRecord(CsvFieldTokenizer data) {
         // Skip blank lines
-        if (line.isEmpty()) {
+        if (data.isBlank()) {
             return;
         }
 
-        String[] data = line.split(",");
-
-        // Check if the line has the expected number of fields
-        if (data.length != 5) {
-            System.err.println("Invalid data format: " + line);
-            return;
-        }
-
-        // Extract and trim values
-        String studentID = data[0].trim();
-        String id = data[1].trim();
-        String fullName = data[2].trim();
-        String contactInfo = data[4].trim();
-
         try {
-            // Parse date safely
-            Date birthDate = DateUtils.parseDate(data[3].trim());
-
-            // If parsing succeeds, add the student
-            addStudentMember(studentID, id, fullName, birthDate, contactInfo);
-        } catch (Exception e) {
-            System.err.println("Error parsing date in record: " + line);
-            e.printStackTrace(); // Print error details for debugging
+            students.add(toStudent(data));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
         }
     }
 
     /**
-     * Adds a student member to the list.
+     * Builds a student from a line without adding it to the list.
+     * Does not touch shared state, so lines can be parsed on several threads.
+     *
+     * @param data The fields of a non-blank line.
+     * @return The student.
+     * @throws IllegalArgumentException if the line does not have the expected fields.
      */
-    private static void addStudentMember(String studentID, String id, String fullName, Date birthDate, String contactInfo) {
-        students.add(new Student(studentID, id, fullName, birthDate, contactInfo));
+    public static Student toStudent(CsvFieldTokenizer data) {
+        // Check if the line has the expected number of fields
+        if (data.count() != 5) {
+            throw new IllegalArgumentException("Invalid data format: " + data.line());
+        }
+
+        // Extract trimmed values
+        String studentID = data.field(0);
+        String id = data.field(1);
+        String fullName = data.field(2);
+        LocalDate birthDate = data.date(3);
+        String contactInfo = data.field(4);
+        return new Student(studentID, id, fullName, birthDate, contactInfo);
     }
 
     // Get a list of students
     public static List<Student> getStudents() {
         return students;
     }
+
+    // Get the registry of canonical students
+    public static EntityRegistry<Student> getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Replaces the loaded students with their canonical objects, so a reload updates
+     * the students already in use instead of creating copies of them.
+     */
+    public static void canonicalize() {
+        registry.internAll(students);
+    }
 }
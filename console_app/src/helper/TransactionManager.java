@@ -0,0 +1,479 @@
+package helper;
+
+import model.Equipment;
+import model.LendingRecord;
+import utils.LatencyHistogram;
+import utils.Metrics;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Makes a group of changes to the lending records and equipment files durable as one unit
+ * (a transaction), so a crash can no longer leave equipment borrowed without its record.
+ * <p>
+ * A transaction is first written to a redo log, transactions.log, between a begin and a
+ * commit marker, and the log is fsynced. Only then are the changes written to the data
+ * files, without fsyncs of their own. If the program stops before the data files are
+ * written, the committed transactions are applied again from the log at the next start.
+ * A transaction without its commit marker, or whose checksum does not match, is ignored,
+ * so a crash while writing the log loses that transaction completely instead of half of it.
+ * <p>
+ * Transactions committed at the same time share one fsync (group commit): the first thread
+ * to commit writes and fsyncs every transaction waiting at that moment and applies them
+ * in log order, while the others wait for it. Once the log is larger than
+ * {@link #CHECKPOINT_BYTES}, the data files are fsynced and the log is emptied.
+ * <p>
+ * If the log cannot be written, the transaction is not applied and its commit fails; if the
+ * data files cannot be written, the commit fails too, but the transaction stays in the log and
+ * is applied again before the log is emptied. Either way the changes stay in memory, so the
+ * data files should be reloaded.
+ * <p>
+ * Log line formats: "begin, txID", "put, recordID, record line", "delete, recordID",
+ * "status, equipmentID, status", "condition, equipmentID, condition" and "commit, txID, checksum".
+ * <p>
+ * Every change of a lending record or of an equipment status or condition goes through a
+ * transaction. A write that bypasses the log, such as rewriting the equipment file, runs
+ * through {@link #writeOutsideLog}, which empties the log first, so recovery never replays
+ * an older change over it.
+ */
+public class TransactionManager {
+    private static final String LOG_PATH = "console_app/database/transactions.log";
+    private static final long CHECKPOINT_BYTES = 1 << 20; // Log size that triggers a checkpoint
+
+    private static final LongAdder bytesWritten = Metrics.counter("io.transactionLog.bytesWritten");
+    private static final LongAdder ioErrors = Metrics.counter("io.transactionLog.errors");
+    private static final LongAdder commits = Metrics.counter("io.transactionLog.commits");
+    private static final LongAdder syncs = Metrics.counter("io.transactionLog.syncs");
+    private static final LatencyHistogram syncLatency = Metrics.histogram("io.transactionLog.sync");
+
+    private static final Object commitLock = new Object();        // Guards the fields below
+    private static final List<Pending> waiting = new ArrayList<>(); // Transactions not yet written, in log order
+    private static long lastQueued = 0;       // ID of the last transaction queued
+    private static long lastDone = 0;         // ID of the last transaction written and applied
+    private static boolean leaderActive = false; // True while a thread writes the log or the data files
+    private static FileChannel log;            // Open redo log, used by the leader only
+    private static boolean recovered = false;  // True once the log of the previous run has been recovered
+    private static boolean dataFilesBehind = false; // True while a logged transaction is missing from the data files
+    private static final Map<Long, IOException> failures = new HashMap<>(); // Failed transactions not yet reported, by ID
+
+    /**
+     * Changes to the lending records and equipment that are committed together.
+     * The current values are read when the transaction is committed, so a record or
+     * equipment only needs to be added once even if it changes again before the commit.
+     */
+    public static class Transaction {
+        private final Map<String, LendingRecord> puts = new LinkedHashMap<>(); // Records to add or update, by ID
+        private final Set<String> deletes = new LinkedHashSet<>();            // IDs of records to delete
+        private final Map<String, Equipment> statuses = new LinkedHashMap<>(); // Equipment whose status changed, by ID
+        private final Map<String, Equipment> conditions = new LinkedHashMap<>(); // Equipment whose condition changed, by ID
+
+        // Save the current state of a new or changed lending record
+        public void putLendingRecord(LendingRecord record) {
+            deletes.remove(record.getRecordID());
+            puts.put(record.getRecordID(), record);
+        }
+
+        // Delete a lending record
+        public void deleteLendingRecord(String recordID) {
+            puts.remove(recordID);
+            deletes.add(recordID);
+        }
+
+        // Save the current status of an equipment
+        public void setEquipmentStatus(Equipment equipment) {
+            statuses.put(equipment.getId(), equipment);
+        }
+
+        // Save the current condition of an equipment
+        public void setEquipmentCondition(Equipment equipment) {
+            conditions.put(equipment.getId(), equipment);
+        }
+
+        public boolean isEmpty() {
+            return puts.isEmpty() && deletes.isEmpty() && statuses.isEmpty() && conditions.isEmpty();
+        }
+
+        // Format the changes as log lines
+        private List<String> toLogLines() {
+            List<String> lines = new ArrayList<>(puts.size() + deletes.size() + statuses.size() + conditions.size());
+            for (LendingRecord record : puts.values()) {
+                lines.add("put, " + record.getRecordID() + ", " + LendingRecordDataWriter.formatLendingRecord(record));
+            }
+            for (String recordID : deletes) {
+                lines.add("delete, " + recordID);
+            }
+            for (Equipment equipment : statuses.values()) {
+                lines.add("status, " + equipment.getId() + ", " + equipment.getStatus());
+            }
+            for (Equipment equipment : conditions.values()) {
+                lines.add("condition, " + equipment.getId() + ", " + equipment.getCondition());
+            }
+            return lines;
+        }
+    }
+
+    /**
+     * A transaction waiting to be written, with its log lines.
+     */
+    private static class Pending {
+        private final long txID;
+        private final List<String> lines;
+
+        private Pending(long txID, List<String> lines) {
+            this.txID = txID;
+            this.lines = lines;
+        }
+    }
+
+    // Start a new transaction
+    public static Transaction begin() {
+        return new Transaction();
+    }
+
+    /**
+     * Commits a transaction. When this returns, the transaction is in the fsynced log and
+     * its changes have been written to the data files.
+     *
+     * @param transaction The transaction to commit.
+     * @throws UncheckedIOException if the log or the data files could not be written.
+     */
+    public static void commit(Transaction transaction) {
+        if (transaction.isEmpty()) {
+            return;
+        }
+        long txID;
+        List<Pending> batch = null;
+        synchronized (commitLock) {
+            // The lines are formatted in queue order, so a later transaction always logs newer values
+            txID = ++lastQueued;
+            waiting.add(new Pending(txID, transaction.toLogLines()));
+            if (becomeLeader(txID)) {
+                batch = new ArrayList<>(waiting);
+                waiting.clear();
+            } // Otherwise written by another thread
+        }
+        if (batch != null) {
+            writeBatch(batch);
+        }
+
+        IOException failure;
+        synchronized (commitLock) {
+            failure = failures.remove(txID);
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Error saving transaction: " + failure.getMessage(), failure);
+        }
+    }
+
+    /**
+     * Writes a batch of transactions to the log, then applies them to the data files.
+     * The failure of each transaction is kept for the thread that committed it.
+     * Must be called by the leader.
+     */
+    private static void writeBatch(List<Pending> batch) {
+        Map<Long, IOException> failed = new HashMap<>();
+        try {
+            try {
+                writeLog(batch);
+            } catch (IOException e) {
+                // Nothing of the batch is applied, so the data files still match the log
+                System.err.println("Error writing transaction log: " + e.getMessage());
+                ioErrors.increment();
+                for (Pending pending : batch) {
+                    failed.put(pending.txID, e);
+                }
+                return;
+            }
+            for (Pending pending : batch) {
+                try {
+                    apply(pending.lines);
+                } catch (IOException e) {
+                    // The transaction is in the log, so it is applied again before the log is emptied
+                    System.err.println("Error applying transaction: " + e.getMessage());
+                    ioErrors.increment();
+                    dataFilesBehind = true;
+                    failed.put(pending.txID, e);
+                }
+            }
+            commits.add(batch.size() - failed.size());
+            if (logSize() > CHECKPOINT_BYTES) {
+                checkpoint();
+            }
+        } finally {
+            synchronized (commitLock) {
+                failures.putAll(failed);
+                lastDone = batch.get(batch.size() - 1).txID;
+                leaderActive = false;
+                commitLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Applies the committed transactions left in the log by a program that stopped before
+     * its data files were up to date, then empties the log. Called before the data is loaded.
+     * Later calls, e.g. before a reload, only make sure the data files are up to date.
+     */
+    public static void recover() {
+        synchronized (commitLock) {
+            becomeLeader(Long.MAX_VALUE);
+        }
+        try {
+            if (recovered) {
+                checkpoint(); // Every logged transaction of this run is already applied
+                return;
+            }
+            recovered = true;
+            if (!Files.exists(Paths.get(LOG_PATH))) {
+                return;
+            }
+            List<List<String>> committed = readCommitted();
+            for (List<String> lines : committed) {
+                apply(lines);
+            }
+            if (!committed.isEmpty()) {
+                System.out.println("Recovered " + committed.size() + " transactions from the transaction log.");
+            }
+            checkpoint();
+        } catch (IOException e) {
+            // The log is kept, so the next start tries again
+            System.err.println("Error recovering transaction log: " + e.getMessage());
+            ioErrors.increment();
+            dataFilesBehind = true;
+        } finally {
+            synchronized (commitLock) {
+                leaderActive = false;
+                commitLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Runs a write that bypasses the log, such as a rewrite of a whole data file.
+     * Every committed transaction is applied and the log is emptied first, and no transaction
+     * is written while the write runs, so recovery cannot replay an older change over it.
+     *
+     * @param write The write to run.
+     * @throws UncheckedIOException if the log could not be emptied, in which case the write is not run.
+     */
+    public static void writeOutsideLog(Runnable write) {
+        synchronized (commitLock) {
+            becomeLeader(Long.MAX_VALUE);
+        }
+        try {
+            if (!checkpoint()) {
+                throw new UncheckedIOException(new IOException("the transaction log could not be emptied"));
+            }
+            write.run();
+        } finally {
+            synchronized (commitLock) {
+                leaderActive = false;
+                commitLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits until a transaction is done or this thread can write the log.
+     * Must be called while holding the commit lock.
+     *
+     * @param txID The transaction to wait for.
+     * @return true if this thread is now the leader, false if the transaction is done.
+     */
+    private static boolean becomeLeader(long txID) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                if (lastDone >= txID) {
+                    return false;
+                }
+                if (!leaderActive) {
+                    leaderActive = true;
+                    return true;
+                }
+                try {
+                    commitLock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true; // The commit has to finish anyway
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Appends a batch of transactions to the log and fsyncs it once.
+     * If the write fails, the log is cut back to where the batch started, so the transactions
+     * committed after it are not hidden behind a damaged block at recovery.
+     */
+    private static void writeLog(List<Pending> batch) throws IOException {
+        StringBuilder block = new StringBuilder();
+        CRC32 checksum = new CRC32();
+        for (Pending pending : batch) {
+            checksum.reset();
+            block.append("begin, ").append(pending.txID).append('\n');
+            for (String line : pending.lines) {
+                checksum.update(line.getBytes(StandardCharsets.UTF_8));
+                block.append(line).append('\n');
+            }
+            block.append("commit, ").append(pending.txID).append(", ").append(checksum.getValue()).append('\n');
+        }
+
+        long start = System.nanoTime();
+        openLog();
+        long end = log.size();
+        try {
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(block.toString());
+            int length = bytes.remaining();
+            long position = end;
+            while (bytes.hasRemaining()) {
+                position += log.write(bytes, position);
+            }
+            log.force(false);
+            bytesWritten.add(length);
+            syncs.increment();
+            syncLatency.record(System.nanoTime() - start);
+        } catch (IOException e) {
+            try {
+                log.truncate(end);
+            } catch (IOException ignored) {
+                // Recovery stops at the damaged block
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the changes of one transaction to the data files.
+     * Each change sets a whole record line, a status or a condition to a value, rather than
+     * changing it relative to the old one. Every change since the last checkpoint is in the
+     * log, in commit order, so replaying the log over data files that already hold some of
+     * the changes ends with the values of the last committed transaction.
+     */
+    private static void apply(List<String> lines) throws IOException {
+        LinkedHashMap<String, String> puts = new LinkedHashMap<>();
+        List<String> deletes = new ArrayList<>();
+        for (String line : lines) {
+            String[] fields = line.split(", ", 3);
+            switch (fields[0]) {
+                case "put" -> puts.put(fields[1], fields[2]);
+                case "delete" -> deletes.add(fields[1]);
+                case "status" -> EquipmentJournal.appendStatus(fields[1], fields[2]);
+                case "condition" -> EquipmentJournal.appendCondition(fields[1], fields[2]);
+                default -> System.err.println("Error applying transaction: unknown change: " + line);
+            }
+        }
+        LendingRecordStore.putAll(puts);
+        for (String recordID : deletes) {
+            LendingRecordStore.delete(recordID);
+        }
+    }
+
+    /**
+     * Reads the complete, undamaged transactions of the log, in order.
+     * Reading stops at the first damaged line, since nothing after it can have been committed
+     * before the crash that damaged it.
+     */
+    private static List<List<String>> readCommitted() throws IOException {
+        List<List<String>> committed = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(
+                new FileInputStream(LOG_PATH), StandardCharsets.UTF_8))) {
+            List<String> current = null; // Lines of the open transaction
+            String currentID = null;
+            CRC32 checksum = new CRC32();
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] fields = line.split(", ", 3);
+                if (fields[0].equals("begin") && fields.length == 2) {
+                    current = new ArrayList<>();
+                    currentID = fields[1];
+                    checksum.reset();
+                } else if (fields[0].equals("commit") && fields.length == 3 && current != null) {
+                    if (!fields[1].equals(currentID) || !fields[2].equals(Long.toString(checksum.getValue()))) {
+                        break;
+                    }
+                    committed.add(current);
+                    current = null;
+                } else if (current != null && isChange(fields)) {
+                    current.add(line);
+                    checksum.update(line.getBytes(StandardCharsets.UTF_8));
+                } else {
+                    break;
+                }
+            }
+        }
+        return committed;
+    }
+
+    // Check whether the fields of a log line are a complete change
+    private static boolean isChange(String[] fields) {
+        return switch (fields[0]) {
+            case "put", "status", "condition" -> fields.length == 3;
+            case "delete" -> fields.length == 2;
+            default -> false;
+        };
+    }
+
+    /**
+     * Fsyncs the data files, then empties the log, whose transactions are all in the data files.
+     * If a transaction could not be applied earlier, the whole log is applied again first.
+     * The log is kept if any step fails.
+     *
+     * @return true if the log was emptied.
+     */
+    private static boolean checkpoint() {
+        try {
+            if (dataFilesBehind) {
+                for (List<String> lines : readCommitted()) {
+                    apply(lines);
+                }
+                dataFilesBehind = false;
+            }
+            if (!EquipmentJournal.sync() || !LendingRecordStore.sync()) {
+                return false;
+            }
+            openLog();
+            log.truncate(0);
+            log.force(false);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error emptying transaction log: " + e.getMessage());
+            ioErrors.increment();
+            return false;
+        }
+    }
+
+    private static long logSize() {
+        try {
+            return log == null ? 0 : log.size();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void openLog() throws IOException {
+        if (log == null || !log.isOpen()) {
+            log = FileChannel.open(Paths.get(LOG_PATH), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+    }
+}
@@ -2,7 +2,7 @@ package model;
 
 import utils.DateUtils;
 
-import java.util.Date;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Objects;
@@ -35,7 +35,7 @@ public class Academic extends Staff {
      * @param contactInfo The contact information of the academic.
      * @param expertise   The area of expertise of the academic.
      */
-    public Academic(String staffID, String id, String fullName, Date birthDate, String contactInfo, String expertise) {
+    public Academic(String staffID, String id, String fullName, LocalDate birthDate, String contactInfo, String expertise) {
         super(staffID, id, fullName, birthDate, contactInfo);
         this.expertise = expertise;
         this.studentsBorrowed = new ArrayList<>();
@@ -50,6 +50,15 @@ public class Academic extends Staff {
         return expertise;
     }
 
+    /**
+     * Sets the expertise of the academic.
+     *
+     * @param expertise The expertise field.
+     */
+    public void setExpertise(String expertise) {
+        this.expertise = expertise;
+    }
+
     /**
      * /**
      * Retrieves the list of students supervised by this academic.
@@ -72,17 +81,13 @@ public class Academic extends Staff {
     }
 
     /**
-     * Updates the supervised students list based on lending records.
+     * Replaces the supervised students list, for example with the students
+     * found in the repository's relation index.
      *
-     * @param lendingRecords List of all lending records.
+     * @param studentsBorrowed The students supervised by this academic.
      */
-    public void updateSupervisedStudents(List<LendingRecord> lendingRecords) {
-        for (LendingRecord record : lendingRecords) {
-            if (record.getSupervisor() != null && record.getSupervisor().getStaffID().equals(this.getStaffID())) {
-                Student student = (Student) record.getBorrower();
-                addStudentBorrowed(student);
-            }
-        }
+    public void setStudentsBorrowed(List<Student> studentsBorrowed) {
+        this.studentsBorrowed = studentsBorrowed;
     }
 
     /**
@@ -2,7 +2,8 @@ package model;
 
 import utils.DateUtils;
 
-import java.util.Date;
+import java.time.LocalDate;
+import java.util.Objects;
 
 /**
  * @author Luong Thi Tra My - s3987023
@@ -16,16 +17,17 @@ import java.util.Date;
 public class Equipment {
     private String id;          // Unique equipment ID
     private String name;        // Equipment name
-    private String status;      // Status: Available, Borrowed, Unavailable
-    private Date purchasedDate; // Date when equipment was purchased
+    private volatile String status; // Status: Available, Borrowed, Unavailable
+    private LocalDate purchasedDate; // Date when equipment was purchased
     private String condition;   // Condition: Brand New, Good, Needs Maintenance, Out of Service
+    private EquipmentStatusIndex statusIndex; // Index to notify when the status changes, if any
 
     // Default constructor
     public Equipment() {
     }
 
     // Parameterized constructor
-    public Equipment(String id, String name, String status, Date purchasedDate, String condition) {
+    public Equipment(String id, String name, String status, LocalDate purchasedDate, String condition) {
         this.id = id;
         this.name = name;
         this.condition = condition;
@@ -38,26 +40,70 @@ public class Equipment {
         return id;
     }
 
+    /**
+     * Changes the equipment ID.
+     * Equipment is equal to and hashed by its ID, so this must only be called before the
+     * equipment is put in a hash set, a map keyed by it, or the repository; otherwise it
+     * can no longer be found there.
+     *
+     * @param id The new equipment ID.
+     */
     public void setId(String id) {
-        this.id = id;
+        // The ID is part of the index order, so re-index around the change
+        reindex(() -> this.id = id);
     }
 
     public String getName() {
         return name;
     }
 
+    public void setName(String name) {
+        // The name is part of the index order, so re-index around the change
+        reindex(() -> this.name = name);
+    }
+
     public String getStatus() {
         return status;
     }
 
     public void setStatus(String status) {
+        String oldStatus = this.status;
         this.status = status;
+        if (statusIndex != null) {
+            statusIndex.onStatusChange(this, oldStatus, status);
+        }
+    }
+
+    /**
+     * Set the status index that keeps track of this equipment.
+     *
+     * @param statusIndex The index, or null when the equipment is removed from it.
+     */
+    void setStatusIndex(EquipmentStatusIndex statusIndex) {
+        this.statusIndex = statusIndex;
     }
 
-    public Date getPurchasedDate() {
+    public LocalDate getPurchasedDate() {
         return purchasedDate;
     }
 
+    public void setPurchasedDate(LocalDate purchasedDate) {
+        // The purchase date is part of the index order, so re-index around the change
+        reindex(() -> this.purchasedDate = purchasedDate);
+    }
+
+    // Apply a change to a field of the index order while out of the status index
+    private void reindex(Runnable change) {
+        EquipmentStatusIndex index = statusIndex;
+        if (index != null) {
+            index.remove(this);
+        }
+        change.run();
+        if (index != null) {
+            index.add(this);
+        }
+    }
+
     public String getCondition() {
         return condition;
     }
@@ -88,13 +134,27 @@ public class Equipment {
                 "-------------------------";
     }
 
+    /**
+     * Checks if two Equipment objects are equal based on their ID.
+     *
+     * @param obj The object to compare with.
+     * @return true if both objects have the same ID, false otherwise.
+     */
     @Override
     public boolean equals(Object obj) {
-        return super.equals(obj);
+        if (this == obj) return true;
+        if (!(obj instanceof Equipment)) return false;
+        Equipment other = (Equipment) obj;
+        return Objects.equals(this.id, other.id);
     }
 
+    /**
+     * Generates a hash code for Equipment objects based on ID.
+     *
+     * @return A hash code value.
+     */
     @Override
     public int hashCode() {
-        return super.hashCode();
+        return Objects.hashCode(id);
     }
 }
\ No newline at end of file
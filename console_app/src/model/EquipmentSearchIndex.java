@@ -0,0 +1,264 @@
+package model;
+
+import java.util.*;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Full-text index over equipment names, built from the trigrams (three-letter pieces) of
+ * each name. A search counts, for every equipment, how many trigrams of the query its
+ * name contains and ranks the equipment with the most, so "print" finds "Laser Printer"
+ * and a small typo still finds a match. Only the lists of the query trigrams are read,
+ * so a search does not scan the catalog. The counts are kept in one array shared by the
+ * searches, and only the entries a search touched are set back to zero afterwards.
+ * <p>
+ * Each indexed equipment gets a number, and each trigram keeps the sorted numbers of the
+ * equipment with it in their name. Removing an equipment only clears its number; the
+ * lists are rebuilt once half of the numbers are unused. Status and condition are read
+ * when searching, so the index only has to be updated when an equipment is added,
+ * removed or renamed.
+ * All methods are synchronized, so the index can be shared between threads.
+ */
+public class EquipmentSearchIndex {
+    private static final double MIN_MATCH = 0.6; // Share of the query trigrams a hit must contain
+
+    private final Map<String, IntList> postings = new HashMap<>(); // Trigram to the sorted numbers of the equipment with it
+    private final Map<Equipment, Integer> numbers = new HashMap<>(); // Number of each indexed equipment
+    private final List<Equipment> equipments = new ArrayList<>();   // Equipment by number, null once removed
+    private final List<String> names = new ArrayList<>();           // Normalized name each number was indexed under
+    private int[] counts = new int[0];                              // Query trigrams of each number, zero between searches
+    private final IntList touched = new IntList();                  // Numbers counted by the current search
+
+    /**
+     * Adds an equipment to the index.
+     *
+     * @param equipment The equipment to index.
+     */
+    public synchronized void add(Equipment equipment) {
+        if (numbers.containsKey(equipment)) {
+            return;
+        }
+        int number = equipments.size();
+        String name = normalize(equipment.getName());
+        numbers.put(equipment, number);
+        equipments.add(equipment);
+        names.add(name);
+        for (String trigram : new LinkedHashSet<>(trigrams(" " + name + " "))) {
+            postings.computeIfAbsent(trigram, t -> new IntList()).add(number);
+        }
+    }
+
+    /**
+     * Re-indexes an equipment whose name may have changed.
+     *
+     * @param equipment The changed equipment.
+     */
+    public synchronized void update(Equipment equipment) {
+        Integer number = numbers.get(equipment);
+        if (number != null && names.get(number).equals(normalize(equipment.getName()))) {
+            return; // The name has not changed
+        }
+        remove(equipment);
+        add(equipment);
+    }
+
+    /**
+     * Removes an equipment from the index.
+     *
+     * @param equipment The equipment to remove.
+     */
+    public synchronized void remove(Equipment equipment) {
+        Integer number = numbers.remove(equipment);
+        if (number == null) {
+            return;
+        }
+        equipments.set(number, null);
+        names.set(number, null);
+        if (equipments.size() > 64 && numbers.size() < equipments.size() / 2) {
+            compact();
+        }
+    }
+
+    /**
+     * Removes every equipment from the index.
+     */
+    public synchronized void clear() {
+        postings.clear();
+        numbers.clear();
+        equipments.clear();
+        names.clear();
+    }
+
+    /**
+     * Finds the equipment whose name matches a query, best matches first.
+     * Equipment is ranked by the number of query trigrams in its name, then names that
+     * contain the whole query come first, then the order of {@link EquipmentStatusIndex#ORDER}.
+     *
+     * @param query     Words or the start of words of the name, in any case.
+     * @param status    Only equipment with this status, or null for any status.
+     * @param condition Only equipment in this condition, ignoring case, or null for any condition.
+     * @param limit     The maximum number of matches.
+     * @return The matching equipment, or an empty list if the query has fewer than two letters or digits.
+     */
+    public synchronized List<Equipment> search(String query, EquipmentStatus status, String condition, int limit) {
+        String text = normalize(query);
+        // The query is only padded at the start, so it matches the start of a word
+        Set<String> queryTrigrams = new LinkedHashSet<>(trigrams(" " + text));
+        if (queryTrigrams.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        // Count the query trigrams of the equipment in their lists, remembering those that reach the minimum
+        int minMatch = Math.max(1, (int) Math.ceil(queryTrigrams.size() * MIN_MATCH));
+        if (counts.length < equipments.size()) {
+            counts = new int[Math.max(equipments.size(), counts.length * 2)];
+        }
+        IntList reached = new IntList();
+        PriorityQueue<Hit> best;
+        Comparator<Hit> rank = Comparator.<Hit>comparingInt(hit -> hit.score).reversed()
+                .thenComparing(hit -> !hit.contains)
+                .thenComparing(hit -> hit.equipment, EquipmentStatusIndex.ORDER);
+        try {
+            for (String trigram : queryTrigrams) {
+                IntList posting = postings.get(trigram);
+                if (posting == null) {
+                    continue;
+                }
+                for (int i = 0; i < posting.size; i++) {
+                    int number = posting.values[i];
+                    int count = ++counts[number];
+                    if (count == 1) {
+                        touched.add(number);
+                    }
+                    if (count == minMatch) {
+                        reached.add(number);
+                    }
+                }
+            }
+
+            // Keep the best hits in a heap whose head is the worst one kept
+            String padded = " " + text;
+            best = new PriorityQueue<>(limit + 1, rank.reversed());
+            for (int i = 0; i < reached.size; i++) {
+                int number = reached.values[i];
+                Equipment equipment = equipments.get(number);
+                if (equipment == null || !matchesFilters(equipment, status, condition)) {
+                    continue;
+                }
+                best.add(new Hit(equipment, counts[number], (" " + names.get(number)).contains(padded)));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        } finally {
+            // Only the touched counts are cleared, so the next search starts from zeros
+            for (int i = 0; i < touched.size; i++) {
+                counts[touched.values[i]] = 0;
+            }
+            touched.size = 0;
+        }
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(rank);
+        List<Equipment> result = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            result.add(hit.equipment);
+        }
+        return result;
+    }
+
+    // Get the number of indexed equipment
+    public synchronized int size() {
+        return numbers.size();
+    }
+
+    // Number the remaining equipment again from zero and rebuild the lists
+    private void compact() {
+        List<Equipment> remaining = new ArrayList<>(numbers.size());
+        for (Equipment equipment : equipments) {
+            if (equipment != null) {
+                remaining.add(equipment);
+            }
+        }
+        List<String> remainingNames = new ArrayList<>(numbers.size());
+        for (String name : names) {
+            if (name != null) {
+                remainingNames.add(name);
+            }
+        }
+        clear();
+        for (int number = 0; number < remaining.size(); number++) {
+            numbers.put(remaining.get(number), number);
+            equipments.add(remaining.get(number));
+            names.add(remainingNames.get(number));
+            for (String trigram : new LinkedHashSet<>(trigrams(" " + remainingNames.get(number) + " "))) {
+                postings.computeIfAbsent(trigram, t -> new IntList()).add(number);
+            }
+        }
+    }
+
+    // Check the status and condition an equipment has now
+    private static boolean matchesFilters(Equipment equipment, EquipmentStatus status, String condition) {
+        if (status != null && EquipmentStatus.fromLabel(equipment.getStatus()) != status) {
+            return false;
+        }
+        return condition == null || condition.equalsIgnoreCase(equipment.getCondition());
+    }
+
+    // Lower case the text and turn every run of other characters than letters and digits into one space
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toLowerCase(c));
+            } else if (normalized.length() > 0 && normalized.charAt(normalized.length() - 1) != ' ') {
+                normalized.append(' ');
+            }
+        }
+        int end = normalized.length();
+        return end > 0 && normalized.charAt(end - 1) == ' ' ? normalized.substring(0, end - 1) : normalized.toString();
+    }
+
+    // Cut a padded text into its trigrams; a text shorter than three characters has none
+    private static List<String> trigrams(String padded) {
+        List<String> trigrams = new ArrayList<>(Math.max(0, padded.length() - 2));
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    /**
+     * A growable array of ints, kept in the order they were added.
+     */
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * An equipment found by a search and how well it matched.
+     */
+    private static class Hit {
+        private final Equipment equipment;
+        private final int score;        // Query trigrams in the name
+        private final boolean contains; // Whether the name contains the whole query
+
+        private Hit(Equipment equipment, int score, boolean contains) {
+            this.equipment = equipment;
+            this.score = score;
+            this.contains = contains;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package model;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * The statuses an equipment can have, with the label used in the data files.
+ */
+public enum EquipmentStatus {
+    AVAILABLE("Available"),
+    BORROWED("Borrowed"),
+    UNAVAILABLE("Unavailable");
+
+    private final String label; // Label as stored in equipment.txt
+
+    EquipmentStatus(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Finds the status matching a label, ignoring case and surrounding spaces.
+     *
+     * @param label The status label, e.g. "Available".
+     * @return The matching status, or null if the label is unknown.
+     */
+    public static EquipmentStatus fromLabel(String label) {
+        if (label == null) {
+            return null;
+        }
+        String trimmed = label.trim();
+        for (EquipmentStatus status : values()) {
+            if (status.label.equalsIgnoreCase(trimmed)) {
+                return status;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,125 @@
+package model;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Secondary index from equipment status to the equipment with that status.
+ * Each status keeps its equipment sorted by name and purchase date, so listing
+ * the equipment with a status is a walk of a sorted set with no scan or sort.
+ * Equipment added to the index moves between sets by itself when its status changes.
+ * All methods are synchronized, so the index can be shared between threads.
+ */
+public class EquipmentStatusIndex {
+    // Sort order of the index: name, then purchase date, then ID to keep equal names apart
+    public static final Comparator<Equipment> ORDER =
+            Comparator.comparing(Equipment::getName, Comparator.nullsLast(String::compareTo))
+                    .thenComparing(Equipment::getPurchasedDate, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparing(Equipment::getId, Comparator.nullsLast(String::compareTo));
+
+    private static final int BATCH_SIZE = 1024; // Equipment copied per lock when walking a status
+
+    private final Map<EquipmentStatus, NavigableSet<Equipment>> equipmentByStatus = new EnumMap<>(EquipmentStatus.class);
+
+    public EquipmentStatusIndex() {
+        for (EquipmentStatus status : EquipmentStatus.values()) {
+            equipmentByStatus.put(status, new TreeSet<>(ORDER));
+        }
+    }
+
+    /**
+     * Adds an equipment to the index and lets it report its status changes.
+     *
+     * @param equipment The equipment to index.
+     */
+    public synchronized void add(Equipment equipment) {
+        EquipmentStatus status = EquipmentStatus.fromLabel(equipment.getStatus());
+        if (status != null) {
+            equipmentByStatus.get(status).add(equipment);
+        }
+        equipment.setStatusIndex(this);
+    }
+
+    /**
+     * Removes an equipment from the index.
+     *
+     * @param equipment The equipment to remove.
+     */
+    public synchronized void remove(Equipment equipment) {
+        EquipmentStatus status = EquipmentStatus.fromLabel(equipment.getStatus());
+        if (status != null) {
+            equipmentByStatus.get(status).remove(equipment);
+        }
+        equipment.setStatusIndex(null);
+    }
+
+    /**
+     * Moves an equipment from the set of its old status to the set of its new status.
+     * Called by {@link Equipment#setStatus(String)}.
+     */
+    synchronized void onStatusChange(Equipment equipment, String oldStatus, String newStatus) {
+        EquipmentStatus from = EquipmentStatus.fromLabel(oldStatus);
+        EquipmentStatus to = EquipmentStatus.fromLabel(newStatus);
+        if (from == to) {
+            return;
+        }
+        if (from != null) {
+            equipmentByStatus.get(from).remove(equipment);
+        }
+        if (to != null) {
+            equipmentByStatus.get(to).add(equipment);
+        }
+    }
+
+    /**
+     * Retrieves the equipment with a status, sorted by name and purchase date.
+     *
+     * @param status The status to look up.
+     * @return A sorted copy of the equipment with that status.
+     */
+    public synchronized List<Equipment> get(EquipmentStatus status) {
+        return new ArrayList<>(equipmentByStatus.get(status));
+    }
+
+    /**
+     * Passes the equipment with a status to an action, sorted by name and purchase date.
+     * Equipment is copied in batches and the index is not locked while the action runs.
+     * Equipment changed during the walk may or may not be included.
+     *
+     * @param status The status to look up.
+     * @param action The action to run for each equipment.
+     */
+    public void forEach(EquipmentStatus status, Consumer<? super Equipment> action) {
+        List<Equipment> batch = new ArrayList<>(BATCH_SIZE);
+        Equipment last = null; // Last equipment of the previous batch
+        do {
+            batch.clear();
+            synchronized (this) {
+                NavigableSet<Equipment> equipment = equipmentByStatus.get(status);
+                Iterator<Equipment> iterator = last == null
+                        ? equipment.iterator()
+                        : equipment.tailSet(last, false).iterator();
+                while (batch.size() < BATCH_SIZE && iterator.hasNext()) {
+                    batch.add(iterator.next());
+                }
+            }
+            batch.forEach(action);
+            if (!batch.isEmpty()) {
+                last = batch.get(batch.size() - 1);
+            }
+        } while (batch.size() == BATCH_SIZE);
+    }
+
+    /**
+     * Counts the equipment with a status.
+     *
+     * @param status The status to look up.
+     * @return The number of equipment with that status.
+     */
+    public synchronized int count(EquipmentStatus status) {
+        return equipmentByStatus.get(status).size();
+    }
+}
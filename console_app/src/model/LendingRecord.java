@@ -1,10 +1,11 @@
 package model;
 
-import java.util.Date;
+import java.time.LocalDate;
 
 import utils.DateUtils;
 
 import java.util.List;
+import java.util.Objects;
 
 /**
  * @author Luong Thi Tra My - s3987023
@@ -18,8 +19,8 @@ public class LendingRecord {
     private Borrower borrower;
     private List<Equipment> equipmentList;
     private Academic supervisor; // Only for students
-    private Date borrowDate;
-    private Date returnDate;
+    private LocalDate borrowDate;
+    private LocalDate returnDate;
     private String status;
     private String purpose;
 
@@ -27,7 +28,7 @@ public class LendingRecord {
      * Constructor for LendingRecord.
      */
     public LendingRecord(String recordID, Borrower borrower, List<Equipment> equipmentList, Academic supervisor,
-                         Date borrowDate, Date returnDate, String status, String purpose) {
+                         LocalDate borrowDate, LocalDate returnDate, String status, String purpose) {
         this.recordID = recordID;
         this.borrower = borrower;
         this.equipmentList = equipmentList;
@@ -43,6 +44,14 @@ public class LendingRecord {
         return recordID;
     }
 
+    /**
+     * Changes the record ID.
+     * Lending records are equal to and hashed by their ID, so this must only be called before
+     * the record is put in a hash set, a map keyed by it, or the repository; otherwise it can
+     * no longer be found there.
+     *
+     * @param recordID The new record ID.
+     */
     public void setRecordID(String recordID) {
         this.recordID = recordID;
     }
@@ -71,19 +80,19 @@ public class LendingRecord {
         this.supervisor = supervisor;
     }
 
-    public Date getBorrowDate() {
+    public LocalDate getBorrowDate() {
         return borrowDate;
     }
 
-    public void setBorrowDate(Date borrowDate) {
+    public void setBorrowDate(LocalDate borrowDate) {
         this.borrowDate = borrowDate;
     }
 
-    public Date getReturnDate() {
+    public LocalDate getReturnDate() {
         return returnDate;
     }
 
-    public void setReturnDate(Date returnDate) {
+    public void setReturnDate(LocalDate returnDate) {
         this.returnDate = returnDate;
     }
 
@@ -99,14 +108,32 @@ public class LendingRecord {
         return purpose;
     }
 
+    public void setPurpose(String purpose) {
+        this.purpose = purpose;
+    }
+
+    /**
+     * Checks if two LendingRecord objects are equal based on their record ID.
+     *
+     * @param obj The object to compare with.
+     * @return true if both objects have the same record ID, false otherwise.
+     */
     @Override
     public boolean equals(Object obj) {
-        return super.equals(obj);
+        if (this == obj) return true;
+        if (!(obj instanceof LendingRecord)) return false;
+        LendingRecord other = (LendingRecord) obj;
+        return Objects.equals(this.recordID, other.recordID);
     }
 
+    /**
+     * Generates a hash code for LendingRecord objects based on record ID.
+     *
+     * @return A hash code value.
+     */
     @Override
     public int hashCode() {
-        return super.hashCode();
+        return Objects.hashCode(recordID);
     }
 
     /**
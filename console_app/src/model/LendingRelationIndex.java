@@ -0,0 +1,166 @@
+package model;
+
+import java.util.*;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Reverse indexes from a student to their lending records and from an academic to the
+ * students they supervise, kept up to date as records are added, changed and removed.
+ * Listing the records of a student or the students of a supervisor costs the size of the
+ * answer instead of a scan of every record.
+ * All methods are synchronized, so the index can be shared between threads.
+ */
+public class LendingRelationIndex {
+    private final Map<String, Set<LendingRecord>> recordsByStudent = new HashMap<>(); // Student ID to records, in insertion order
+    private final Map<String, Map<Student, Integer>> studentsBySupervisor = new HashMap<>(); // Staff ID to students and their record count
+    private final Map<LendingRecord, Link> links = new HashMap<>(); // Student and supervisor each record was indexed under
+
+    /**
+     * The student and supervisor a record was indexed under, so the record can be
+     * removed correctly after it has been changed.
+     */
+    private static class Link {
+        private final Student student;
+        private final Academic supervisor;
+
+        private Link(Student student, Academic supervisor) {
+            this.student = student;
+            this.supervisor = supervisor;
+        }
+    }
+
+    /**
+     * Adds a lending record to the index. Records of staff borrowers are ignored.
+     *
+     * @param record The lending record to index.
+     */
+    public synchronized void add(LendingRecord record) {
+        if (links.containsKey(record) || !(record.getBorrower() instanceof Student)) {
+            return;
+        }
+        Student student = (Student) record.getBorrower();
+        recordsByStudent.computeIfAbsent(student.getStudentID(), id -> new LinkedHashSet<>()).add(record);
+        link(record, student, record.getSupervisor());
+    }
+
+    /**
+     * Re-indexes a lending record whose borrower or supervisor may have changed.
+     * A record that keeps its student keeps its position in the student's list.
+     *
+     * @param record The changed lending record.
+     */
+    public synchronized void update(LendingRecord record) {
+        Link link = links.get(record);
+        Student student = record.getBorrower() instanceof Student ? (Student) record.getBorrower() : null;
+        if (link == null) {
+            add(record);
+            return;
+        }
+        if (link.student == student && link.supervisor == record.getSupervisor()) {
+            return; // Nothing the index depends on has changed
+        }
+        if (link.student != student) {
+            remove(record);
+            add(record);
+            return;
+        }
+        unlink(record, link);
+        link(record, student, record.getSupervisor());
+    }
+
+    /**
+     * Removes a lending record from the index.
+     *
+     * @param record The lending record to remove.
+     */
+    public synchronized void remove(LendingRecord record) {
+        Link link = links.get(record);
+        if (link == null) {
+            return;
+        }
+        Set<LendingRecord> records = recordsByStudent.get(link.student.getStudentID());
+        if (records != null) {
+            records.remove(record);
+            if (records.isEmpty()) {
+                recordsByStudent.remove(link.student.getStudentID());
+            }
+        }
+        unlink(record, link);
+    }
+
+    /**
+     * Removes every lending record from the index.
+     */
+    public synchronized void clear() {
+        recordsByStudent.clear();
+        studentsBySupervisor.clear();
+        links.clear();
+    }
+
+    /**
+     * Retrieves the lending records of a student.
+     *
+     * @param studentID The ID of the student.
+     * @return A copy of the student's records, in the order they were added.
+     */
+    public synchronized List<LendingRecord> getRecordsOfStudent(String studentID) {
+        Set<LendingRecord> records = recordsByStudent.get(studentID);
+        return records == null ? new ArrayList<>() : new ArrayList<>(records);
+    }
+
+    /**
+     * Finds the supervisor of a student: the supervisor of their latest record that has one.
+     *
+     * @param studentID The ID of the student.
+     * @return The supervisor, or null if none of the student's records has one.
+     */
+    public synchronized Academic getSupervisorOf(String studentID) {
+        Set<LendingRecord> records = recordsByStudent.get(studentID);
+        Academic supervisor = null;
+        if (records != null) {
+            for (LendingRecord record : records) {
+                if (record.getSupervisor() != null) {
+                    supervisor = record.getSupervisor();
+                }
+            }
+        }
+        return supervisor;
+    }
+
+    /**
+     * Retrieves the students supervised by an academic.
+     *
+     * @param staffID The staff ID of the academic.
+     * @return A copy of the supervised students, in the order they were first linked.
+     */
+    public synchronized List<Student> getStudentsSupervisedBy(String staffID) {
+        Map<Student, Integer> students = studentsBySupervisor.get(staffID);
+        return students == null ? new ArrayList<>() : new ArrayList<>(students.keySet());
+    }
+
+    // Remember the link of a record and count it for its supervisor
+    private void link(LendingRecord record, Student student, Academic supervisor) {
+        links.put(record, new Link(student, supervisor));
+        if (supervisor != null) {
+            studentsBySupervisor.computeIfAbsent(supervisor.getStaffID(), id -> new LinkedHashMap<>())
+                    .merge(student, 1, Integer::sum);
+        }
+    }
+
+    // Forget the link of a record; a student leaves a supervisor with their last record
+    private void unlink(LendingRecord record, Link link) {
+        links.remove(record);
+        if (link.supervisor == null) {
+            return;
+        }
+        Map<Student, Integer> students = studentsBySupervisor.get(link.supervisor.getStaffID());
+        if (students != null) {
+            students.computeIfPresent(link.student, (student, count) -> count > 1 ? count - 1 : null);
+            if (students.isEmpty()) {
+                studentsBySupervisor.remove(link.supervisor.getStaffID());
+            }
+        }
+    }
+}
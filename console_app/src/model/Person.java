@@ -1,6 +1,6 @@
 package model;
 
-import java.util.Date;
+import java.time.LocalDate;
 
 import utils.DateUtils;
 
@@ -20,7 +20,7 @@ public abstract class Person {
     private String fullName;
 
     // Birth date of the person
-    private Date birthDate;
+    private LocalDate birthDate;
 
     // Contact information of the person
     private String contactInfo;
@@ -29,12 +29,12 @@ public abstract class Person {
     public Person() {
         this.id = ""; // Default value to prevent null issues
         this.fullName = ""; // Default value to prevent null issues
-        this.birthDate = new Date(); // Default value to prevent null issues
+        this.birthDate = LocalDate.now(); // Default value to prevent null issues
         this.contactInfo = ""; // Default value to prevent null issues
     }
 
     // Parameterized constructor to initialize a person with specific details
-    public Person(String id, String fullName, Date birthDate, String contactInfo) {
+    public Person(String id, String fullName, LocalDate birthDate, String contactInfo) {
         this.id = id;
         this.fullName = fullName;
         this.birthDate = birthDate;
@@ -51,16 +51,31 @@ public abstract class Person {
         return fullName;
     }
 
-    // Retrieves the raw Date object (
-    public Date getBirthDate() {
+    // Sets the full name of the person
+    public void setFullName(String fullName) {
+        this.fullName = fullName;
+    }
+
+    // Retrieves the raw LocalDate object (
+    public LocalDate getBirthDate() {
         return birthDate;
     }
 
+    // Sets the birth date of the person
+    public void setBirthDate(LocalDate birthDate) {
+        this.birthDate = birthDate;
+    }
+
     // Retrieves the contact information of the person
     public String getContactInfo() {
         return contactInfo;
     }
 
+    // Sets the contact information of the person
+    public void setContactInfo(String contactInfo) {
+        this.contactInfo = contactInfo;
+    }
+
     /**
      * Define the displayInfo() method to displays all the details of a person.
      */
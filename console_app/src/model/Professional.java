@@ -2,7 +2,8 @@ package model;
 
 import utils.DateUtils;
 
-import java.util.Date;
+import java.time.LocalDate;
+import java.util.Objects;
 
 /**
  * @author Luong Thi Tra My
@@ -31,7 +32,7 @@ public class Professional extends Staff {
      * @param contactInfo The contact information of the professional.
      * @param department  The department where the professional works.
      */
-    public Professional(String staffID, String id, String fullName, Date birthDate, String contactInfo, String department) {
+    public Professional(String staffID, String id, String fullName, LocalDate birthDate, String contactInfo, String department) {
         super(staffID, id, fullName, birthDate, contactInfo);
         this.department = department;
     }
@@ -45,6 +46,39 @@ public class Professional extends Staff {
         return department;
     }
 
+    /**
+     * Sets the department of the professional staff.
+     *
+     * @param department The department name.
+     */
+    public void setDepartment(String department) {
+        this.department = department;
+    }
+
+    /**
+     * Checks if two Professional objects are equal based on their staffID.
+     *
+     * @param obj The object to compare with.
+     * @return true if both objects have the same staffID, false otherwise.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof Professional)) return false;
+        Professional other = (Professional) obj;
+        return Objects.equals(this.getStaffID(), other.getStaffID());
+    }
+
+    /**
+     * Generates a hash code for Professional objects based on staffID.
+     *
+     * @return A hash code value.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(getStaffID());
+    }
+
     /**
      * Displays professional staff member's information.
      * Birth date is formatted as MM/dd/yyyy.
@@ -1,6 +1,6 @@
 package model;
 
-import java.util.Date;
+import java.time.LocalDate;
 
 /**
  * @author Luong Thi Tra My
@@ -27,7 +27,7 @@ public abstract class Staff extends Person implements Borrower {
      * @param birthDate   The birth date of the staff member.
      * @param contactInfo The contact information of the staff member.
      */
-    public Staff(String staffID, String id, String fullName, Date birthDate, String contactInfo) {
+    public Staff(String staffID, String id, String fullName, LocalDate birthDate, String contactInfo) {
         super(id, fullName, birthDate, contactInfo);
         this.staffID = staffID;
     }
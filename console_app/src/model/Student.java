@@ -1,8 +1,9 @@
 package model;
 
 import java.util.ArrayList;
-import java.util.Date;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
 
 import utils.DateUtils;
 
@@ -39,7 +40,7 @@ public class Student extends Person implements Borrower {
      * @param contactInfo Contact information of the student (inherited from Person)
      * @param studentID   Unique student ID
      */
-    public Student(String studentID, String id, String fullName, Date birthDate, String contactInfo) {
+    public Student(String studentID, String id, String fullName, LocalDate birthDate, String contactInfo) {
         super(id, fullName, birthDate, contactInfo);
         this.studentID = studentID;
         this.lendingRecords = new ArrayList<>();
@@ -92,25 +93,22 @@ public class Student extends Person implements Borrower {
     }
 
     /**
-     * Updates the student's lending records and assigns a supervisor
-     * based on the provided list of lending records.
+     * Retrieves the lending records associated with the student.
      *
-     * @param allLendingRecords List of all lending records
+     * @return The student's lending records
      */
-    public void updateLendingRecords(List<LendingRecord> allLendingRecords) {
-        for (LendingRecord record : allLendingRecords) {
-            if (record.getBorrower() instanceof Student &&
-                    record.getBorrower().getBorrowerID().equals(this.studentID)) {
-                // Check if the record is already in the list
-                if (!lendingRecords.contains(record)) {
-                    addLendingRecord(record);
-                }
+    public List<LendingRecord> getLendingRecords() {
+        return lendingRecords;
+    }
 
-                if (record.getSupervisor() != null) {
-                    setSupervisor(record.getSupervisor());
-                }
-            }
-        }
+    /**
+     * Replaces the student's lending records, for example with the records
+     * found in the repository's relation index.
+     *
+     * @param lendingRecords The student's lending records
+     */
+    public void setLendingRecords(List<LendingRecord> lendingRecords) {
+        this.lendingRecords = lendingRecords;
     }
 
     /**
@@ -128,12 +126,12 @@ public class Student extends Person implements Borrower {
         if (this == obj) return true;
         if (!(obj instanceof Student)) return false;
         Student other = (Student) obj;
-        return this.studentID.equals(other.studentID) && super.equals(obj);
+        return Objects.equals(this.studentID, other.studentID);
     }
 
     @Override
     public int hashCode() {
-        return studentID.hashCode() * 31 + super.hashCode();
+        return Objects.hashCode(studentID);
     }
 
     /**
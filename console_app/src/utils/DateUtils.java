@@ -1,55 +1,172 @@
 package utils;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.LocalDate;
 
 /**
  * Utility class for handling date operations.
+ * Dates are parsed and formatted by hand instead of through SimpleDateFormat, so the
+ * methods are thread-safe, use no regex or exceptions on the happy path, and only
+ * allocate the resulting LocalDate or String.
  */
 public class DateUtils {
-    private static final String INPUT_FORMAT = "yyyy-MM-dd"; // Expected input format
-    private static final String OUTPUT_FORMAT = "MM/dd/yyyy"; // Desired output format
-    private static final SimpleDateFormat INPUT_FORMATTER = new SimpleDateFormat(INPUT_FORMAT);
-    private static final SimpleDateFormat OUTPUT_FORMATTER = new SimpleDateFormat(OUTPUT_FORMAT);
+    private static final int DATE_LENGTH = 10; // Length of both "yyyy-MM-dd" and "MM/dd/yyyy"
 
     /**
-     * Parses a date string into a Date object.
+     * Parses a date string into a LocalDate object.
      *
      * @param dateStr Date string in format "yyyy-MM-dd".
-     * @return Parsed Date object, or null if parsing fails.
+     * @return Parsed LocalDate object, or null if parsing fails.
      */
-    public static Date parseDate(String dateStr) {
-        if (dateStr == null || dateStr.trim().equalsIgnoreCase("N/A")) {
+    public static LocalDate parseDate(String dateStr) {
+        if (dateStr == null) {
+            return null;
+        }
+        return parseDate(dateStr, 0, dateStr.length());
+    }
+
+    /**
+     * Parses a "yyyy-MM-dd" date from part of a character sequence, ignoring surrounding spaces.
+     * Lets callers parse a field in place without creating a substring.
+     *
+     * @param text  The characters holding the date.
+     * @param start Index of the first character (inclusive).
+     * @param end   Index of the last character (exclusive).
+     * @return Parsed LocalDate object, or null for "N/A" or if parsing fails.
+     */
+    public static LocalDate parseDate(CharSequence text, int start, int end) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+
+        if (isNotAvailable(text, start, end)) {
             return null; // Handle "N/A" case
         }
 
-        try {
-            return INPUT_FORMATTER.parse(dateStr);
-        } catch (ParseException e) {
-            System.err.println("Error parsing date: " + dateStr);
-            return null;
+        if (end - start == DATE_LENGTH && text.charAt(start + 4) == '-' && text.charAt(start + 7) == '-') {
+            int year = digits(text, start, 4);
+            int month = digits(text, start + 5, 2);
+            int day = digits(text, start + 8, 2);
+            if (year >= 0 && month >= 1 && month <= 12 && day >= 1 && day <= daysInMonth(year, month)) {
+                return LocalDate.of(year, month, day);
+            }
         }
+
+        System.err.println("Error parsing date: " + text.subSequence(start, end));
+        return null;
     }
 
     /**
-     * Formats a Date object into a string with the format "MM/dd/yyyy".
+     * Formats a LocalDate object into a string with the format "MM/dd/yyyy".
      *
-     * @param date The Date object to format.
+     * @param date The LocalDate object to format.
      * @return A formatted date string (MM/dd/yyyy), or "N/A" if the date is null.
      */
-    public static String formatDate(Date date) {
-        return (date != null) ? OUTPUT_FORMATTER.format(date) : "N/A";
+    public static String formatDate(LocalDate date) {
+        if (date == null) {
+            return "N/A";
+        }
+        char[] chars = new char[DATE_LENGTH];
+        putDigits(chars, 0, date.getMonthValue(), 2);
+        chars[2] = '/';
+        putDigits(chars, 3, date.getDayOfMonth(), 2);
+        chars[5] = '/';
+        putDigits(chars, 6, date.getYear(), 4);
+        return new String(chars);
     }
 
-/* *
-     * Formats a Date object into a string with the format "yyyy-MM-dd" to save to the file.
-            *
-            * @param date The Date object to format.
-            * @return A formatted date string (MM/dd/yyyy), or "N/A" if the date is null.
-            */
-    public static String formatDateForFile(Date date) {
-        return (date != null) ? INPUT_FORMATTER.format(date) : "N/A";
+    /**
+     * Formats a LocalDate object into a string with the format "yyyy-MM-dd" to save to the file.
+     *
+     * @param date The LocalDate object to format.
+     * @return A formatted date string (yyyy-MM-dd), or "N/A" if the date is null.
+     */
+    public static String formatDateForFile(LocalDate date) {
+        if (date == null) {
+            return "N/A";
+        }
+        char[] chars = new char[DATE_LENGTH];
+        putFileDate(chars, date);
+        return new String(chars);
     }
 
+    /**
+     * Appends a date in the format "yyyy-MM-dd" (or "N/A") to a builder without creating a String.
+     *
+     * @param sb   The builder to append to.
+     * @param date The LocalDate object to format.
+     * @return The same builder.
+     */
+    public static StringBuilder appendDateForFile(StringBuilder sb, LocalDate date) {
+        if (date == null) {
+            return sb.append("N/A");
+        }
+        int year = date.getYear();
+        int month = date.getMonthValue();
+        int day = date.getDayOfMonth();
+        sb.append((char) ('0' + year / 1000 % 10))
+                .append((char) ('0' + year / 100 % 10))
+                .append((char) ('0' + year / 10 % 10))
+                .append((char) ('0' + year % 10))
+                .append('-')
+                .append((char) ('0' + month / 10))
+                .append((char) ('0' + month % 10))
+                .append('-')
+                .append((char) ('0' + day / 10))
+                .append((char) ('0' + day % 10));
+        return sb;
+    }
+
+    private static void putFileDate(char[] chars, LocalDate date) {
+        putDigits(chars, 0, date.getYear(), 4);
+        chars[4] = '-';
+        putDigits(chars, 5, date.getMonthValue(), 2);
+        chars[7] = '-';
+        putDigits(chars, 8, date.getDayOfMonth(), 2);
+    }
+
+    // Write a number as a fixed count of digits, padded with zeros
+    private static void putDigits(char[] chars, int offset, int value, int count) {
+        for (int i = offset + count - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    // Read a fixed count of digits, or -1 if any character is not a digit
+    private static int digits(CharSequence text, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static boolean isNotAvailable(CharSequence text, int start, int end) {
+        return end - start == 3
+                && Character.toUpperCase(text.charAt(start)) == 'N'
+                && text.charAt(start + 1) == '/'
+                && Character.toUpperCase(text.charAt(start + 2)) == 'A';
+    }
 }
@@ -0,0 +1,107 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Records latencies in nanoseconds and reports percentiles, in the style of HdrHistogram.
+ * Values below 128 have their own bucket. Above that, every power of two is split into
+ * 64 buckets, so a reported percentile is within about 1.6% of the real value whatever
+ * its size. Recording is lock-free and takes constant time, so it can be used on every call.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKETS = 64; // Buckets per power of two
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS; // Values below this are exact
+    private static final int BUCKET_COUNT = (64 - 6) * SUB_BUCKETS + SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos The latency in nanoseconds. Negative values are recorded as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        buckets.incrementAndGet(indexOf(value));
+        count.increment();
+        total.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    // Bucket for a value: exact below 128, then 64 buckets per power of two
+    private static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 6;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    // Highest value that falls in a bucket
+    private static long highestValueOf(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index / SUB_BUCKETS) - 1;
+        long subBucket = (index % SUB_BUCKETS) + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Gets the latency below which the given share of the recorded values fall.
+     *
+     * @param percentile The percentile, for example 99.0 or 99.9.
+     * @return The latency in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+        long recorded = count.sum();
+        if (recorded == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(recorded * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= target) {
+                return Math.min(highestValueOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    // Get the number of recorded values
+    public long getCount() {
+        return count.sum();
+    }
+
+    // Get the largest recorded value
+    public long getMax() {
+        return max.get();
+    }
+
+    // Get the mean of the recorded values
+    public long getMean() {
+        long recorded = count.sum();
+        return recorded == 0 ? 0 : total.sum() / recorded;
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        total.reset();
+        max.set(0);
+    }
+}
@@ -0,0 +1,214 @@
+package utils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Registry of the counters and latency histograms of the application.
+ * Components look up their counters once and keep them in static fields, so counting is a
+ * single lock-free add. Everything can be read from the Statistics menu or over JMX as
+ * elms:type=Statistics.
+ */
+public class Metrics {
+    private static final String MBEAN_NAME = "elms:type=Statistics";
+
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private static final boolean allocationSupported = threads instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported();
+
+    /**
+     * Gets a counter, creating it on first use.
+     *
+     * @param name The counter name, for example "io.lendingRecordStore.bytesWritten".
+     * @return The counter.
+     */
+    public static LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Gets a latency histogram, creating it on first use.
+     *
+     * @param name The histogram name, for example "lending.addLendingRecord".
+     * @return The histogram.
+     */
+    public static LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    /**
+     * Gets the statistics of an operation.
+     * The histogram and counters are shared with every other Operation of the same name.
+     *
+     * @param name The operation name.
+     * @return The operation statistics.
+     */
+    public static Operation operation(String name) {
+        return new Operation(name);
+    }
+
+    /**
+     * Gets the bytes allocated so far by the current thread.
+     *
+     * @return The allocated bytes, or 0 if the JVM cannot report them.
+     */
+    public static long currentThreadAllocatedBytes() {
+        return allocationSupported
+                ? ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes()
+                : 0;
+    }
+
+    /**
+     * Gets the bytes allocated by every live thread, by thread name.
+     *
+     * @return The allocated bytes of each thread, sorted by name.
+     */
+    public static Map<String, Long> getThreadAllocatedBytes() {
+        Map<String, Long> result = new TreeMap<>();
+        if (!allocationSupported) {
+            return result;
+        }
+        long[] ids = threads.getAllThreadIds();
+        long[] allocated = ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(ids);
+        ThreadInfo[] infos = threads.getThreadInfo(ids);
+        for (int i = 0; i < ids.length; i++) {
+            if (infos[i] != null && allocated[i] >= 0) {
+                result.put(infos[i].getThreadName() + " #" + ids[i], allocated[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the value of every counter.
+     *
+     * @return The counters, sorted by name.
+     */
+    public static Map<String, Long> getCounters() {
+        Map<String, Long> result = new TreeMap<>();
+        counters.forEach((name, counter) -> result.put(name, counter.sum()));
+        return result;
+    }
+
+    /**
+     * Gets the count, mean, percentiles and maximum of every histogram.
+     *
+     * @return Values in nanoseconds keyed by histogram name and statistic, sorted by name.
+     */
+    public static Map<String, Long> getLatencies() {
+        Map<String, Long> result = new TreeMap<>();
+        histograms.forEach((name, histogram) -> {
+            result.put(name + ".count", histogram.getCount());
+            result.put(name + ".mean", histogram.getMean());
+            result.put(name + ".p50", histogram.getPercentile(50));
+            result.put(name + ".p90", histogram.getPercentile(90));
+            result.put(name + ".p99", histogram.getPercentile(99));
+            result.put(name + ".p999", histogram.getPercentile(99.9));
+            result.put(name + ".max", histogram.getMax());
+        });
+        return result;
+    }
+
+    // Get the histograms by name
+    public static Map<String, LatencyHistogram> getHistograms() {
+        return new TreeMap<>(histograms);
+    }
+
+    /**
+     * Clears all counters and histograms.
+     */
+    public static void reset() {
+        counters.values().forEach(LongAdder::reset);
+        histograms.values().forEach(LatencyHistogram::reset);
+    }
+
+    /**
+     * Makes the statistics available over JMX. Does nothing if already registered.
+     */
+    public static synchronized void registerMBean() {
+        try {
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new Statistics(), name);
+            }
+        } catch (JMException e) {
+            System.err.println("Error registering statistics MBean: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Latency, call count, failure count and allocated bytes of one operation.
+     */
+    public static class Operation {
+        private final LatencyHistogram latency;
+        private final LongAdder calls;
+        private final LongAdder failures;
+        private final LongAdder allocatedBytes;
+
+        private Operation(String name) {
+            this.latency = histogram(name);
+            this.calls = counter(name + ".calls");
+            this.failures = counter(name + ".failures");
+            this.allocatedBytes = counter(name + ".allocatedBytes");
+        }
+
+        /**
+         * Runs a call and records its latency and the bytes the calling thread allocated.
+         *
+         * @param call The call to measure.
+         * @return The result of the call.
+         */
+        public <T> T measure(Supplier<T> call) {
+            long allocatedBefore = currentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                failures.increment();
+                throw e;
+            } finally {
+                latency.record(System.nanoTime() - start);
+                calls.increment();
+                allocatedBytes.add(currentThreadAllocatedBytes() - allocatedBefore);
+            }
+        }
+    }
+
+    /**
+     * JMX view of the registry.
+     */
+    private static class Statistics implements StatisticsMXBean {
+        @Override
+        public Map<String, Long> getCounters() {
+            return Metrics.getCounters();
+        }
+
+        @Override
+        public Map<String, Long> getLatencies() {
+            return Metrics.getLatencies();
+        }
+
+        @Override
+        public Map<String, Long> getThreadAllocatedBytes() {
+            return Metrics.getThreadAllocatedBytes();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
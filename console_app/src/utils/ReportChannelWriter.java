@@ -0,0 +1,131 @@
+package utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Writes a report as UTF-8 through a file channel with one reused 64 KB buffer.
+ * ASCII text is copied into the buffer directly; other text goes through a reused encoder.
+ * The report is written to a temporary file and only replaces the target on {@link #commit()},
+ * so a failed report never leaves a half-written file behind.
+ */
+public class ReportChannelWriter implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path target;     // Final report file
+    private final Path temp;       // File being written
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private long bytesWritten;     // Bytes handed to the channel so far
+    private boolean committed;
+
+    /**
+     * Opens a writer for a report file.
+     *
+     * @param target The report file. It is replaced when the report is committed.
+     * @throws IOException If the temporary file cannot be created.
+     */
+    public ReportChannelWriter(Path target) throws IOException {
+        this.target = target.toAbsolutePath();
+        this.temp = this.target.resolveSibling(this.target.getFileName() + ".tmp");
+        this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Writes text to the report.
+     *
+     * @param text The text to write.
+     * @throws IOException If the text cannot be written.
+     */
+    public void write(CharSequence text) throws IOException {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                writeEncoded(text, i, length);
+                return;
+            }
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.put((byte) c);
+        }
+    }
+
+    // Encode the rest of a text that contains non-ASCII characters
+    private void writeEncoded(CharSequence text, int start, int end) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(text, start, end);
+        encoder.reset();
+        CoderResult result;
+        do {
+            result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                flush();
+            }
+        } while (result.isOverflow());
+        do {
+            result = encoder.flush(buffer);
+            if (result.isOverflow()) {
+                flush();
+            }
+        } while (result.isOverflow());
+    }
+
+    // Write the buffered bytes to the channel
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes the remaining bytes and moves the report into place.
+     *
+     * @throws IOException If the report cannot be written or moved.
+     */
+    public void commit() throws IOException {
+        flush();
+        channel.close();
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committed = true;
+    }
+
+    // Get the number of bytes written so far
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Closes the writer. A report that was not committed is deleted.
+     *
+     * @throws IOException If the temporary file cannot be deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        if (committed) {
+            return;
+        }
+        channel.close();
+        Files.deleteIfExists(temp);
+    }
+}
@@ -0,0 +1,50 @@
+package utils;
+
+import java.util.function.BiConsumer;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * One column of a report: its name, its width in the fixed-width format,
+ * and how to append its value for a row.
+ * Values are appended to a reused StringBuilder, so no String is built per field.
+ *
+ * @param <T> The type of the report rows.
+ */
+public class ReportColumn<T> {
+    private final String name;                          // Header in text and CSV, key in JSON
+    private final int width;                            // Width in the fixed-width format
+    private final BiConsumer<? super T, StringBuilder> value; // Appends the value of a row
+
+    private ReportColumn(String name, int width, BiConsumer<? super T, StringBuilder> value) {
+        this.name = name;
+        this.width = width;
+        this.value = value;
+    }
+
+    /**
+     * Creates a column.
+     *
+     * @param name  The column name.
+     * @param width The column width in the fixed-width format.
+     * @param value Appends the value of a row; appends nothing for a missing value.
+     * @return The column.
+     */
+    public static <T> ReportColumn<T> of(String name, int width, BiConsumer<? super T, StringBuilder> value) {
+        return new ReportColumn<>(name, width, value);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    // Append the value of this column for a row
+    public void appendValue(T row, StringBuilder sb) {
+        value.accept(row, sb);
+    }
+}
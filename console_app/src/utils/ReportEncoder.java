@@ -0,0 +1,204 @@
+package utils;
+
+import java.util.List;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Turns report rows into lines of text in one report format.
+ * An encoder appends to a StringBuilder given by the caller and keeps one scratch buffer
+ * for field values, so encoding a row does not create any objects once the buffers have grown.
+ * An encoder is not thread safe; use one per report.
+ */
+public abstract class ReportEncoder {
+    protected final StringBuilder value = new StringBuilder(64); // Value of the current field, reused
+
+    /**
+     * Appends the lines that come before the first row.
+     *
+     * @param title   The report title.
+     * @param columns The report columns.
+     * @param out     Where to append the lines.
+     */
+    public abstract void encodeHeader(String title, List<? extends ReportColumn<?>> columns, StringBuilder out);
+
+    /**
+     * Appends one row as a single line.
+     *
+     * @param row     The row to encode.
+     * @param columns The report columns.
+     * @param out     Where to append the line.
+     */
+    public <T> void encodeRow(T row, List<ReportColumn<T>> columns, StringBuilder out) {
+        beginRow(out);
+        for (int i = 0; i < columns.size(); i++) {
+            ReportColumn<T> column = columns.get(i);
+            value.setLength(0);
+            column.appendValue(row, value);
+            encodeField(i, column, out);
+        }
+        endRow(out);
+    }
+
+    // Append what comes before the first field of a row
+    protected void beginRow(StringBuilder out) {
+    }
+
+    // Append the field held in value
+    protected abstract void encodeField(int index, ReportColumn<?> column, StringBuilder out);
+
+    // Append what comes after the last field of a row
+    protected void endRow(StringBuilder out) {
+        out.append('\n');
+    }
+
+    /**
+     * Comma-separated values with a header line. Fields are quoted only when they contain
+     * a comma, a quote or a line break, and quotes inside them are doubled.
+     */
+    static class Csv extends ReportEncoder {
+        @Override
+        public void encodeHeader(String title, List<? extends ReportColumn<?>> columns, StringBuilder out) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append(columns.get(i).getName());
+            }
+            out.append('\n');
+        }
+
+        @Override
+        protected void encodeField(int index, ReportColumn<?> column, StringBuilder out) {
+            if (index > 0) {
+                out.append(',');
+            }
+            if (!needsQuotes()) {
+                out.append(value);
+                return;
+            }
+            out.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    out.append('"');
+                }
+                out.append(c);
+            }
+            out.append('"');
+        }
+
+        private boolean needsQuotes() {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * One JSON object per line, keyed by column name. There is no header, so files can be
+     * split or concatenated freely. Missing values are written as null.
+     */
+    static class JsonLines extends ReportEncoder {
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+        @Override
+        public void encodeHeader(String title, List<? extends ReportColumn<?>> columns, StringBuilder out) {
+        }
+
+        @Override
+        protected void beginRow(StringBuilder out) {
+            out.append('{');
+        }
+
+        @Override
+        protected void encodeField(int index, ReportColumn<?> column, StringBuilder out) {
+            if (index > 0) {
+                out.append(',');
+            }
+            out.append('"').append(column.getName()).append("\":");
+            if (value.length() == 0) {
+                out.append("null");
+                return;
+            }
+            out.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"' -> out.append("\\\"");
+                    case '\\' -> out.append("\\\\");
+                    case '\n' -> out.append("\\n");
+                    case '\r' -> out.append("\\r");
+                    case '\t' -> out.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                        } else {
+                            out.append(c);
+                        }
+                    }
+                }
+            }
+            out.append('"');
+        }
+
+        @Override
+        protected void endRow(StringBuilder out) {
+            out.append("}\n");
+        }
+    }
+
+    /**
+     * Plain text table for reading. Each field is padded or cut to its column width and
+     * columns are separated by a space. Line breaks inside a value are shown as spaces.
+     */
+    static class FixedWidth extends ReportEncoder {
+        @Override
+        public void encodeHeader(String title, List<? extends ReportColumn<?>> columns, StringBuilder out) {
+            out.append(title).append('\n');
+            out.append("----------------------\n");
+            int lineWidth = 0;
+            for (int i = 0; i < columns.size(); i++) {
+                ReportColumn<?> column = columns.get(i);
+                value.setLength(0);
+                value.append(column.getName());
+                encodeField(i, column, out);
+                lineWidth += column.getWidth() + (i > 0 ? 1 : 0);
+            }
+            endRow(out);
+            out.append("-".repeat(lineWidth)).append('\n');
+        }
+
+        @Override
+        protected void encodeField(int index, ReportColumn<?> column, StringBuilder out) {
+            if (index > 0) {
+                out.append(' ');
+            }
+            int width = column.getWidth();
+            int length = Math.min(value.length(), width);
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                out.append(c == '\n' || c == '\r' ? ' ' : c);
+            }
+            for (int i = length; i < width; i++) {
+                out.append(' ');
+            }
+        }
+
+        @Override
+        protected void endRow(StringBuilder out) {
+            // Drop the padding of the last column
+            int end = out.length();
+            while (end > 0 && out.charAt(end - 1) == ' ') {
+                end--;
+            }
+            out.setLength(end);
+            out.append('\n');
+        }
+    }
+}
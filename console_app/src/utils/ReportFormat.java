@@ -0,0 +1,43 @@
+package utils;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * The file formats a report can be written in.
+ */
+public enum ReportFormat {
+    TEXT("Fixed-width text", ".txt"),
+    CSV("CSV", ".csv"),
+    JSON_LINES("JSON Lines", ".jsonl");
+
+    private final String label;     // Name shown to the user
+    private final String extension; // File extension, including the dot
+
+    ReportFormat(String label, String extension) {
+        this.label = label;
+        this.extension = extension;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Creates an encoder for this format. Encoders keep a scratch buffer, so each report
+     * should use its own encoder.
+     *
+     * @return A new encoder.
+     */
+    public ReportEncoder newEncoder() {
+        return switch (this) {
+            case TEXT -> new ReportEncoder.FixedWidth();
+            case CSV -> new ReportEncoder.Csv();
+            case JSON_LINES -> new ReportEncoder.JsonLines();
+        };
+    }
+}
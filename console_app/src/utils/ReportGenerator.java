@@ -2,20 +2,136 @@ package utils;
 
 import model.Equipment;
 import model.LendingRecord;
+import model.Student;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 
 /**
  * @author Luong Thi Tra My - s3987023
  * @Version 1.0
  * <p>
- * Utility class to handle exporting reports to text files.
+ * Utility class to handle exporting reports to files.
+ * Rows are streamed from their source one at a time, encoded into a reused buffer and written
+ * through a {@link ReportChannelWriter}, so the size of a report is not limited by the heap.
+ * Reports can be written as fixed-width text, CSV or JSON Lines.
  */
 public class ReportGenerator {
+    private static final LongAdder bytesWritten = Metrics.counter("io.reportGenerator.bytesWritten");
+    private static final LongAdder rowsWritten = Metrics.counter("io.reportGenerator.rowsWritten");
+    private static final LongAdder ioErrors = Metrics.counter("io.reportGenerator.errors");
+
+    public static final String OVERDUE_TITLE = "Overdue Lending Records Report";
+    public static final String AVAILABLE_EQUIPMENT_TITLE = "Available Equipment Report";
+
+    // Columns of a lending record report
+    public static final List<ReportColumn<LendingRecord>> LENDING_RECORD_COLUMNS = List.of(
+            ReportColumn.of("recordID", 8, (record, sb) -> sb.append(record.getRecordID())),
+            ReportColumn.of("borrowerID", 10, (record, sb) -> sb.append(record.getBorrower().getBorrowerID())),
+            ReportColumn.of("borrowerName", 24, (record, sb) -> sb.append(record.getBorrower().getFullName())),
+            ReportColumn.of("equipmentIDs", 24, ReportGenerator::appendEquipmentIDs),
+            ReportColumn.of("status", 9, (record, sb) -> sb.append(record.getStatus())),
+            ReportColumn.of("purpose", 30, (record, sb) -> sb.append(record.getPurpose())),
+            ReportColumn.of("borrowDate", 10, (record, sb) -> appendDate(sb, record.getBorrowDate())),
+            ReportColumn.of("returnDate", 10, (record, sb) -> appendDate(sb, record.getReturnDate())),
+            ReportColumn.of("supervisor", 24, ReportGenerator::appendSupervisor));
+
+    // Columns of an equipment report
+    public static final List<ReportColumn<Equipment>> EQUIPMENT_COLUMNS = List.of(
+            ReportColumn.of("equipmentID", 11, (equipment, sb) -> sb.append(equipment.getId())),
+            ReportColumn.of("name", 30, (equipment, sb) -> sb.append(equipment.getName())),
+            ReportColumn.of("status", 11, (equipment, sb) -> sb.append(equipment.getStatus())),
+            ReportColumn.of("purchasedDate", 13, (equipment, sb) -> appendDate(sb, equipment.getPurchasedDate())),
+            ReportColumn.of("condition", 17, (equipment, sb) -> sb.append(equipment.getCondition())));
+
+    /**
+     * A source of report rows, such as {@code list::forEach} or a manager method that walks
+     * its index in batches.
+     *
+     * @param <T> The type of the rows.
+     */
+    @FunctionalInterface
+    public interface RowSource<T> {
+        /**
+         * Passes every row to an action, in report order.
+         *
+         * @param action The action to run for each row.
+         */
+        void forEach(Consumer<? super T> action);
+    }
+
+    /**
+     * Streams rows into a report file.
+     *
+     * @param title    The report title, used by the text format.
+     * @param columns  The report columns.
+     * @param rows     The rows of the report.
+     * @param format   The file format.
+     * @param filePath File path for saving the report.
+     * @return The number of rows written, or -1 if the report could not be written.
+     */
+    public static <T> long export(String title, List<ReportColumn<T>> columns, RowSource<T> rows,
+                                  ReportFormat format, String filePath) {
+        ReportEncoder encoder = format.newEncoder();
+        StringBuilder line = new StringBuilder(256); // Reused for every row
+        long[] count = {0};
+
+        try (ReportChannelWriter writer = new ReportChannelWriter(Path.of(filePath))) {
+            encoder.encodeHeader(title, columns, line);
+            writer.write(line);
+
+            rows.forEach(row -> {
+                line.setLength(0);
+                encoder.encodeRow(row, columns, line);
+                try {
+                    writer.write(line);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                count[0]++;
+            });
+
+            writer.commit();
+            bytesWritten.add(writer.getBytesWritten());
+            rowsWritten.add(count[0]);
+            return count[0];
+        } catch (IOException | UncheckedIOException e) {
+            ioErrors.increment();
+            System.err.println("Error writing " + title.toLowerCase() + " to file: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Export overdue lending records to a report file.
+     *
+     * @param records  Source of the overdue lending records, in report order.
+     * @param format   The file format.
+     * @param filePath File path for saving the report.
+     * @return The number of records written, or -1 if the report could not be written.
+     */
+    public static long exportLendingRecords(RowSource<LendingRecord> records, ReportFormat format, String filePath) {
+        return export(OVERDUE_TITLE, LENDING_RECORD_COLUMNS, records, format, filePath);
+    }
+
+    /**
+     * Export available equipment to a report file.
+     *
+     * @param equipment Source of the available equipment, in report order.
+     * @param format    The file format.
+     * @param filePath  File path for saving the report.
+     * @return The number of equipment written, or -1 if the report could not be written.
+     */
+    public static long exportAvailableEquipment(RowSource<Equipment> equipment, ReportFormat format, String filePath) {
+        return export(AVAILABLE_EQUIPMENT_TITLE, EQUIPMENT_COLUMNS, equipment, format, filePath);
+    }
+
     /**
      * Export a list of overdue lending records to text file.
      *
@@ -23,39 +139,41 @@ public class ReportGenerator {
      * @param filePath File path for saving the report.
      */
     public static void exportLendingRecordsToFile(List<LendingRecord> records, String filePath) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-            writer.write("Overdue Lending Records Report\n");
-            writer.write("----------------------\n");
-
-            for (int i = 0; i < records.size();
-                 i++) {
-                LendingRecord record = records.get(i);
-                writer.write(i + 1 + ". ");
-                writer.write(record.toString() + "\n"); // Assuming toString() provides readable output
-            }
-        } catch (IOException e) {
-            System.err.println("Error writing overdue lending records to file: " + e.getMessage());
-        }
+        exportLendingRecords(records::forEach, ReportFormat.TEXT, filePath);
     }
 
     /**
      * Export a list of available equipment to text file
      *
      * @param equipmentList List of available equipment to export.
-     * @param filePath      File path for saving the report.
+     * @param newFilePath   File path for saving the report.
      */
     public static void exportAvailableEquipmentToFile(List<Equipment> equipmentList, String newFilePath) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(newFilePath))) {
-            writer.write("Available Equipment Report\n");
-            writer.write("----------------------\n");
-
-            for (int i = 0; i < equipmentList.size(); i++) {
-                Equipment equipment = equipmentList.get(i);
-                writer.write(i + 1 + ". ");
-                writer.write(equipment.toString() + "\n"); // Assuming toString() provides readable output
+        exportAvailableEquipment(equipmentList::forEach, ReportFormat.TEXT, newFilePath);
+    }
+
+    // Append the equipment IDs of a record separated by semicolons
+    private static void appendEquipmentIDs(LendingRecord record, StringBuilder sb) {
+        List<Equipment> equipmentList = record.getEquipmentList();
+        for (int i = 0; i < equipmentList.size(); i++) {
+            if (i > 0) {
+                sb.append(';');
             }
-        } catch (IOException e) {
-            System.err.println("Error writing available equipment to file: " + e.getMessage());
+            sb.append(equipmentList.get(i).getId());
+        }
+    }
+
+    // Append the supervisor of a student's record; other records have none
+    private static void appendSupervisor(LendingRecord record, StringBuilder sb) {
+        if (record.getBorrower() instanceof Student && record.getSupervisor() != null) {
+            sb.append(record.getSupervisor().getFullName());
+        }
+    }
+
+    // Append a date as yyyy-MM-dd, or nothing if it is missing
+    private static void appendDate(StringBuilder sb, LocalDate date) {
+        if (date != null) {
+            DateUtils.appendDateForFile(sb, date);
         }
     }
 }
@@ -0,0 +1,236 @@
+package utils;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * Writes several reports with one scan of each data set.
+ * Each data set is cut into partitions that are filtered and sorted for every report in
+ * parallel on the fork-join pool. The sorted partitions of a report are then k-way merged
+ * straight into the report file, and all reports are written at the same time.
+ * <p>
+ * Usage:
+ * <pre>
+ * ReportJob job = new ReportJob(ReportFormat.CSV);
+ * job.scan(records).report(title, columns, filter, order, filePath);
+ * Map&lt;String, Long&gt; written = job.run();
+ * </pre>
+ */
+public class ReportJob {
+    private static final int PARTITION_SIZE = 16 * 1024; // Rows filtered and sorted by one task
+
+    private final ReportFormat format;               // Format of every report of the job
+    private final List<Scan<?>> scans = new ArrayList<>();
+
+    /**
+     * Creates an empty job.
+     *
+     * @param format The format of every report of the job.
+     */
+    public ReportJob(ReportFormat format) {
+        this.format = format;
+    }
+
+    /**
+     * Adds a data set to scan. Reports on it are added with {@link Scan#report}.
+     *
+     * @param rows The rows to scan. They must not change while the job runs.
+     * @return The scan, to add reports to.
+     */
+    public <T> Scan<T> scan(List<T> rows) {
+        Scan<T> scan = new Scan<>(rows);
+        scans.add(scan);
+        return scan;
+    }
+
+    /**
+     * Runs the job on the common fork-join pool.
+     *
+     * @return The number of rows written to each report file, or -1 for a report that failed,
+     * in the order the reports were added.
+     */
+    public Map<String, Long> run() {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        Map<String, Long> written = new ConcurrentHashMap<>();
+        List<Callable<Void>> writes = new ArrayList<>();
+
+        // Filter and sort every partition of every scan, then queue one write per report
+        for (Scan<?> scan : scans) {
+            scan.addWrites(pool, written, writes);
+        }
+        for (Future<Void> write : pool.invokeAll(writes)) {
+            try {
+                write.get();
+            } catch (ExecutionException e) {
+                System.err.println("Error writing report: " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // A report whose write failed has no count
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Scan<?> scan : scans) {
+            for (Report<?> report : scan.reports) {
+                result.put(report.filePath, written.getOrDefault(report.filePath, -1L));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Passes the rows of sorted runs to an action in merged order.
+     * Rows that compare equal keep the order of their runs.
+     *
+     * @param runs   The sorted runs.
+     * @param order  The order of every run.
+     * @param action The action to run for each row.
+     */
+    static <T> void merge(List<List<T>> runs, Comparator<? super T> order, Consumer<? super T> action) {
+        // Each head is {run, position}; the queue keeps the head with the smallest row first
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, runs.size()), (a, b) -> {
+            int result = order.compare(runs.get(a[0]).get(a[1]), runs.get(b[0]).get(b[1]));
+            return result != 0 ? result : Integer.compare(a[0], b[0]);
+        });
+        for (int i = 0; i < runs.size(); i++) {
+            if (!runs.get(i).isEmpty()) {
+                heads.add(new int[]{i, 0});
+            }
+        }
+        while (!heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<T> run = runs.get(head[0]);
+            action.accept(run.get(head[1]));
+            if (++head[1] < run.size()) {
+                heads.add(head);
+            }
+        }
+    }
+
+    /**
+     * One data set of the job and the reports written from it.
+     *
+     * @param <T> The type of the rows.
+     */
+    public class Scan<T> {
+        private final List<T> rows;
+        private final List<Report<T>> reports = new ArrayList<>();
+
+        private Scan(List<T> rows) {
+            this.rows = rows;
+        }
+
+        /**
+         * Adds a report on this data set.
+         *
+         * @param title    The report title.
+         * @param columns  The report columns.
+         * @param filter   Selects the rows of the report.
+         * @param order    The order of the rows in the report.
+         * @param filePath File path for saving the report.
+         * @return This scan, to add more reports.
+         */
+        public Scan<T> report(String title, List<ReportColumn<T>> columns, Predicate<? super T> filter,
+                              Comparator<? super T> order, String filePath) {
+            reports.add(new Report<>(title, columns, filter, order, filePath));
+            return this;
+        }
+
+        // Filter and sort the partitions, then add a merge-and-write task for each report
+        private void addWrites(ForkJoinPool pool, Map<String, Long> written, List<Callable<Void>> writes) {
+            List<List<List<T>>> partitions = pool.invoke(new PartitionTask<>(rows, reports, 0, rows.size()));
+            for (int r = 0; r < reports.size(); r++) {
+                Report<T> report = reports.get(r);
+                List<List<T>> runs = new ArrayList<>(partitions.size());
+                for (List<List<T>> partition : partitions) {
+                    runs.add(partition.get(r));
+                }
+                writes.add(() -> {
+                    long count = ReportGenerator.export(report.title, report.columns,
+                            action -> merge(runs, report.order, action), format, report.filePath);
+                    written.put(report.filePath, count);
+                    return null;
+                });
+            }
+        }
+    }
+
+    /**
+     * A report on a scan.
+     */
+    private static class Report<T> {
+        private final String title;
+        private final List<ReportColumn<T>> columns;
+        private final Predicate<? super T> filter;
+        private final Comparator<? super T> order;
+        private final String filePath;
+
+        private Report(String title, List<ReportColumn<T>> columns, Predicate<? super T> filter,
+                       Comparator<? super T> order, String filePath) {
+            this.title = title;
+            this.columns = columns;
+            this.filter = filter;
+            this.order = order;
+            this.filePath = filePath;
+        }
+    }
+
+    /**
+     * Filters and sorts a range of rows for every report. Ranges larger than a partition are
+     * split in half. The result has one entry per partition, in row order, and each entry
+     * holds one sorted run per report.
+     */
+    private static class PartitionTask<T> extends RecursiveTask<List<List<List<T>>>> {
+        private static final long serialVersionUID = 1L; // Never serialized; declared because ForkJoinTask is Serializable
+
+        private final List<T> rows;
+        private final List<Report<T>> reports;
+        private final int start;
+        private final int end;
+
+        private PartitionTask(List<T> rows, List<Report<T>> reports, int start, int end) {
+            this.rows = rows;
+            this.reports = reports;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected List<List<List<T>>> compute() {
+            if (end - start > PARTITION_SIZE) {
+                int middle = (start + end) >>> 1;
+                PartitionTask<T> left = new PartitionTask<>(rows, reports, start, middle);
+                left.fork();
+                List<List<List<T>>> right = new PartitionTask<>(rows, reports, middle, end).compute();
+                List<List<List<T>>> result = new ArrayList<>(left.join());
+                result.addAll(right);
+                return result;
+            }
+
+            List<List<T>> runs = new ArrayList<>(reports.size());
+            for (int r = 0; r < reports.size(); r++) {
+                runs.add(new ArrayList<>());
+            }
+            // Read each row once and hand it to every report that wants it
+            for (int i = start; i < end; i++) {
+                T row = rows.get(i);
+                for (int r = 0; r < reports.size(); r++) {
+                    if (reports.get(r).filter.test(row)) {
+                        runs.get(r).add(row);
+                    }
+                }
+            }
+            for (int r = 0; r < reports.size(); r++) {
+                runs.get(r).sort(reports.get(r).order);
+            }
+            List<List<List<T>>> result = new ArrayList<>(1);
+            result.add(runs);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package utils;
+
+import java.util.Map;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * JMX interface of the application statistics, registered as elms:type=Statistics.
+ */
+public interface StatisticsMXBean {
+
+    /**
+     * Gets the value of every counter, such as call counts and bytes read and written.
+     *
+     * @return The counters by name.
+     */
+    public Map<String, Long> getCounters();
+
+    /**
+     * Gets the count, mean, p50, p90, p99, p99.9 and maximum latency of every operation.
+     *
+     * @return Values in nanoseconds keyed by operation and statistic.
+     */
+    public Map<String, Long> getLatencies();
+
+    /**
+     * Gets the bytes allocated by each live thread.
+     *
+     * @return The allocated bytes by thread name.
+     */
+    public Map<String, Long> getThreadAllocatedBytes();
+
+    /**
+     * Clears all counters and latencies.
+     */
+    public void reset();
+}
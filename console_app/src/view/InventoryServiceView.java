@@ -1,12 +1,16 @@
 package view;
 
+import helper.DataRepository;
 import helper.EquipmentDataProcessor;
+import helper.IdAllocator;
 import model.Equipment;
+import model.EquipmentStatus;
 import model.LendingRecord;
 import controller.*;
 import utils.*;
 
 import java.util.ArrayList;
+import java.time.LocalDate;
 import java.util.*;
 import java.util.Scanner;
 
@@ -18,7 +22,8 @@ import java.util.Scanner;
  */
 public class InventoryServiceView {
     private static final Scanner scanner = new Scanner(System.in);
-    private final InventoryService inventoryService = new InventoryService(); // Inventory service instance
+    private static final int SEARCH_MATCHES = 20; // Matches shown for an equipment search
+    private final InventoryManager inventoryService = new InstrumentedInventoryManager(new InventoryService()); // Inventory service instance, measured
     private final InputValidation inputValidation = new InputValidation(); // Input validation instance
     private List<Equipment> equipments = inventoryService.getAllEquipment();
 
@@ -64,7 +69,7 @@ public class InventoryServiceView {
         String status = "Available";
 
         // Get purchase date
-        Date purchaseDate = inputValidation.getValidDate("Enter purchase date (yyyy-MM-dd): ");
+        LocalDate purchaseDate = inputValidation.getValidDate("Enter purchase date (yyyy-MM-dd): ");
         if (purchaseDate == null) {
             System.out.println("Failed: Invalid purchase date.");
             return;
@@ -169,42 +174,61 @@ public class InventoryServiceView {
         }
     }
 
-    //Method to generate next equipment ID
-    private String generateNextEquipmentID() {
-        equipments = inventoryService.getAllEquipment();
-        int maxNumber = 0;
-
-        for (Equipment equipment : equipments) {
-            String id = equipment.getId();
-            if (id.matches("EQ0\\d{2}")) { // Matches format EQ0XX
-                int num = Integer.parseInt(id.substring(2)); // Extract XX
-                if (num > maxNumber) {
-                    maxNumber = num;
-                }
+    /**
+     * Searches the equipment by name, optionally only with a status and condition.
+     */
+    public void searchEquipment() {
+        System.out.println("\nSearching equipment...");
+        String query;
+        while (true) {
+            System.out.print("Enter words or the start of words of the equipment name: ");
+            query = scanner.nextLine().trim();
+            if (query.replaceAll("[^\\p{L}\\p{N}]", "").length() >= 2) {
+                break;
             }
+            System.out.println("❌ Failed: Enter at least two letters or digits.");
+        }
+        EquipmentStatus status = inputValidation.getStatusFilter();
+        String condition = inputValidation.getConditionFilter();
+
+        List<Equipment> matches = inventoryService.searchEquipment(query, status, condition, SEARCH_MATCHES);
+        if (matches.isEmpty()) {
+            System.out.println("No equipment matches \"" + query + "\".");
+            return;
+        }
+        System.out.println("\nBest matches for \"" + query + "\":");
+        for (Equipment equipment : matches) {
+            equipment.displayInfo();
         }
+    }
 
-        // Increment by 1
-        int nextNumber = maxNumber + 1;
-        return String.format("EQ0%02d", nextNumber);
+    //Method to generate next equipment ID
+    private String generateNextEquipmentID() {
+        // Issued from the saved high-water mark; skip any ID that was added to the file by hand
+        String equipmentID;
+        do {
+            equipmentID = IdAllocator.next(IdAllocator.Sequence.EQUIPMENT);
+        } while (DataRepository.getEquipment(equipmentID) != null);
+        return equipmentID;
     }
 
     /**
      * Generate report for all equipment
      */
     public void generateAvailableEquipmentReport() {
-        String filePath = "console_app/all_available_equipment_report.txt";
+        ReportFormat format = inputValidation.getValidReportFormat();
+        String filePath = "console_app/all_available_equipment_report" + format.getExtension();
 
         try {
-            List<Equipment> availableEquipments = inventoryService.getAvailableEquipment();
-
-            if (availableEquipments.isEmpty()) {
-                System.out.println("No available equipment to generate a report.");
+            long written = ReportGenerator.exportAvailableEquipment(inventoryService::forEachAvailableEquipment, format, filePath);
+            if (written < 0) {
+                return; // The error has been reported
+            }
+            if (written == 0) {
+                System.out.println("No available equipment to report. An empty report was saved to: " + filePath);
                 return;
             }
-
-            ReportGenerator.exportAvailableEquipmentToFile(availableEquipments, filePath);
-            System.out.println("Available Equipment Report successfully generated and saved to: " + filePath);
+            System.out.println("Available Equipment Report with " + written + " equipment successfully generated and saved to: " + filePath);
         } catch (Exception e) {
             System.err.println("Error generating available equipment report: " + e.getMessage());
         }
@@ -5,20 +5,16 @@ import controller.*;
 import model.*;
 import utils.*;
 
+import java.time.LocalDate;
 import java.util.*;
 
 /* * View class for lending service operations. */
 public class LendingServiceView {
     private static final Scanner scanner = new Scanner(System.in);
-    private final LendingService lendingService = new LendingService(); // Lending service instance
+    private final LendingService service = new LendingService(); // Kept to reload its maps
+    private final LendingManager lendingService = new InstrumentedLendingManager(service); // Lending service instance, measured
     private final InputValidation inputValidation = new InputValidation(); // Input validation instance
-    private List<LendingRecord> lendingRecords = LendingRecordProcessor.getLendingRecords();
-
-    //Get list of student, academic, professional and equipment
-    private List<Student> students = StudentDataProcessor.getStudents();
-    private List<Academic> academics = StaffDataProcessor.getAcademics();
-    private List<Professional> professionals = StaffDataProcessor.getProfessionals();
-    private List<Equipment> equipmentList = EquipmentDataProcessor.getEquipments();
+    private List<LendingRecord> lendingRecords = DataRepository.getLendingRecords();
 
     //Method to add lending record
     public void addLendingRecord() {
@@ -48,19 +44,19 @@ public class LendingServiceView {
         }
 
         // Get borrow date
-        Date borrowDate = inputValidation.getValidDate("Enter borrow date (yyyy-MM-dd): ");
-        Date today = new Date();
+        LocalDate borrowDate = inputValidation.getValidDate("Enter borrow date (yyyy-MM-dd): ");
+        LocalDate today = LocalDate.now();
 
         // Get return date with validation loop
-        Date returnDate;
+        LocalDate returnDate;
         do {
             returnDate = inputValidation.getValidDate("Enter return date (yyyy-MM-dd): ");
-            if (returnDate.before(borrowDate)) {
+            if (returnDate.isBefore(borrowDate)) {
                 System.out.println("Return date must be after borrow date. Please try again.");
-            } else if (returnDate.before(today)) {
+            } else if (returnDate.isBefore(today)) {
                 System.out.println("Return date must be after today's date. Please try again.");
             }
-        } while (returnDate.before(borrowDate) || returnDate.before(today));
+        } while (returnDate.isBefore(borrowDate) || returnDate.isBefore(today));
 
         // Get purpose
         String purpose = inputValidation.getValidPurpose();
@@ -106,6 +102,80 @@ public class LendingServiceView {
         }
     }
 
+    /**
+     * Returns every open loan of a borrower at once.
+     */
+    public void returnAllForBorrower() {
+        System.out.println("\nReturning all equipment of a borrower...");
+        Borrower borrower = inputValidation.getValidBorrower();
+        if (borrower == null) {
+            System.out.println("Failed: Borrower not found.");
+            return;
+        }
+
+        List<LendingRecord> returned = lendingService.returnAllForBorrower(borrower.getBorrowerID());
+        if (returned.isEmpty()) {
+            System.out.println(borrower.getFullName() + " has no open lending records.");
+            return;
+        }
+        System.out.println("Returned " + returned.size() + " lending records of " + borrower.getFullName() + ":");
+        for (LendingRecord record : returned) {
+            System.out.println("Record ID: " + record.getRecordID() + ", Equipment: " + equipmentIDsOf(record));
+        }
+    }
+
+    /**
+     * Returns the loans of several equipment given back at once.
+     */
+    public void returnEquipment() {
+        System.out.println("\nReturning equipment...");
+        System.out.print("Enter the IDs of the equipment given back (separated by semicolons): ");
+        Set<String> equipmentIDs = new LinkedHashSet<>();
+        for (String id : scanner.nextLine().split(";")) {
+            if (!id.trim().isEmpty()) {
+                equipmentIDs.add(id.trim());
+            }
+        }
+        if (equipmentIDs.isEmpty()) {
+            System.out.println("No equipment IDs entered.");
+            return;
+        }
+
+        List<LendingRecord> returned = lendingService.returnEquipment(equipmentIDs);
+        for (LendingRecord record : returned) {
+            System.out.println("Returned record " + record.getRecordID() + " of " + record.getBorrower().getFullName()
+                    + ", Equipment: " + equipmentIDsOf(record));
+            for (Equipment equipment : record.getEquipmentList()) {
+                equipmentIDs.remove(equipment.getId());
+            }
+        }
+        System.out.println(returned.size() + " lending records returned.");
+        if (!equipmentIDs.isEmpty()) {
+            // Unknown, not lent, or lent together with equipment that is still out
+            System.out.println("Not returned: " + String.join(", ", equipmentIDs)
+                    + ". A record is only returned once all of its equipment is given back.");
+        }
+    }
+
+    /**
+     * Reads the data files again, e.g. after they were changed by the bulk importer.
+     */
+    public void reloadData() {
+        System.out.println("\nReloading data files...");
+        service.reload();
+        System.out.println("Loaded " + lendingRecords.size() + " lending records and "
+                + DataRepository.getEquipments().size() + " equipment.");
+    }
+
+    // Join the equipment IDs of a record
+    private String equipmentIDsOf(LendingRecord record) {
+        StringJoiner ids = new StringJoiner(", ");
+        for (Equipment equipment : record.getEquipmentList()) {
+            ids.add(equipment.getId());
+        }
+        return ids.toString();
+    }
+
     /**
      * Deletion of a lending record by ID.
      */
@@ -189,10 +259,9 @@ public class LendingServiceView {
         System.out.println("\nRefer to the list below for entering equipment ID you want to view its lending records:");
 // Display each unique equipment ID along with its name. Each ID is printed once
         for (String equipmentID : equipmentIDs) {
-            for (Equipment equipment : equipmentList) {
-                if (equipment.getId().equals(equipmentID)) {
-                    System.out.println("ID: " + equipment.getId() + ": " + equipment.getName());
-                }
+            Equipment equipment = DataRepository.getEquipment(equipmentID);
+            if (equipment != null) {
+                System.out.println("ID: " + equipment.getId() + ": " + equipment.getName());
             }
         }
         // Get equipment ID from user
@@ -213,42 +282,31 @@ public class LendingServiceView {
     }
 
     /**
-     * Method to generate overdue report and export it to a text file
+     * Method to generate overdue report and export it to a file in the format chosen by the user.
+     * Records are streamed from the overdue index to the file, so no copy of them is made.
      */
     public void generateOverdueReport() {
-        String filePath = "console_app/overdue_lending_report.txt"; // File path for saving the report
+        ReportFormat format = inputValidation.getValidReportFormat();
+        String filePath = "console_app/overdue_lending_report" + format.getExtension(); // File path for saving the report
 
         try {
-            List<LendingRecord> overdueRecords = lendingService.getOverdueLendingRecords();
-            if (overdueRecords.isEmpty()) {
-                System.out.println("No overdue lending records to generate a report.");
+            long written = ReportGenerator.exportLendingRecords(lendingService::forEachOverdueLendingRecord, format, filePath);
+            if (written < 0) {
+                return; // The error has been reported
+            }
+            if (written == 0) {
+                System.out.println("No overdue lending records to report. An empty report was saved to: " + filePath);
                 return;
             }
-
-            ReportGenerator.exportLendingRecordsToFile(overdueRecords, filePath);
-            System.out.println("Report for all overdue lending records successfully generated and saved to: " + filePath);
+            System.out.println("Report for all " + written + " overdue lending records successfully generated and saved to: " + filePath);
         } catch (Exception e) {
             System.err.println("Error generating overdue lending record  report: " + e.getMessage());
         }
     }
 
     private String generateNextRecordID() {
-        lendingRecords = lendingService.getAllLendingRecords();
-        int maxNumber = 0;
-
-        for (LendingRecord record : lendingRecords) {
-            String id = record.getRecordID();
-            if (id.matches("L0\\d{2}")) { // Matches format L0XX
-                int num = Integer.parseInt(id.substring(2)); // Extract XX
-                if (num > maxNumber) {
-                    maxNumber = num;
-                }
-            }
-        }
-
-        // Increment by 1
-        int nextNumber = maxNumber + 1;
-        return String.format("L0%02d", nextNumber);
+        // Issued from the saved high-water mark, so no record is scanned
+        return IdAllocator.next(IdAllocator.Sequence.LENDING_RECORD);
     }
 
 
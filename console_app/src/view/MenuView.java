@@ -1,5 +1,8 @@
 package view;
 
+import utils.Metrics;
+
+import java.io.UncheckedIOException;
 import java.util.Scanner;
 
 /**
@@ -14,14 +17,18 @@ public class MenuView {
     private static final PersonView personView = new PersonView();
     private static final LendingServiceView lendingServiceView = new LendingServiceView();
     private static final InventoryServiceView inventoryServiceView = new InventoryServiceView();
+    private static final StatisticsView statisticsView = new StatisticsView();
+    private static final ReportView reportView = new ReportView();
 
     public static void main(String[] args) {
+        Metrics.registerMBean(); // Make the statistics available over JMX
         runMainMenu();
     }
 
     /**
      * Main menu for the console application.
-     * Provides options to view records, manage lending records, manage equipment, and generate reports.
+     * Provides options to view records, manage lending records, manage equipment, generate reports, view statistics,
+     * and reload the data files.
      */
     private static void runMainMenu() {
         while (true) {
@@ -30,6 +37,8 @@ public class MenuView {
             System.out.println("2. Manage Lending Records");
             System.out.println("3. Manage Equipment");
             System.out.println("4. Generate Reports");
+            System.out.println("5. Statistics");
+            System.out.println("6. Reload data files");
             System.out.println("0. Exit");
             System.out.print("Enter your choice: ");
 
@@ -40,27 +49,34 @@ public class MenuView {
             try {
                 choice = Integer.parseInt(input);
             } catch (NumberFormatException e) {
-                System.out.println("Invalid input. Please enter a number between 0 and 4.");
+                System.out.println("Invalid input. Please enter a number between 0 and 6.");
                 continue; // Ask the user again
             }
 
-            switch (choice) {
-                case 1 -> viewRecordsMenu();
-                case 2 -> manageLendingRecordsMenu();
-                case 3 -> manageEquipmentMenu();
-                case 4 -> generateReportsMenu();
-                case 0 -> {
-                    System.out.println("Exit the pprogram. Goodbye!");
-                    return;
+            try {
+                switch (choice) {
+                    case 1 -> viewRecordsMenu();
+                    case 2 -> manageLendingRecordsMenu();
+                    case 3 -> manageEquipmentMenu();
+                    case 4 -> generateReportsMenu();
+                    case 5 -> statisticsView.viewStatistics();
+                    case 6 -> lendingServiceView.reloadData();
+                    case 0 -> {
+                        System.out.println("Exit the pprogram. Goodbye!");
+                        return;
+                    }
+                    default -> System.out.println("Invalid choice. Please try again.");
                 }
-                default -> System.out.println("Invalid choice. Please try again.");
+            } catch (UncheckedIOException e) {
+                // A change could not be saved; reloading the data files drops it from memory
+                System.err.println("Error: " + e.getMessage() + ". Reload the data files (option 6).");
             }
         }
     }
 
     /**
      * Submenu for viewing records.
-     * Provides options to view all equipment, lending records, staff, and students.
+     * Provides options to view all equipment, lending records, staff, and students, and to search equipment.
      */
     private static void viewRecordsMenu() {
         while (true) {
@@ -70,6 +86,7 @@ public class MenuView {
             System.out.println("2. View lending records");
             System.out.println("3. View all staff");
             System.out.println("4. View all students");
+            System.out.println("5. Search equipment by name");
             System.out.println("0. Back to Main Menu");
             System.out.print("Enter your choice: ");
 
@@ -79,7 +96,7 @@ public class MenuView {
             try {
                 choice = Integer.parseInt(input);
             } catch (NumberFormatException e) {
-                System.out.println("Invalid input. Please enter a number between 0 and 4.");
+                System.out.println("Invalid input. Please enter a number between 0 and 5.");
                 continue; // Ask the user again
             }
 
@@ -88,6 +105,7 @@ public class MenuView {
                 case 2 -> viewLendingRecordsMenu(); // Calls new lending records submenu
                 case 3 -> personView.viewAllStaff();
                 case 4 -> personView.viewAllStudents();
+                case 5 -> inventoryServiceView.searchEquipment();
                 case 0 -> {
                     return;
                 }
@@ -175,6 +193,8 @@ public class MenuView {
             System.out.println("1. Add a new lending record");
             System.out.println("2. Update a lending record");
             System.out.println("3. Delete a lending record");
+            System.out.println("4. Return all equipment of a borrower");
+            System.out.println("5. Return several equipment");
             System.out.println("0. Back to Main Menu");
             System.out.print("Enter your choice: ");
 
@@ -184,7 +204,7 @@ public class MenuView {
             try {
                 choice = Integer.parseInt(input);
             } catch (NumberFormatException e) {
-                System.out.println("Invalid input. Please enter a number between 0 and 3.");
+                System.out.println("Invalid input. Please enter a number between 0 and 5.");
                 continue; // Ask the user again
             }
 
@@ -192,6 +212,8 @@ public class MenuView {
                 case 1 -> lendingServiceView.addLendingRecord();
                 case 2 -> lendingServiceView.updateLendingRecord();
                 case 3 -> lendingServiceView.deleteLendingRecord();
+                case 4 -> lendingServiceView.returnAllForBorrower();
+                case 5 -> lendingServiceView.returnEquipment();
                 case 0 -> {
                     return;
                 }
@@ -238,7 +260,7 @@ public class MenuView {
 
     /**
      * Submenu for generating reports.
-     * Provides options to generate overdue records report or available equipment report.
+     * Provides options to generate overdue records report, available equipment report, or both at once.
      */
     private static void generateReportsMenu() {
         while (true) {
@@ -246,6 +268,7 @@ public class MenuView {
             System.out.println("Please enter a number corresponding to your expected action!");
             System.out.println("1. Generate overdue records report");
             System.out.println("2. Generate available equipment report");
+            System.out.println("3. Generate all reports");
             System.out.println("0. Back to Main Menu");
             System.out.print("Enter your choice: ");
             String input = scanner.nextLine().trim();
@@ -254,13 +277,14 @@ public class MenuView {
             try {
                 choice = Integer.parseInt(input);
             } catch (NumberFormatException e) {
-                System.out.println("Invalid input. Please enter a number between 0 and 2.");
+                System.out.println("Invalid input. Please enter a number between 0 and 3.");
                 continue; // Ask the user again
             }
 
             switch (choice) {
                 case 1 -> lendingServiceView.generateOverdueReport();
                 case 2 -> inventoryServiceView.generateAvailableEquipmentReport();
+                case 3 -> reportView.generateAllReports();
                 case 0 -> {
                     return;
                 }
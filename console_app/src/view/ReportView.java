@@ -0,0 +1,53 @@
+package view;
+
+import controller.InputValidation;
+import controller.OverdueMonitor;
+import helper.DataRepository;
+import model.EquipmentStatus;
+import model.EquipmentStatusIndex;
+import utils.ReportFormat;
+import utils.ReportGenerator;
+import utils.ReportJob;
+
+import java.util.Map;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * View class for generating every report in one job.
+ * The lending records and the equipment are each read once, and the reports are
+ * filtered, sorted and written in parallel.
+ */
+public class ReportView {
+    private final InputValidation inputValidation = new InputValidation(); // Input validation instance
+
+    /**
+     * Generate the overdue report and the available equipment report together.
+     */
+    public void generateAllReports() {
+        ReportFormat format = inputValidation.getValidReportFormat();
+        String overduePath = "console_app/overdue_lending_report" + format.getExtension();
+        String availablePath = "console_app/all_available_equipment_report" + format.getExtension();
+
+        try {
+            ReportJob job = new ReportJob(format);
+            job.scan(DataRepository.snapshotLendingRecords())
+                    .report(ReportGenerator.OVERDUE_TITLE, ReportGenerator.LENDING_RECORD_COLUMNS,
+                            record -> OverdueMonitor.OVERDUE.equalsIgnoreCase(record.getStatus()),
+                            OverdueMonitor.OVERDUE_ORDER, overduePath);
+            job.scan(DataRepository.snapshotEquipments())
+                    .report(ReportGenerator.AVAILABLE_EQUIPMENT_TITLE, ReportGenerator.EQUIPMENT_COLUMNS,
+                            equipment -> EquipmentStatus.fromLabel(equipment.getStatus()) == EquipmentStatus.AVAILABLE,
+                            EquipmentStatusIndex.ORDER, availablePath);
+
+            for (Map.Entry<String, Long> entry : job.run().entrySet()) {
+                if (entry.getValue() >= 0) {
+                    System.out.println("Report with " + entry.getValue() + " rows successfully generated and saved to: " + entry.getKey());
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Error generating reports: " + e.getMessage());
+        }
+    }
+}
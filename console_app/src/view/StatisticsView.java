@@ -0,0 +1,52 @@
+package view;
+
+import utils.LatencyHistogram;
+import utils.Metrics;
+
+import java.util.Map;
+
+/**
+ * @author Luong Thi Tra My - s3987023
+ * @version 1.0
+ * <p>
+ * View class for showing operation latencies, call counts, bytes read and written,
+ * and the memory allocated by each thread.
+ */
+public class StatisticsView {
+
+    // Method to view all statistics
+    public void viewStatistics() {
+        System.out.println("\n=== Operation Latency (ms) ===");
+        Map<String, LatencyHistogram> histograms = Metrics.getHistograms();
+        histograms.values().removeIf(histogram -> histogram.getCount() == 0); // Skip operations not used yet
+        if (histograms.isEmpty()) {
+            System.out.println("No operations recorded yet.");
+        } else {
+            System.out.printf("%-40s %8s %9s %9s %9s %9s %9s%n", "Operation", "Count", "p50", "p90", "p99", "p99.9", "Max");
+            for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+                LatencyHistogram histogram = entry.getValue();
+                System.out.printf("%-40s %8d %9.3f %9.3f %9.3f %9.3f %9.3f%n", entry.getKey(), histogram.getCount(),
+                        millis(histogram.getPercentile(50)), millis(histogram.getPercentile(90)),
+                        millis(histogram.getPercentile(99)), millis(histogram.getPercentile(99.9)),
+                        millis(histogram.getMax()));
+            }
+        }
+
+        System.out.println("\n=== Counters ===");
+        for (Map.Entry<String, Long> entry : Metrics.getCounters().entrySet()) {
+            if (entry.getValue() == 0) {
+                continue; // Skip counters that never changed
+            }
+            System.out.printf("%-50s %15d%n", entry.getKey(), entry.getValue());
+        }
+
+        System.out.println("\n=== Allocated Bytes per Thread ===");
+        for (Map.Entry<String, Long> entry : Metrics.getThreadAllocatedBytes().entrySet()) {
+            System.out.printf("%-50s %15d%n", entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}